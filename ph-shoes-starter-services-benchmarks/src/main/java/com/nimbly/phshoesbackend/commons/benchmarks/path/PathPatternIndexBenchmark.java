@@ -0,0 +1,87 @@
+package com.nimbly.phshoesbackend.commons.benchmarks.path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.AntPathMatcher;
+
+import com.nimbly.phshoesbackend.commons.core.path.PathPatternIndex;
+
+/**
+ * Compares the per-request loop over {@link AntPathMatcher#match} that rate-limit routes and JWT skip paths used
+ * to do with a single lookup in a compiled {@link PathPatternIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathPatternIndexBenchmark {
+
+    private static final String[] RESOURCES = {
+            "user-accounts", "products", "brands", "catalog", "orders", "carts", "alerts", "emails",
+            "suppressions", "search", "exports", "reviews", "wishlists"
+    };
+
+    @Param({"10", "60"})
+    public int patternCount;
+
+    @Param({"/api/v1/products/123/reviews", "/api/v1/unknown/resource"})
+    public String path;
+
+    private List<String> patterns;
+
+    private AntPathMatcher antPathMatcher;
+
+    private PathPatternIndex<String> index;
+
+    @Setup
+    public void setUp() {
+        patterns = new ArrayList<>(patternCount);
+        for (int i = 0; patterns.size() < patternCount; i++) {
+            String resource = RESOURCES[i % RESOURCES.length];
+            switch (i / RESOURCES.length % 5) {
+                case 0 -> patterns.add("/api/v1/" + resource);
+                case 1 -> patterns.add("/api/v1/" + resource + "/{id}");
+                case 2 -> patterns.add("/api/v1/" + resource + "/{id}/reviews");
+                case 3 -> patterns.add("/api/v1/" + resource + "/**");
+                default -> patterns.add("/api/v2/" + resource + "/*/items");
+            }
+        }
+        antPathMatcher = new AntPathMatcher();
+        index = PathPatternIndex.of(patterns);
+    }
+
+    @Benchmark
+    public void antPathMatcherLoop(Blackhole blackhole) {
+        for (String pattern : patterns) {
+            if (antPathMatcher.match(pattern, path)) {
+                blackhole.consume(pattern);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<String> compiledIndex() {
+        return index.match(path);
+    }
+
+    @Benchmark
+    public boolean compiledIndexAny() {
+        return index.matchesAny(path);
+    }
+}
@@ -0,0 +1,78 @@
+package com.nimbly.phshoesbackend.commons.benchmarks.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.InMemoryApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitDecision;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRequestContext;
+
+/**
+ * Throughput of a limiter whose only limit is the global one, so every thread admits against the same key.
+ * Compares the single-counter fixed window and GCRA with the striped counter.
+ * <p>
+ * {@link #main} runs the benchmark at 1 to 64 threads; a single thread count can be run with
+ * {@code java -jar target/benchmarks.jar GlobalRateLimitBenchmark -t 16}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalRateLimitBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Param({"fixed", "gcra", "striped"})
+    public String mode;
+
+    private InMemoryApiRateLimiter limiter;
+
+    private RateLimitRequestContext context;
+
+    @Setup
+    public void setUp() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofHours(1));
+        properties.getGlobal().setLimit(Long.MAX_VALUE / 2);
+        switch (mode) {
+            case "gcra" -> properties.setAlgorithm(ApiRateLimitProperties.Algorithm.GCRA);
+            case "striped" -> properties.getStriped().setEnabled(true);
+            default -> properties.setAlgorithm(ApiRateLimitProperties.Algorithm.FIXED);
+        }
+        limiter = new InMemoryApiRateLimiter(properties);
+        context = RateLimitRequestContext.builder().path("/api/v1/products").build();
+    }
+
+    @Benchmark
+    public RateLimitDecision globalOnly() {
+        return limiter.tryAcquire(context);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            new Runner(new OptionsBuilder()
+                    .include(GlobalRateLimitBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+}
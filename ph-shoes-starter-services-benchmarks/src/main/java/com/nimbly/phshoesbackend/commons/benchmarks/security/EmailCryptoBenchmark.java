@@ -0,0 +1,142 @@
+package com.nimbly.phshoesbackend.commons.benchmarks.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nimbly.phshoesbackend.commons.core.config.EmailSecurityProperties;
+import com.nimbly.phshoesbackend.commons.core.security.EmailCrypto;
+
+/**
+ * Compares {@link EmailCrypto}, which reuses pooled {@link Mac} and {@link Cipher} engines, with looking up and
+ * keying a new engine on every call as it used to. Runs on 4 threads so the pool is contended; override with
+ * {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class EmailCryptoBenchmark {
+
+    private static final String EMAIL = "first.last+promo@gmail.com";
+
+    private static final byte[] EMAIL_BYTES = EMAIL.getBytes(StandardCharsets.UTF_8);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private EmailCrypto crypto;
+
+    private SecretKeySpec hmacKey;
+
+    private SecretKeySpec aesKey;
+
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        byte[] pepper = new byte[32];
+        byte[] key = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            pepper[i] = (byte) i;
+            key[i] = (byte) (31 - i);
+        }
+        EmailSecurityProperties properties = new EmailSecurityProperties();
+        properties.setHmacPepperB64(Base64.getEncoder().encodeToString(pepper));
+        properties.setAesKeyB64(Base64.getEncoder().encodeToString(key));
+        crypto = new EmailCrypto(properties);
+        hmacKey = new SecretKeySpec(pepper, "HmacSHA256");
+        aesKey = new SecretKeySpec(key, "AES");
+        encrypted = crypto.encrypt(EMAIL);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return crypto.normalize(" First.Last+Promo@GMail.com ");
+    }
+
+    @Benchmark
+    public String hashPerCallEngine() throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(hmacKey);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(EMAIL.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public String hashPooled() {
+        return crypto.hash(EMAIL);
+    }
+
+    @Benchmark
+    public List<String> hashCandidatesPooled() {
+        return crypto.hashCandidates(EMAIL);
+    }
+
+    @Benchmark
+    public String decryptPerCallEngine() throws GeneralSecurityException {
+        byte[] payload = Base64.getDecoder().decode(encrypted);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(128, payload, 0, 12));
+        return new String(cipher.doFinal(payload, 12, payload.length - 12), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decryptPooled() {
+        return crypto.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public String encryptPerCallEngine() throws GeneralSecurityException {
+        byte[] iv = new byte[12];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal(EMAIL.getBytes(StandardCharsets.UTF_8));
+        byte[] payload = new byte[iv.length + ciphertext.length];
+        System.arraycopy(iv, 0, payload, 0, iv.length);
+        System.arraycopy(ciphertext, 0, payload, iv.length, ciphertext.length);
+        return Base64.getEncoder().encodeToString(payload);
+    }
+
+    @Benchmark
+    public String encryptPooled() {
+        return crypto.encrypt(EMAIL);
+    }
+
+    /**
+     * Byte-oriented round trip through a buffer owned by the benchmark thread.
+     */
+    @Benchmark
+    public int encryptDecryptBytes(Buffers buffers) {
+        int length = crypto.encrypt(EMAIL_BYTES, 0, EMAIL_BYTES.length, buffers.payload, 0);
+        return crypto.decrypt(buffers.payload, 0, length, buffers.payload, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class Buffers {
+
+        final byte[] payload = new byte[EmailCrypto.encryptedLength(EMAIL_BYTES.length)];
+    }
+}
@@ -1,13 +1,38 @@
 package com.nimbly.phshoesbackend.commons.core.autoconfig;
 
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.DynamoMigrationProperties;
+import com.nimbly.phshoesbackend.commons.core.migrations.UpgradeContext;
+import com.nimbly.phshoesbackend.commons.core.migrations.UpgradeStep;
+import com.nimbly.phshoesbackend.commons.core.migrations.utility.TableCreator;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.AbstractApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.AimdConcurrencyLimiter;
 import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ConcurrencyLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.DynamoApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.DynamoRateLimitTableUpgradeStep;
 import com.nimbly.phshoesbackend.commons.core.ratelimit.InMemoryApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.LeasedDynamoApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.MicrometerRateLimitMetrics;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitMetrics;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPolicyRefresher;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
 @AutoConfiguration
 @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "enabled", havingValue = "true")
@@ -15,8 +40,90 @@ public class ApiRateLimitingAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public ApiRateLimiter apiRateLimiter(ApiRateLimitProperties properties) {
-        return new InMemoryApiRateLimiter(properties);
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "store", havingValue = "memory", matchIfMissing = true)
+    public ApiRateLimiter apiRateLimiter(ApiRateLimitProperties properties, ObjectProvider<EpochClock> clock) {
+        return new InMemoryApiRateLimiter(properties, ForkJoinPool.commonPool(), clock.getIfAvailable(EpochClock::system));
     }
-}
 
+    @Bean
+    @ConditionalOnBean(ApiRateLimiter.class)
+    @ConditionalOnMissingBean
+    public RateLimitPolicyRefresher rateLimitPolicyRefresher(ApiRateLimiter apiRateLimiter, Environment environment) {
+        return new RateLimitPolicyRefresher(apiRateLimiter, environment);
+    }
+
+    /**
+     * The DynamoDB limiter is only created when a {@link DynamoDbClient} bean exists. Without one, fail startup
+     * instead of silently running with no rate limiting.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "store", havingValue = "dynamo")
+    public SmartInitializingSingleton dynamoApiRateLimiterCheck(ObjectProvider<ApiRateLimiter> apiRateLimiter) {
+        return () -> {
+            if (apiRateLimiter.getIfAvailable() == null) {
+                throw new IllegalStateException("phshoes.api.rate-limit.store=dynamo requires a DynamoDbClient bean");
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit.concurrency", name = "enabled", havingValue = "true")
+    public ConcurrencyLimiter concurrencyLimiter(ApiRateLimitProperties properties) {
+        return new AimdConcurrencyLimiter(properties);
+    }
+
+    /**
+     * Attaches meters once every singleton exists, so the limiter is not tied to the order in which the
+     * {@link MeterRegistry} is created. Without a registry the limiter keeps {@link RateLimitMetrics#NOOP}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class RateLimitMetricsConfiguration {
+
+        @Bean
+        public SmartInitializingSingleton apiRateLimiterMetricsBinder(ObjectProvider<ApiRateLimiter> apiRateLimiter,
+                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+            return () -> {
+                MeterRegistry registry = meterRegistry.getIfUnique();
+                if (registry == null || !(apiRateLimiter.getIfUnique() instanceof AbstractApiRateLimiter limiter)) {
+                    return;
+                }
+                MicrometerRateLimitMetrics metrics = new MicrometerRateLimitMetrics(registry);
+                if (limiter instanceof InMemoryApiRateLimiter inMemory) {
+                    metrics.monitor(inMemory);
+                }
+                limiter.setMetrics(metrics);
+            };
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(DynamoDbClient.class)
+    @ConditionalOnBean(DynamoDbClient.class)
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "store", havingValue = "dynamo")
+    static class DynamoRateLimitConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ApiRateLimiter dynamoApiRateLimiter(DynamoDbClient dynamoDbClient,
+                                                   ApiRateLimitProperties properties,
+                                                   DynamoMigrationProperties migrationProperties,
+                                                   ObjectProvider<EpochClock> clock) {
+            String tableName = new UpgradeContext(migrationProperties).tbl(properties.getDynamo().getTableName());
+            EpochClock epochClock = clock.getIfAvailable(EpochClock::system);
+            if (properties.getDynamo().getLease().isEnabled()) {
+                return new LeasedDynamoApiRateLimiter(dynamoDbClient, properties, tableName, ForkJoinPool.commonPool(), epochClock);
+            }
+            return new DynamoApiRateLimiter(dynamoDbClient, properties, tableName, epochClock);
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = "phshoes.dynamo.migrations", name = "enabled", havingValue = "true")
+        public UpgradeStep dynamoRateLimitTableUpgradeStep(DynamoDbClient dynamoDbClient,
+                                                           ApiRateLimitProperties properties) {
+            return new DynamoRateLimitTableUpgradeStep(new TableCreator(dynamoDbClient), properties.getDynamo().getTableName());
+        }
+    }
+}
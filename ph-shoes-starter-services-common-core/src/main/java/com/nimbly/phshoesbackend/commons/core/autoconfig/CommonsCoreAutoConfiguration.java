@@ -1,14 +1,19 @@
 package com.nimbly.phshoesbackend.commons.core.autoconfig;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 
 import com.nimbly.phshoesbackend.commons.core.config.props.ApiProperties;
 import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ClockProperties;
 import com.nimbly.phshoesbackend.commons.core.config.props.DynamoMigrationProperties;
 import com.nimbly.phshoesbackend.commons.core.config.props.ServiceStatusProperties;
 import com.nimbly.phshoesbackend.commons.core.config.EmailSecurityProperties;
 import com.nimbly.phshoesbackend.commons.core.config.SuppressionProperties;
+import com.nimbly.phshoesbackend.commons.core.time.CachedEpochClock;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
 @AutoConfiguration
 @EnableConfigurationProperties({
@@ -17,7 +22,17 @@ import com.nimbly.phshoesbackend.commons.core.config.SuppressionProperties;
         ServiceStatusProperties.class,
         DynamoMigrationProperties.class,
         EmailSecurityProperties.class,
-        SuppressionProperties.class
+        SuppressionProperties.class,
+        ClockProperties.class
 })
 public class CommonsCoreAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EpochClock epochClock(ClockProperties properties) {
+        if (!properties.isCached() || properties.getTickInterval() == null) {
+            return EpochClock.system();
+        }
+        return new CachedEpochClock(properties.getTickInterval());
+    }
 }
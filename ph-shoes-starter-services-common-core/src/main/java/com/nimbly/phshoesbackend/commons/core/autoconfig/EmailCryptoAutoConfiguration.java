@@ -1,12 +1,20 @@
 package com.nimbly.phshoesbackend.commons.core.autoconfig;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
 import com.nimbly.phshoesbackend.commons.core.config.EmailSecurityProperties;
 import com.nimbly.phshoesbackend.commons.core.security.EmailCrypto;
+import com.nimbly.phshoesbackend.commons.core.security.EmailCryptoBatch;
+import com.nimbly.phshoesbackend.commons.core.security.MicrometerEmailHashCacheMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @AutoConfiguration
 @ConditionalOnProperty(prefix = "phshoes.security.email", name = "enabled", havingValue = "true", matchIfMissing = true)
@@ -17,5 +25,34 @@ public class EmailCryptoAutoConfiguration {
     public EmailCrypto emailCrypto(EmailSecurityProperties properties) {
         return new EmailCrypto(properties);
     }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EmailCryptoBatch emailCryptoBatch(EmailCrypto emailCrypto, EmailSecurityProperties properties) {
+        return EmailCryptoBatch.create(emailCrypto, properties.getBatch());
+    }
+
+    /**
+     * Attaches the hash cache meters once every singleton exists, whichever order the {@link MeterRegistry} and
+     * {@link EmailCrypto} beans are created in.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "phshoes.security.email.hash-cache", name = "enabled", havingValue = "true")
+    static class EmailHashCacheMetricsConfiguration {
+
+        @Bean
+        public SmartInitializingSingleton emailHashCacheMetricsBinder(ObjectProvider<EmailCrypto> emailCrypto,
+                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+            return () -> {
+                MeterRegistry registry = meterRegistry.getIfUnique();
+                EmailCrypto crypto = emailCrypto.getIfUnique();
+                if (registry == null || crypto == null || crypto.getHashCache() == null) {
+                    return;
+                }
+                new MicrometerEmailHashCacheMetrics(crypto.getHashCache()).bindTo(registry);
+            };
+        }
+    }
 }
 
@@ -1,5 +1,6 @@
 package com.nimbly.phshoesbackend.commons.core.autoconfig;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -10,6 +11,7 @@ import org.springframework.context.annotation.Bean;
 import com.nimbly.phshoesbackend.commons.core.config.SuppressionProperties;
 import com.nimbly.phshoesbackend.commons.core.repository.SuppressionRepository;
 import com.nimbly.phshoesbackend.commons.core.repository.impl.DynamoSuppressionRepository;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
@@ -22,8 +24,9 @@ public class SuppressionAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public SuppressionRepository suppressionRepository(DynamoDbClient dynamoDbClient,
-                                                       SuppressionProperties properties) {
-        return new DynamoSuppressionRepository(dynamoDbClient, properties);
+                                                       SuppressionProperties properties,
+                                                       ObjectProvider<EpochClock> clock) {
+        return new DynamoSuppressionRepository(dynamoDbClient, properties, clock.getIfAvailable(EpochClock::system));
     }
 }
 
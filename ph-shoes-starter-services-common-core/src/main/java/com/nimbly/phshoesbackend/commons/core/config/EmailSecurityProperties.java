@@ -1,5 +1,6 @@
 package com.nimbly.phshoesbackend.commons.core.config;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,5 +33,68 @@ public class EmailSecurityProperties {
      * Base64-encoded AES key (256-bit recommended) used to encrypt stored emails.
      */
     private String aesKeyB64;
-}
 
+    /**
+     * Settings for the {@code hashAll}, {@code encryptAll} and {@code decryptAll} batch calls.
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * In-memory cache of the hashes of recently hashed addresses.
+     */
+    private HashCache hashCache = new HashCache();
+
+    public enum BatchExecutor {
+
+        /**
+         * Dedicated fork-join pool with {@link Batch#parallelism} workers.
+         */
+        FORK_JOIN,
+
+        /**
+         * One virtual thread per chunk.
+         */
+        VIRTUAL_THREADS
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * Where batch chunks run.
+         */
+        private BatchExecutor executor = BatchExecutor.FORK_JOIN;
+
+        /**
+         * Workers of the fork-join pool. Zero or less uses the number of available processors.
+         */
+        private int parallelism;
+
+        /**
+         * Elements processed by one task; each task reuses one set of engines and buffers for its elements.
+         */
+        private int chunkSize = 256;
+    }
+
+    @Getter
+    @Setter
+    public static class HashCache {
+
+        /**
+         * Cache the results of {@code hash} and {@code hashCandidates}, keyed by a seeded digest of the address so
+         * plain-text addresses are not kept in memory. Batch calls bypass the cache.
+         */
+        private boolean enabled;
+
+        /**
+         * Upper bound on cached addresses; beyond it the least recently used ones are evicted (CLOCK).
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * How long a cached hash is served. Zero keeps entries until they are evicted.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
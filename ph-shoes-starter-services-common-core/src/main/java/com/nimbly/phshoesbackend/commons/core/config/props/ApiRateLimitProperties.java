@@ -24,9 +24,78 @@ public class ApiRateLimitProperties {
      */
     private Duration defaultWindow = Duration.ofHours(24);
 
+    /**
+     * Where counters live: memory (per instance) or dynamo (shared across instances).
+     */
+    private Store store = Store.MEMORY;
+
+    /**
+     * Counting algorithm used for every limit: fixed, sliding-counter, sliding-log or gcra.
+     */
+    private Algorithm algorithm = Algorithm.FIXED;
+
+    /**
+     * Largest limit tracked with an exact sliding log. Limits above this fall back to the sliding counter
+     * so a single key never holds more than this many timestamps.
+     */
+    private int slidingLogMaxEntries = 1000;
+
+    /**
+     * Upper bound on the number of keys tracked in memory. Zero or less, the default, disables the cap; idle keys
+     * are still swept once their window has elapsed.
+     */
+    private int maxKeys;
+
+    /**
+     * How new keys are handled once {@link #maxKeys} is reached. {@link OverflowPolicy#SHARED} and
+     * {@link OverflowPolicy#FAIL_CLOSED} reject callers that did nothing wrong once the cap is hit, so choose them
+     * explicitly.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.FAIL_OPEN;
+
+    /**
+     * Minimum interval between sweeps that drop counters whose window has fully elapsed.
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    /**
+     * Striped counting for keys shared by every caller (global and route-wide limits), in memory only.
+     */
+    private Striped striped = new Striped();
+
+    /**
+     * Adaptive limit on requests in flight per route.
+     */
+    private Concurrency concurrency = new Concurrency();
+
+    /**
+     * Checks the global and per-IP limits in a servlet filter ahead of security.
+     */
+    private EarlyFilter earlyFilter = new EarlyFilter();
+
+    /**
+     * Micrometer meters for limiter decisions, published when a {@code MeterRegistry} bean exists.
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * Carries in-memory counters across restarts, in memory only.
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * Short-circuits further requests from keys that are already over their limit.
+     */
+    private DenyCache denyCache = new DenyCache();
+
+    /**
+     * Interval over which rejections are aggregated into one log line per key.
+     */
+    private Duration rejectionLogInterval = Duration.ofMinutes(1);
+
     private LimitConfig global = new LimitConfig();
 
-    private LimitConfig perIp = new LimitConfig();
+    private IpLimitConfig perIp = new IpLimitConfig();
 
     private LimitConfig perUser = new LimitConfig();
 
@@ -35,6 +104,67 @@ public class ApiRateLimitProperties {
      */
     private List<Route> routes = new ArrayList<>();
 
+    /**
+     * Settings for {@code store=dynamo}.
+     */
+    private Dynamo dynamo = new Dynamo();
+
+    public enum Store {
+
+        /**
+         * Counters kept in the memory of each instance; limits apply per instance.
+         */
+        MEMORY,
+
+        /**
+         * Counters kept in a DynamoDB table; limits apply across all instances.
+         */
+        DYNAMO
+    }
+
+    public enum Algorithm {
+
+        /**
+         * Counter that resets all at once when the window elapses.
+         */
+        FIXED,
+
+        /**
+         * Weighted two-bucket estimate of the trailing window; same memory per key as {@link #FIXED}.
+         */
+        SLIDING_COUNTER,
+
+        /**
+         * Exact trailing window backed by a bounded log of admitted request timestamps.
+         */
+        SLIDING_LOG,
+
+        /**
+         * Generic Cell Rate Algorithm: lock-free, one theoretical arrival time per key, refills continuously
+         * at {@code limit / window} and honours {@link LimitConfig#getBurst()}.
+         */
+        GCRA
+    }
+
+    public enum OverflowPolicy {
+
+        /**
+         * Admit requests for untracked keys without counting them.
+         */
+        FAIL_OPEN,
+
+        /**
+         * Reject requests for untracked keys.
+         */
+        FAIL_CLOSED,
+
+        /**
+         * Count untracked keys against one shared bucket per limit (per user, per IP, each route's per-user limit,
+         * and so on). The bucket holds a single caller's limit, so every caller beyond the cap is throttled together.
+         */
+        SHARED
+    }
+
     @Getter
     @Setter
     public static class LimitConfig {
@@ -48,6 +178,38 @@ public class ApiRateLimitProperties {
          * Duration for this limit. When null, {@link ApiRateLimitProperties#defaultWindow} is used.
          */
         private Duration window;
+
+        /**
+         * Requests that may arrive back-to-back before GCRA starts spacing them out. Values of zero or less
+         * use {@link #limit}. Ignored by the window-based algorithms.
+         */
+        private long burst;
+    }
+
+    @Getter
+    @Setter
+    public static class IpLimitConfig extends LimitConfig {
+
+        /**
+         * Leading bits that identify an IPv4 client; addresses sharing them share one bucket, e.g. 24 for a /24.
+         */
+        private int ipv4Prefix = 32;
+
+        /**
+         * Leading bits that identify an IPv6 client. Defaults to 64, the block usually assigned to one subscriber.
+         */
+        private int ipv6Prefix = 64;
+
+        /**
+         * CIDR ranges exempt from the per-IP limit, e.g. internal load balancers. Other limits still apply.
+         */
+        private List<String> allow = new ArrayList<>();
+
+        /**
+         * CIDR ranges whose requests are always rejected. Where allow and deny ranges overlap, the most specific
+         * range wins.
+         */
+        private List<String> deny = new ArrayList<>();
     }
 
     @Getter
@@ -68,6 +230,228 @@ public class ApiRateLimitProperties {
          * Optional per-user override for this route.
          */
         private LimitConfig perUser = new LimitConfig();
+
+        /**
+         * Optional limit shared by all callers of this route.
+         */
+        private LimitConfig global = new LimitConfig();
+
+        /**
+         * Permits a request to this route takes from every limit it is counted against, including the per-user,
+         * per-IP and global ones. A request matching several routes costs the highest of them.
+         */
+        private long cost = 1;
+
+        /**
+         * Optional limit on failed requests to this route per user and per IP, e.g. wrong passwords on a login
+         * route. Failures are counted once the request has completed; when a caller reaches the limit, its further
+         * requests to the route are rejected until the window resets.
+         */
+        private OutcomeLimit failures = new OutcomeLimit();
     }
-}
 
+    @Getter
+    @Setter
+    public static class OutcomeLimit extends LimitConfig {
+
+        /**
+         * Response statuses counted as failures. When empty, every 4xx response is counted.
+         */
+        private List<Integer> statuses = new ArrayList<>();
+
+        /**
+         * Exceptions counted as failures, including subclasses, whatever the response status.
+         */
+        private List<Class<? extends Throwable>> exceptions = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Striped {
+
+        /**
+         * Count global and route-wide limits in striped cells instead of the configured {@link #algorithm}, so
+         * concurrent requests do not contend on a single counter.
+         */
+        private boolean enabled;
+
+        /**
+         * How often the striped cells are summed. Far from the limit, a window can over-admit by roughly the
+         * requests served in one interval; shorten it for higher precision at high throughput.
+         */
+        private Duration syncInterval = Duration.ofMillis(10);
+
+        /**
+         * Share of the limit below it from which every request sums the cells, trading throughput for an exact
+         * check close to the limit.
+         */
+        private double slack = 0.05;
+    }
+
+    @Getter
+    @Setter
+    public static class Concurrency {
+
+        /**
+         * Reject requests with 503 once a route has as many requests in flight as it currently permits. Each
+         * configured route has its own limit; requests matching no route share one.
+         */
+        private boolean enabled;
+
+        /**
+         * Requests permitted in flight per route before any have completed.
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 200;
+
+        /**
+         * Factor applied to the limit when a request fails with a server error or takes longer than
+         * {@link #timeout}. Otherwise the limit grows by one for each request completed while at least half of it was
+         * in use.
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * Latency above which a completed request counts as a sign of overload.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class EarlyFilter {
+
+        /**
+         * Check the global and per-IP limits in a servlet filter, so floods are rejected before authentication and
+         * handler mapping run. Per-user and route limits are still checked by the interceptor.
+         */
+        private boolean enabled;
+
+        /**
+         * Order of the filter registration. The default runs before Spring Security's filter chain (-100).
+         */
+        private int order = -110;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        /**
+         * Publish decision counters, decision latency, counter usage and, for the memory store, key count and
+         * evictions. Tags are limited to scope type and route name.
+         */
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+
+        /**
+         * Write live counters to {@link #file} periodically and on shutdown, and restore them on startup so a
+         * restart does not hand out a fresh quota.
+         */
+        private boolean enabled;
+
+        /**
+         * Snapshot file; relative paths resolve against the working directory.
+         */
+        private String file = "rate-limit-snapshot.bin";
+
+        /**
+         * Minimum interval between snapshots, written off the request path.
+         */
+        private Duration interval = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class DenyCache {
+
+        /**
+         * Remember denied keys until their reset time and reject them with a single lookup, without counting.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Upper bound on the number of denied keys remembered; beyond it denials are only enforced by the counters.
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * Requests a denied client may send before its block is extended by a penalty. Zero or less disables the
+         * penalty box. Never applied to the global and route-wide limits, which are shared by every caller.
+         */
+        private long penaltyThreshold;
+
+        /**
+         * Length of the first penalty; it doubles each time the client reaches the threshold again while blocked.
+         */
+        private Duration penaltyDuration = Duration.ofMinutes(1);
+
+        /**
+         * Longest single penalty.
+         */
+        private Duration maxPenaltyDuration = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Dynamo {
+
+        /**
+         * Logical table name; the migration table prefix is applied when configured.
+         */
+        private String tableName = "api_rate_limits";
+
+        /**
+         * Admit requests when DynamoDB cannot be reached instead of rejecting them.
+         */
+        private boolean failOpen = true;
+
+        /**
+         * Extra time counters are kept after their window closes before DynamoDB TTL removes them.
+         */
+        private Duration ttlGrace = Duration.ofMinutes(5);
+
+        /**
+         * Local quota leasing; avoids a DynamoDB call per request.
+         */
+        private Lease lease = new Lease();
+    }
+
+    @Getter
+    @Setter
+    public static class Lease {
+
+        /**
+         * Lease blocks of permits from DynamoDB and serve them from memory instead of counting every request remotely.
+         */
+        private boolean enabled;
+
+        /**
+         * How long a leased block may be served before unused permits are handed back and a new block is sized.
+         */
+        private Duration duration = Duration.ofSeconds(5);
+
+        /**
+         * Smallest block leased for a key.
+         */
+        private long minBlock = 1;
+
+        /**
+         * Largest block leased for a key; caps the permits one instance can hold back from the others.
+         */
+        private long maxBlock = 100;
+
+        /**
+         * Share of each limit an instance may admit on its own per window while DynamoDB is unavailable and
+         * {@link Dynamo#isFailOpen()} is true. Bounds over-admission to this share times the number of instances.
+         */
+        private double fallbackRatio = 0.1;
+    }
+}
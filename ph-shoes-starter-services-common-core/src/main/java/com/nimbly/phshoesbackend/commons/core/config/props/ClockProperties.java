@@ -0,0 +1,26 @@
+package com.nimbly.phshoesbackend.commons.core.config.props;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "phshoes.clock")
+public class ClockProperties {
+
+    /**
+     * Serve "now" from a value refreshed by a background thread instead of reading the system clock per call. Worth
+     * it only under heavy rate-limited traffic; the thread wakes every {@link #tickInterval} for the life of the
+     * application.
+     */
+    private boolean cached;
+
+    /**
+     * Refresh interval of the cached clock; readings lag the system clock by at most this much.
+     */
+    private Duration tickInterval = Duration.ofMillis(1);
+}
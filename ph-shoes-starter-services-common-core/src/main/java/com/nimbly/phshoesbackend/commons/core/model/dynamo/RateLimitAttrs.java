@@ -0,0 +1,12 @@
+package com.nimbly.phshoesbackend.commons.core.model.dynamo;
+
+public final class RateLimitAttrs {
+
+    private RateLimitAttrs() {
+    }
+
+    public static final String TABLE = "api_rate_limits";
+    public static final String PK = "pk";
+    public static final String HITS = "hits";
+    public static final String EXPIRES_AT = "expires_at";
+}
@@ -0,0 +1,254 @@
+package com.nimbly.phshoesbackend.commons.core.net;
+
+/**
+ * IPv4 or IPv6 address packed into two longs, IPv4 in its IPv4-mapped IPv6 form ({@code ::ffff:a.b.c.d}).
+ * Parsing only accepts literals and never resolves host names, unlike {@link java.net.InetAddress#getByName}.
+ */
+public final class IpAddress {
+
+    private static final long IPV4_MAPPED = 0xFFFF_0000_0000L;
+
+    private final long high;
+
+    private final long low;
+
+    private final boolean ipv4;
+
+    private IpAddress(long high, long low, boolean ipv4) {
+        this.high = high;
+        this.low = low;
+        this.ipv4 = ipv4;
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal as found in {@code X-Forwarded-For} or {@code getRemoteAddr()}: surrounding
+     * whitespace, brackets, a trailing port and an IPv6 zone id are ignored, and IPv4-mapped IPv6 addresses are
+     * treated as IPv4.
+     *
+     * @return the address, or {@code null} when {@code text} is not an IP literal
+     */
+    public static IpAddress parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        String value = text.strip();
+        if (value.startsWith("[")) {
+            int end = value.indexOf(']');
+            if (end < 0) {
+                return null;
+            }
+            value = value.substring(1, end);
+        } else {
+            int colon = value.indexOf(':');
+            if (colon > 0 && colon == value.lastIndexOf(':') && value.indexOf('.') > 0) {
+                value = value.substring(0, colon);
+            }
+        }
+        int zone = value.indexOf('%');
+        if (zone >= 0) {
+            value = value.substring(0, zone);
+        }
+        if (value.indexOf(':') < 0) {
+            long ipv4 = parseIpv4(value, 0, value.length());
+            return ipv4 < 0 ? null : new IpAddress(0, IPV4_MAPPED | ipv4, true);
+        }
+        return parseIpv6(value);
+    }
+
+    public boolean isIpv4() {
+        return ipv4;
+    }
+
+    /**
+     * Number of bits in the address as written: 32 for IPv4, 128 for IPv6.
+     */
+    public int bitLength() {
+        return ipv4 ? 32 : 128;
+    }
+
+    /**
+     * Bit {@code index} of the address as written, counted from the most significant bit.
+     */
+    public boolean bit(int index) {
+        int position = ipv4 ? 96 + index : index;
+        return position < 64
+                ? (high >>> (63 - position) & 1) != 0
+                : (low >>> (127 - position) & 1) != 0;
+    }
+
+    /**
+     * Keeps the first {@code prefixLength} bits of the address as written and clears the rest.
+     */
+    public IpAddress mask(int prefixLength) {
+        int prefix = Math.max(0, Math.min(prefixLength, bitLength()));
+        if (prefix == bitLength()) {
+            return this;
+        }
+        int bits = ipv4 ? 96 + prefix : prefix;
+        long maskedHigh = bits >= 64 ? high : bits == 0 ? 0 : high & (-1L << (64 - bits));
+        long maskedLow = bits <= 64 ? 0 : low & (-1L << (128 - bits));
+        return new IpAddress(maskedHigh, maskedLow, ipv4);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof IpAddress address && address.high == high && address.low == low && address.ipv4 == ipv4;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
+    }
+
+    /**
+     * Canonical text form: dotted quad for IPv4, RFC 5952 for IPv6.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(ipv4 ? 15 : 39);
+        if (ipv4) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                text.append((low >>> shift) & 0xFF);
+                if (shift > 0) {
+                    text.append('.');
+                }
+            }
+            return text.toString();
+        }
+        int[] groups = new int[8];
+        for (int i = 0; i < 8; i++) {
+            long half = i < 4 ? high : low;
+            groups[i] = (int) (half >>> (48 - 16 * (i % 4))) & 0xFFFF;
+        }
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            int j = i;
+            while (j < 8 && groups[j] == 0) {
+                j++;
+            }
+            if (j - i > bestLength) {
+                bestStart = i;
+                bestLength = j - i;
+            }
+            i = j == i ? i + 1 : j;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                text.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (text.length() > 0 && text.charAt(text.length() - 1) != ':') {
+                text.append(':');
+            }
+            text.append(Integer.toHexString(groups[i]));
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return the address as an unsigned 32-bit value, or -1 when {@code text[from, to)} is not a dotted quad
+     */
+    private static long parseIpv4(String text, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        while (i < to && octets < 4) {
+            int value = 0;
+            int digits = 0;
+            while (i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9' && digits < 3) {
+                value = value * 10 + (text.charAt(i++) - '0');
+                digits++;
+            }
+            if (digits == 0 || value > 255) {
+                return -1;
+            }
+            address = (address << 8) | value;
+            octets++;
+            if (i < to) {
+                if (text.charAt(i) != '.' || octets == 4) {
+                    return -1;
+                }
+                i++;
+                if (i == to) {
+                    return -1;
+                }
+            }
+        }
+        return octets == 4 && i == to ? address : -1;
+    }
+
+    private static IpAddress parseIpv6(String text) {
+        int[] groups = new int[8];
+        int count = 0;
+        int compressAt = -1;
+        int length = text.length();
+        int i = 0;
+        if (text.startsWith("::")) {
+            compressAt = 0;
+            i = 2;
+        } else if (text.startsWith(":")) {
+            return null;
+        }
+        while (i < length) {
+            if (count == 8) {
+                return null;
+            }
+            int start = i;
+            int value = 0;
+            while (i < length && i - start < 4 && Character.digit(text.charAt(i), 16) >= 0) {
+                value = (value << 4) | Character.digit(text.charAt(i), 16);
+                i++;
+            }
+            if (i < length && text.charAt(i) == '.') {
+                long ipv4 = count <= 6 ? parseIpv4(text, start, length) : -1;
+                if (ipv4 < 0) {
+                    return null;
+                }
+                groups[count++] = (int) (ipv4 >>> 16);
+                groups[count++] = (int) (ipv4 & 0xFFFF);
+                i = length;
+                break;
+            }
+            if (i == start) {
+                return null;
+            }
+            groups[count++] = value;
+            if (i == length) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return null;
+            }
+            i++;
+            if (i < length && text.charAt(i) == ':') {
+                if (compressAt >= 0) {
+                    return null;
+                }
+                compressAt = count;
+                i++;
+            } else if (i == length) {
+                return null;
+            }
+        }
+        if (compressAt < 0 ? count != 8 : count > 7) {
+            return null;
+        }
+        if (compressAt >= 0) {
+            int tail = count - compressAt;
+            System.arraycopy(groups, compressAt, groups, 8 - tail, tail);
+            for (int g = compressAt; g < 8 - tail; g++) {
+                groups[g] = 0;
+            }
+        }
+        long high = 0;
+        long low = 0;
+        for (int g = 0; g < 4; g++) {
+            high = (high << 16) | groups[g];
+            low = (low << 16) | groups[g + 4];
+        }
+        boolean mapped = high == 0 && (low & 0xFFFF_FFFF_0000_0000L) == IPV4_MAPPED;
+        return new IpAddress(high, low, mapped);
+    }
+}
@@ -0,0 +1,110 @@
+package com.nimbly.phshoesbackend.commons.core.net;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * CIDR ranges compiled into a binary trie, one per address family, for longest-prefix lookups that walk at most
+ * one node per bit of the address and never allocate. Nodes are packed into parallel arrays.
+ */
+public final class IpPrefixTrie<T> {
+
+    private static final int IPV4_ROOT = 0;
+
+    private static final int IPV6_ROOT = 1;
+
+    private int[] zero = new int[16];
+
+    private int[] one = new int[16];
+
+    private Object[] values = new Object[16];
+
+    private int size = 2;
+
+    private IpPrefixTrie() {
+    }
+
+    /**
+     * Compiles the given ranges, e.g. {@code 10.0.0.0/8} or {@code 2001:db8::/32}; a bare address is a single-host
+     * range. Blank entries are ignored; when a range is listed twice the last value wins.
+     *
+     * @throws IllegalArgumentException when a range is not valid CIDR notation
+     */
+    public static <T> IpPrefixTrie<T> of(Map<String, T> ranges) {
+        IpPrefixTrie<T> trie = new IpPrefixTrie<>();
+        if (ranges != null) {
+            ranges.forEach((range, value) -> {
+                if (range != null && !range.isBlank()) {
+                    trie.insert(range.strip(), value);
+                }
+            });
+        }
+        return trie;
+    }
+
+    public boolean isEmpty() {
+        return size == 2 && values[IPV4_ROOT] == null && values[IPV6_ROOT] == null;
+    }
+
+    /**
+     * Value of the most specific range containing {@code address}, or {@code null} when none does.
+     */
+    @SuppressWarnings("unchecked")
+    public T longestMatch(IpAddress address) {
+        if (address == null) {
+            return null;
+        }
+        int node = address.isIpv4() ? IPV4_ROOT : IPV6_ROOT;
+        Object match = values[node];
+        int bits = address.bitLength();
+        for (int i = 0; i < bits; i++) {
+            node = address.bit(i) ? one[node] : zero[node];
+            if (node == 0) {
+                break;
+            }
+            if (values[node] != null) {
+                match = values[node];
+            }
+        }
+        return (T) match;
+    }
+
+    private void insert(String range, T value) {
+        int slash = range.indexOf('/');
+        IpAddress address = IpAddress.parse(slash < 0 ? range : range.substring(0, slash));
+        if (address == null) {
+            throw new IllegalArgumentException("Invalid CIDR range: " + range);
+        }
+        int prefixLength = address.bitLength();
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(range.substring(slash + 1));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid CIDR range: " + range, ex);
+            }
+            if (prefixLength < 0 || prefixLength > address.bitLength()) {
+                throw new IllegalArgumentException("Invalid CIDR range: " + range);
+            }
+        }
+        int node = address.isIpv4() ? IPV4_ROOT : IPV6_ROOT;
+        for (int i = 0; i < prefixLength; i++) {
+            int[] children = address.bit(i) ? one : zero;
+            if (children[node] == 0) {
+                int child = newNode();
+                children = address.bit(i) ? one : zero;
+                children[node] = child;
+            }
+            node = children[node];
+        }
+        values[node] = value;
+    }
+
+    private int newNode() {
+        if (size == zero.length) {
+            zero = Arrays.copyOf(zero, size * 2);
+            one = Arrays.copyOf(one, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        return size++;
+    }
+}
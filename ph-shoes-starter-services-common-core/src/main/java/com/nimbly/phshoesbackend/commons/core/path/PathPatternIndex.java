@@ -0,0 +1,383 @@
+package com.nimbly.phshoesbackend.commons.core.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Ant-style path patterns compiled once into a segment trie, so a request path is matched against every pattern
+ * in a single walk instead of one {@link AntPathMatcher#match} call per pattern.
+ * <p>
+ * Patterns made of literal segments, {@code *}, {@code **} and {@code {var}} live in the trie; anything else
+ * (partial wildcards such as {@code *.json}, {@code ?}, regex variables, relative patterns) is kept aside and
+ * matched with {@link AntPathMatcher}, so results are the same as matching each pattern with Ant semantics.
+ * Matching does not allocate unless at least one pattern matches; paths that match nothing are turned away by the
+ * same early-exit walk as {@link #matchesAny(String)}.
+ */
+public final class PathPatternIndex<T> {
+
+    private static final PathPatternIndex<?> EMPTY = new PathPatternIndex<>(List.of(), List.of());
+
+    private final Object[] values;
+
+    private final Node root = new Node(false);
+
+    private final int[] fallbackIndexes;
+
+    private final String[] fallbackPatterns;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private PathPatternIndex(List<String> patterns, List<T> values) {
+        this.values = values.toArray();
+        List<Integer> fallback = new ArrayList<>();
+        for (int i = 0; i < patterns.size(); i++) {
+            if (!insert(patterns.get(i), i)) {
+                fallback.add(i);
+            }
+        }
+        this.fallbackIndexes = fallback.stream().mapToInt(Integer::intValue).toArray();
+        this.fallbackPatterns = fallback.stream().map(patterns::get).toArray(String[]::new);
+    }
+
+    /**
+     * Compiles the given patterns; blank entries are ignored.
+     */
+    public static PathPatternIndex<String> of(Collection<String> patterns) {
+        return of(patterns, Function.identity());
+    }
+
+    /**
+     * Compiles one pattern per value, preserving declaration order in {@link #match(String)} results. Values
+     * whose pattern is blank are ignored.
+     */
+    public static <T> PathPatternIndex<T> of(Collection<T> values, Function<? super T, String> patternOf) {
+        if (values == null || values.isEmpty()) {
+            return empty();
+        }
+        List<String> patterns = new ArrayList<>(values.size());
+        List<T> kept = new ArrayList<>(values.size());
+        for (T value : values) {
+            String pattern = value == null ? null : patternOf.apply(value);
+            if (StringUtils.hasText(pattern)) {
+                patterns.add(pattern);
+                kept.add(value);
+            }
+        }
+        return new PathPatternIndex<>(patterns, kept);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PathPatternIndex<T> empty() {
+        return (PathPatternIndex<T>) EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Returns whether any pattern matches {@code path}, stopping at the first hit.
+     */
+    public boolean matchesAny(String path) {
+        if (path == null || isEmpty()) {
+            return false;
+        }
+        if (walk(root, path, path.startsWith("/") ? 0 : -1, null)) {
+            return true;
+        }
+        for (String pattern : fallbackPatterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the values of every matching pattern in declaration order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> match(String path) {
+        // The early-exit walk is cheap next to allocating the hit set for a path most patterns never match.
+        if (!matchesAny(path)) {
+            return List.of();
+        }
+        long[] hits = new long[(values.length + 63) >>> 6];
+        walk(root, path, path.startsWith("/") ? 0 : -1, hits);
+        for (int i = 0; i < fallbackPatterns.length; i++) {
+            if (pathMatcher.match(fallbackPatterns[i], path)) {
+                mark(hits, fallbackIndexes[i]);
+            }
+        }
+        List<T> matched = null;
+        for (int word = 0; word < hits.length; word++) {
+            long bits = hits[word];
+            while (bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (matched == null) {
+                    matched = new ArrayList<>(2);
+                }
+                matched.add((T) values[index]);
+            }
+        }
+        return matched == null ? List.of() : matched;
+    }
+
+    private boolean insert(String pattern, int index) {
+        if (!pattern.startsWith("/")) {
+            return false;
+        }
+        Node node = root;
+        String lastSegment = null;
+        boolean sawDoubleWildcard = false;
+        int pos = 0;
+        int length = pattern.length();
+        while (true) {
+            while (pos < length && pattern.charAt(pos) == '/') {
+                pos++;
+            }
+            if (pos >= length) {
+                break;
+            }
+            int end = pattern.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+            String segment = pattern.substring(pos, end);
+            if (segment.equals("**")) {
+                node = node.doubleWildcard != null ? node.doubleWildcard : (node.doubleWildcard = new Node(true));
+                sawDoubleWildcard = true;
+            } else if (segment.equals("*") || isPlainVariable(segment)) {
+                node = node.wildcard != null ? node.wildcard : (node.wildcard = new Node(false));
+            } else if (isLiteral(segment)) {
+                node = node.literal(segment);
+            } else {
+                return false;
+            }
+            lastSegment = segment;
+            pos = end;
+        }
+        if (node == root) {
+            return false;
+        }
+        node.addTerminal(index, pattern.endsWith("/"), "*".equals(lastSegment) && !sawDoubleWildcard);
+        return true;
+    }
+
+    /**
+     * Walks the trie from {@code node} with the path remainder starting at {@code pos}. When {@code hits} is null
+     * the walk stops at the first match; otherwise every match is recorded. A negative position means the path
+     * is relative and can only be matched by fallback patterns.
+     */
+    private boolean walk(Node node, String path, int pos, long[] hits) {
+        if (pos < 0) {
+            return false;
+        }
+        int length = path.length();
+        int start = pos;
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= length) {
+            boolean trailingSlash = path.charAt(length - 1) == '/';
+            boolean found = node.collect(trailingSlash, hits);
+            // Trailing "**" segments may match nothing.
+            for (Node next = node.doubleWildcard; next != null && (hits != null || !found); next = next.doubleWildcard) {
+                found |= next.collect(trailingSlash, hits);
+            }
+            // Ant lets a trailing "*" match the empty segment after a trailing slash ("/a/*" matches "/a/").
+            if (trailingSlash && node.wildcard != null && (hits != null || !found)) {
+                found |= node.wildcard.collectStar(hits);
+            }
+            return found;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+        boolean found = false;
+        Node literal = node.findLiteral(path, start, end);
+        if (literal != null) {
+            found = walk(literal, path, end, hits);
+            if (found && hits == null) {
+                return true;
+            }
+        }
+        if (node.wildcard != null) {
+            found |= walk(node.wildcard, path, end, hits);
+            if (found && hits == null) {
+                return true;
+            }
+        }
+        if (node.doubleWildcard != null) {
+            // Let "**" swallow zero or more segments, resuming the walk after each one.
+            Node next = node.doubleWildcard;
+            int resume = start;
+            while (true) {
+                found |= walk(next, path, resume, hits);
+                if (found && hits == null) {
+                    return true;
+                }
+                if (resume >= length) {
+                    break;
+                }
+                int slash = path.indexOf('/', resume);
+                if (slash < 0) {
+                    found |= next.collect(false, hits);
+                    break;
+                }
+                resume = slash;
+                while (resume < length && path.charAt(resume) == '/') {
+                    resume++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean isPlainVariable(String segment) {
+        if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+            return false;
+        }
+        for (int i = 1; i < segment.length() - 1; i++) {
+            char c = segment.charAt(i);
+            if (c == ':' || c == '{' || c == '}') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void mark(long[] hits, int index) {
+        hits[index >>> 6] |= 1L << index;
+    }
+
+    private static int hash(String value, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h;
+    }
+
+    private static final class Node {
+
+        private String[] literalKeys = new String[0];
+
+        private int[] literalHashes = new int[0];
+
+        private Node[] literalNodes = new Node[0];
+
+        private Node wildcard;
+
+        private Node doubleWildcard;
+
+        /**
+         * Pattern indexes ending at this node, whether each pattern ends with '/', and whether it is a
+         * "**"-free pattern whose last segment is a bare "*".
+         */
+        private int[] terminals = new int[0];
+
+        private boolean[] terminalSlash = new boolean[0];
+
+        private boolean[] terminalStar = new boolean[0];
+
+        private final boolean doubleWildcardNode;
+
+        Node(boolean doubleWildcardNode) {
+            this.doubleWildcardNode = doubleWildcardNode;
+        }
+
+        Node literal(String segment) {
+            for (int i = 0; i < literalKeys.length; i++) {
+                if (literalKeys[i].equals(segment)) {
+                    return literalNodes[i];
+                }
+            }
+            Node child = new Node(false);
+            int size = literalKeys.length;
+            literalKeys = Arrays.copyOf(literalKeys, size + 1);
+            literalHashes = Arrays.copyOf(literalHashes, size + 1);
+            literalNodes = Arrays.copyOf(literalNodes, size + 1);
+            literalKeys[size] = segment;
+            literalHashes[size] = segment.hashCode();
+            literalNodes[size] = child;
+            return child;
+        }
+
+        Node findLiteral(String path, int start, int end) {
+            if (literalKeys.length == 0) {
+                return null;
+            }
+            int h = hash(path, start, end);
+            int length = end - start;
+            for (int i = 0; i < literalHashes.length; i++) {
+                if (literalHashes[i] == h && literalKeys[i].length() == length
+                        && path.regionMatches(start, literalKeys[i], 0, length)) {
+                    return literalNodes[i];
+                }
+            }
+            return null;
+        }
+
+        void addTerminal(int index, boolean endsWithSlash, boolean endsWithStar) {
+            int size = terminals.length;
+            terminals = Arrays.copyOf(terminals, size + 1);
+            terminalSlash = Arrays.copyOf(terminalSlash, size + 1);
+            terminalStar = Arrays.copyOf(terminalStar, size + 1);
+            terminals[size] = index;
+            terminalSlash[size] = endsWithSlash;
+            terminalStar[size] = endsWithStar;
+        }
+
+        /**
+         * Records patterns ending here. Unless the pattern ended with "**", Ant requires its trailing slash to
+         * agree with the path's.
+         */
+        boolean collect(boolean pathTrailingSlash, long[] hits) {
+            boolean found = false;
+            for (int i = 0; i < terminals.length; i++) {
+                if (doubleWildcardNode || terminalSlash[i] == pathTrailingSlash) {
+                    if (hits == null) {
+                        return true;
+                    }
+                    mark(hits, terminals[i]);
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        boolean collectStar(long[] hits) {
+            boolean found = false;
+            for (int i = 0; i < terminals.length; i++) {
+                if (terminalStar[i]) {
+                    if (hits == null) {
+                        return true;
+                    }
+                    mark(hits, terminals[i]);
+                    found = true;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.springframework.util.StringUtils;
+
+import com.nimbly.phshoesbackend.commons.core.api.rate.RateLimitExceededException;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.LimitConfig;
+import com.nimbly.phshoesbackend.commons.core.net.IpAddress;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPolicy.FailureLimit;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPolicy.Limit;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPolicy.RoutePolicy;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+/**
+ * Resolves the scopes that apply to a request (global, per IP, per user and matching routes) and reserves the
+ * request's cost in each of them, all or nothing, against a counter backend supplied by the subclass.
+ * <p>
+ * Requests are checked against a {@link RateLimitPolicy} compiled from the properties, never against the properties
+ * bean itself; {@link #reload} compiles and swaps in a new one.
+ */
+public abstract class AbstractApiRateLimiter implements ApiRateLimiter {
+
+    protected final EpochClock clock;
+
+    private final RateLimitDenyCache denyCache;
+
+    private volatile RateLimitPolicy policy;
+
+    private volatile RateLimitMetrics metrics = RateLimitMetrics.NOOP;
+
+    protected AbstractApiRateLimiter(ApiRateLimitProperties properties) {
+        this(properties, EpochClock.system());
+    }
+
+    protected AbstractApiRateLimiter(ApiRateLimitProperties properties, EpochClock clock) {
+        Objects.requireNonNull(properties, "properties");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.denyCache = newDenyCache(properties.getDenyCache());
+        this.policy = RateLimitPolicy.compile(properties);
+    }
+
+    /**
+     * Applies new limits, windows, routes, costs, failure limits and IP ranges to requests from now on. Counters
+     * already tracked keep their state and are checked against the new limits, unless the backend has to rebuild
+     * them (see {@link InMemoryApiRateLimiter#reload}). The store, algorithm, striping, key cap, deny cache,
+     * snapshot and lease settings stay as they were at construction, and an {@link AimdConcurrencyLimiter} is not
+     * reloaded at all.
+     */
+    public void reload(ApiRateLimitProperties properties) {
+        this.policy = RateLimitPolicy.compile(Objects.requireNonNull(properties, "properties"));
+    }
+
+    RateLimitPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Lifts deny cache blocks of the matching keys, e.g. after their counters were dropped.
+     */
+    void forgetDenials(Predicate<String> keys) {
+        if (denyCache != null) {
+            denyCache.forget(keys);
+        }
+    }
+
+    /**
+     * Reports decisions, their latency and counter usage to {@code metrics}; {@link RateLimitMetrics#NOOP} by
+     * default.
+     */
+    public void setMetrics(RateLimitMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    protected RateLimitMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void verifyRequest(RateLimitRequestContext context) {
+        RateLimitDecision decision = tryAcquire(context);
+        if (!decision.isAllowed()) {
+            throw new RateLimitExceededException(decision.getKey(),
+                    "Rate limit exceeded for " + decision.getKey() + " on " + decision.getRoute());
+        }
+    }
+
+    /**
+     * Reserves the request's cost in every applicable scope, most selective first: the user on matching routes, the
+     * user, the IP, matching routes as a whole and finally the global limit. If any scope denies, the permits already taken are refunded so a rejected
+     * request consumes no quota. Keys denied earlier are rejected from the deny cache until their reset time.
+     * Addresses in a denied range are rejected outright and addresses in an allowed range skip the per-IP limit.
+     * <p>
+     * The cost is {@link RateLimitRequestContext#getCost()} when set, otherwise the highest cost of the matching
+     * routes, and one permit when no route matches.
+     * <p>
+     * Callers that reached the failure limit of a matching route are rejected before any permit is taken.
+     * <p>
+     * {@link RateLimitRequestContext#getPhase()} restricts the check to the global and per-IP limits, or to the
+     * remaining ones for a request that already passed them.
+     * <p>
+     * Admitted requests are described by the scope with the fewest permits left when the backend reports usage
+     * (see {@link #used}), and otherwise share one decision instance. The check is not allocation-free: it parses
+     * the client address and builds the per-user and per-IP keys and the list of scopes for every request.
+     */
+    @Override
+    public RateLimitDecision tryAcquire(RateLimitRequestContext context) {
+        if (context == null) {
+            return RateLimitDecision.allowed();
+        }
+        RateLimitPolicy current = policy;
+        List<RoutePolicy> matchedRoutes = current.routes.isEmpty() || !StringUtils.hasText(context.getPath())
+                ? List.of()
+                : current.routes.match(context.getPath());
+        RateLimitMetrics recorder = metrics;
+        if (recorder == RateLimitMetrics.NOOP) {
+            return tryAcquire(current, context, matchedRoutes);
+        }
+        long start = System.nanoTime();
+        RateLimitDecision decision = tryAcquire(current, context, matchedRoutes);
+        long latencyNanos = System.nanoTime() - start;
+        String route = matchedRoutes.isEmpty() ? null : matchedRoutes.get(0).name();
+        if (!decision.isAllowed() && decision.getScope() != null && decision.getScope().startsWith("route:")) {
+            route = decision.getRoute();
+        }
+        recorder.recordDecision(decision, route, latencyNanos);
+        return decision;
+    }
+
+    private RateLimitDecision tryAcquire(RateLimitPolicy policy,
+                                         RateLimitRequestContext context,
+                                         List<RoutePolicy> matchedRoutes) {
+        String ipKey = null;
+        if (StringUtils.hasText(context.getIpAddress())) {
+            IpAddress address = IpAddress.parse(context.getIpAddress());
+            IpLimitPolicy.Access access = policy.ipPolicy.accessOf(address);
+            if (access == IpLimitPolicy.Access.DENIED) {
+                return RateLimitDecision.denied("ip", policy.ipPolicy.keyOf(address), context.getPath(), 0, 0);
+            }
+            if (access == IpLimitPolicy.Access.LIMITED) {
+                ipKey = policy.ipPolicy.keyOf(address);
+            }
+        }
+        RateLimitPhase phase = context.getPhase() != null ? context.getPhase() : RateLimitPhase.ALL;
+        long now = clock.currentTimeMillis();
+        long cost = costOf(context, matchedRoutes);
+        List<Reservation> reservations = reservationsFor(policy, context, matchedRoutes, ipKey);
+        if (denyCache != null) {
+            for (Reservation reservation : reservations) {
+                if (!isChecked(phase, reservation)) {
+                    continue;
+                }
+                RateLimitDecision cached = denyCache.check(reservation.key(), now);
+                if (cached != null) {
+                    releaseEarly(phase, reservations, cost, now);
+                    return cached;
+                }
+            }
+        }
+        boolean outcomeTracked = false;
+        if (phase != RateLimitPhase.EARLY) {
+            for (RoutePolicy route : matchedRoutes) {
+                if (route.failures() != null) {
+                    outcomeTracked = true;
+                    RateLimitDecision denied = checkFailures(route, context.getUserId(), ipKey, now);
+                    if (denied != null) {
+                        releaseEarly(phase, reservations, cost, now);
+                        return denied;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < reservations.size(); i++) {
+            Reservation reservation = reservations.get(i);
+            if (!isChecked(phase, reservation)) {
+                continue;
+            }
+            Limit limit = reservation.limit();
+            if (!tryAcquire(reservation.scope(), reservation.key(), limit.config(), cost, limit.windowMillis(), now)) {
+                for (int j = i - 1; j >= 0; j--) {
+                    Reservation acquired = reservations.get(j);
+                    if (isChecked(phase, acquired)) {
+                        release(acquired.scope(), acquired.key(), acquired.limit().config(), cost,
+                                acquired.limit().windowMillis(), now);
+                    }
+                }
+                releaseEarly(phase, reservations, cost, now);
+                long used = used(reservation.scope(), reservation.key(), limit.config(), limit.windowMillis(), now);
+                RateLimitDecision decision = RateLimitDecision.denied(reservation.scope(), reservation.key(),
+                        reservation.routeName(), limit.limit(), used >= 0 ? Math.max(0, limit.limit() - used) : 0,
+                        resetAt(reservation.scope(), reservation.key(), limit.config(), limit.windowMillis(), now));
+                // A costlier request may be denied while cheaper ones still fit, so only single permits are cached.
+                if (denyCache != null && cost == 1) {
+                    denyCache.block(decision, !isSharedByAllCallers(reservation.scope(), reservation.key()), now);
+                }
+                return decision;
+            }
+        }
+        return admitted(phase, reservations, outcomeTracked, now);
+    }
+
+    /**
+     * Describes the checked scope with the fewest permits left, or returns a shared decision when the backend does
+     * not report usage.
+     */
+    private RateLimitDecision admitted(RateLimitPhase phase, List<Reservation> reservations, boolean outcomeTracked,
+                                       long now) {
+        Reservation tightest = null;
+        long fewest = Long.MAX_VALUE;
+        for (Reservation reservation : reservations) {
+            if (!isChecked(phase, reservation)) {
+                continue;
+            }
+            Limit limit = reservation.limit();
+            long used = used(reservation.scope(), reservation.key(), limit.config(), limit.windowMillis(), now);
+            if (used >= 0 && limit.limit() - used < fewest) {
+                tightest = reservation;
+                fewest = Math.max(0, limit.limit() - used);
+            }
+        }
+        if (tightest == null) {
+            return outcomeTracked ? RateLimitDecision.allowedTrackingOutcome() : RateLimitDecision.allowed();
+        }
+        return RateLimitDecision.allowed(tightest.scope(), tightest.key(), tightest.routeName(),
+                tightest.limit().limit(), fewest, outcomeTracked);
+    }
+
+    /**
+     * Counts a failed request against the failure limit of each matching route, per user and per IP.
+     */
+    @Override
+    public void recordOutcome(RateLimitRequestContext context, int status, Throwable error) {
+        RateLimitPolicy current = policy;
+        if (context == null || current.outcomeRoutes.isEmpty() || !StringUtils.hasText(context.getPath())) {
+            return;
+        }
+        long now = clock.currentTimeMillis();
+        String ipKey = null;
+        if (StringUtils.hasText(context.getIpAddress())) {
+            IpAddress address = IpAddress.parse(context.getIpAddress());
+            if (current.ipPolicy.accessOf(address) == IpLimitPolicy.Access.LIMITED) {
+                ipKey = current.ipPolicy.keyOf(address);
+            }
+        }
+        for (RoutePolicy route : current.outcomeRoutes.match(context.getPath())) {
+            FailureLimit failures = route.failures();
+            if (!failures.isFailure(status, error)) {
+                continue;
+            }
+            Limit limit = failures.limit();
+            if (StringUtils.hasText(context.getUserId())) {
+                tryAcquire(route.failureScope(), route.failureUserPrefix() + context.getUserId(), limit.config(), 1,
+                        limit.windowMillis(), now);
+            }
+            if (ipKey != null) {
+                tryAcquire(route.failureScope(), route.failureIpPrefix() + ipKey, limit.config(), 1,
+                        limit.windowMillis(), now);
+            }
+        }
+    }
+
+    /**
+     * Records {@code permits} against {@code key} and returns whether they are within {@code limitConfig}. Either
+     * all permits are taken or none are.
+     *
+     * @param scope key family used for shared buckets, e.g. "ip" or "route:signup"
+     */
+    protected abstract boolean tryAcquire(String scope, String key, LimitConfig limitConfig, long permits,
+                                          long windowMillis, long nowMillis);
+
+    /**
+     * Gives back permits taken by {@link #tryAcquire(String, String, LimitConfig, long, long, long)} at
+     * {@code nowMillis} because a later scope denied the request.
+     */
+    protected abstract void release(String scope, String key, LimitConfig limitConfig, long permits,
+                                    long windowMillis, long nowMillis);
+
+    /**
+     * Permits counted against {@code key} at {@code nowMillis}, used to tell clients how many are left; -1 when the
+     * backend cannot tell without extra I/O.
+     */
+    protected long used(String scope, String key, LimitConfig limitConfig, long windowMillis, long nowMillis) {
+        return -1;
+    }
+
+    /**
+     * Whether {@code key} is the single key of its scope, used by every caller (global and route-wide limits),
+     * as opposed to one key per client.
+     */
+    protected static boolean isSharedByAllCallers(String scope, String key) {
+        return scope.equals(key);
+    }
+
+    /**
+     * Epoch millis from which {@code key} may admit again after a denial at {@code nowMillis}. Only called on the
+     * rejection path.
+     */
+    protected abstract long resetAt(String scope, String key, LimitConfig limitConfig, long windowMillis, long nowMillis);
+
+    private static RateLimitDenyCache newDenyCache(ApiRateLimitProperties.DenyCache config) {
+        if (config == null || !config.isEnabled()) {
+            return null;
+        }
+        Duration penalty = config.getPenaltyDuration() != null ? config.getPenaltyDuration() : Duration.ofMinutes(1);
+        Duration maxPenalty = config.getMaxPenaltyDuration() != null ? config.getMaxPenaltyDuration() : penalty;
+        return new RateLimitDenyCache(config.getMaxEntries(), config.getPenaltyThreshold(),
+                penalty.toMillis(), maxPenalty.toMillis());
+    }
+
+    private static boolean isChecked(RateLimitPhase phase, Reservation reservation) {
+        return switch (phase) {
+            case ALL -> true;
+            case EARLY -> reservation.early();
+            case LATE -> !reservation.early();
+        };
+    }
+
+    /**
+     * Gives back the permits a {@link RateLimitPhase#LATE} request took in the early phase when it is rejected, so a
+     * blocked caller does not keep using up the global and per-IP quota.
+     */
+    private void releaseEarly(RateLimitPhase phase, List<Reservation> reservations, long cost, long now) {
+        if (phase != RateLimitPhase.LATE) {
+            return;
+        }
+        for (Reservation reservation : reservations) {
+            if (reservation.early()) {
+                release(reservation.scope(), reservation.key(), reservation.limit().config(), cost,
+                        reservation.limit().windowMillis(), now);
+            }
+        }
+    }
+
+    /**
+     * Denies the request when the user or the IP has used up the route's failure limit. The counters are probed
+     * with a permit that is given back straight away, so admitted requests are only counted once they fail.
+     */
+    private RateLimitDecision checkFailures(RoutePolicy route, String userId, String ipKey, long now) {
+        Limit limit = route.failures().limit();
+        if (StringUtils.hasText(userId)) {
+            RateLimitDecision denied = probe(route.failureScope(), route.failureUserPrefix() + userId, limit,
+                    route.name(), now);
+            if (denied != null) {
+                return denied;
+            }
+        }
+        return ipKey != null
+                ? probe(route.failureScope(), route.failureIpPrefix() + ipKey, limit, route.name(), now)
+                : null;
+    }
+
+    private RateLimitDecision probe(String scope, String key, Limit limit, String routeName, long now) {
+        if (tryAcquire(scope, key, limit.config(), 1, limit.windowMillis(), now)) {
+            release(scope, key, limit.config(), 1, limit.windowMillis(), now);
+            return null;
+        }
+        return RateLimitDecision.denied(scope, key, routeName, limit.limit(),
+                resetAt(scope, key, limit.config(), limit.windowMillis(), now));
+    }
+
+    private static long costOf(RateLimitRequestContext context, List<RoutePolicy> matchedRoutes) {
+        if (context.getCost() > 0) {
+            return context.getCost();
+        }
+        long cost = 1;
+        for (RoutePolicy route : matchedRoutes) {
+            cost = Math.max(cost, route.cost());
+        }
+        return cost;
+    }
+
+    /**
+     * @param ipKey counter key of the client's subnet, or {@code null} when the per-IP limit does not apply
+     */
+    private static List<Reservation> reservationsFor(RateLimitPolicy policy,
+                                                     RateLimitRequestContext context,
+                                                     List<RoutePolicy> matchedRoutes,
+                                                     String ipKey) {
+        List<Reservation> reservations = new ArrayList<>(4);
+
+        if (StringUtils.hasText(context.getUserId())) {
+            for (RoutePolicy route : matchedRoutes) {
+                addReservation(reservations, route.scope(), route.userKeyPrefix() + context.getUserId(),
+                        route.perUser(), route.name(), false);
+            }
+            addReservation(reservations, "user", RateLimitPolicy.USER_KEY_PREFIX + context.getUserId(),
+                    policy.perUser, context.getPath(), false);
+        }
+
+        if (ipKey != null) {
+            addReservation(reservations, "ip", ipKey, policy.perIp, context.getPath(), true);
+        }
+
+        for (RoutePolicy route : matchedRoutes) {
+            addReservation(reservations, route.scope(), route.scope(), route.global(), route.name(), false);
+        }
+
+        addReservation(reservations, "global", "global", policy.global, context.getPath(), true);
+        return reservations;
+    }
+
+    private static void addReservation(List<Reservation> reservations,
+                                       String scope,
+                                       String key,
+                                       Limit limit,
+                                       String routeName,
+                                       boolean early) {
+        if (limit != null) {
+            reservations.add(new Reservation(scope, key, limit, routeName, early));
+        }
+    }
+
+    /**
+     * One scope a request must fit into.
+     *
+     * @param routeName route name for route scopes, otherwise the request path
+     * @param early     whether the scope is checked in {@link RateLimitPhase#EARLY}
+     */
+    private record Reservation(String scope, String key, Limit limit, String routeName, boolean early) {
+    }
+}
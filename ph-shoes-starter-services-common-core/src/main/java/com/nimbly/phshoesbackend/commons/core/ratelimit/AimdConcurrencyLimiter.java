@@ -0,0 +1,146 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.springframework.util.StringUtils;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.Concurrency;
+import com.nimbly.phshoesbackend.commons.core.path.PathPatternIndex;
+
+/**
+ * Adaptive concurrency limit per configured route, with requests matching no route sharing one more. The limit
+ * follows additive increase, multiplicative decrease: it shrinks by {@code backoffRatio} whenever a request fails or
+ * runs past {@code timeout}, which is what happens when a downstream slows and requests pile up, and grows by one
+ * for each request that completes in time while at least half of the limit was in use.
+ * <p>
+ * Settings and routes are read once at construction; {@link AbstractApiRateLimiter#reload} does not change them.
+ */
+public class AimdConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private final PathPatternIndex<RouteLimit> routes;
+
+    private final RouteLimit defaultLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long timeoutNanos;
+
+    private final LongSupplier nanoTime;
+
+    public AimdConcurrencyLimiter(ApiRateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    AimdConcurrencyLimiter(ApiRateLimitProperties properties, LongSupplier nanoTime) {
+        Objects.requireNonNull(properties, "properties");
+        this.nanoTime = Objects.requireNonNull(nanoTime, "nanoTime");
+        Concurrency config = properties.getConcurrency() != null ? properties.getConcurrency() : new Concurrency();
+        this.minLimit = Math.max(1, config.getMinLimit());
+        this.maxLimit = Math.max(minLimit, config.getMaxLimit());
+        this.backoffRatio = config.getBackoffRatio();
+        Duration timeout = config.getTimeout() != null ? config.getTimeout() : Duration.ofSeconds(5);
+        this.timeoutNanos = timeout.toNanos();
+        int initialLimit = Math.max(minLimit, Math.min(maxLimit, config.getInitialLimit()));
+        List<RouteLimit> routeLimits = properties.getRoutes() == null
+                ? List.of()
+                : properties.getRoutes().stream()
+                        .map(route -> new RouteLimit(route.getPattern(), initialLimit))
+                        .toList();
+        this.routes = PathPatternIndex.of(routeLimits, RouteLimit::pattern);
+        this.defaultLimit = new RouteLimit(null, initialLimit);
+    }
+
+    @Override
+    public Permit tryAcquire(String path) {
+        return limitFor(path).tryAcquire();
+    }
+
+    /**
+     * Requests currently permitted in flight for the route {@code path} belongs to.
+     */
+    public int getLimit(String path) {
+        return limitFor(path).limit.get();
+    }
+
+    public int getInFlight(String path) {
+        return limitFor(path).inFlight.get();
+    }
+
+    private RouteLimit limitFor(String path) {
+        if (routes.isEmpty() || !StringUtils.hasText(path)) {
+            return defaultLimit;
+        }
+        List<RouteLimit> matched = routes.match(path);
+        return matched.isEmpty() ? defaultLimit : matched.get(0);
+    }
+
+    private final class RouteLimit {
+
+        private final String pattern;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicInteger limit;
+
+        private RouteLimit(String pattern, int initialLimit) {
+            this.pattern = pattern;
+            this.limit = new AtomicInteger(initialLimit);
+        }
+
+        private String pattern() {
+            return pattern;
+        }
+
+        private Permit tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit.get()) {
+                    return null;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return new RoutePermit(this, current + 1, nanoTime.getAsLong());
+                }
+            }
+        }
+
+        private void onComplete(int inFlightAtStart, long latencyNanos, boolean succeeded) {
+            inFlight.decrementAndGet();
+            boolean overloaded = !succeeded || latencyNanos > timeoutNanos;
+            limit.updateAndGet(current -> {
+                if (overloaded) {
+                    return Math.max(minLimit, (int) (current * backoffRatio));
+                }
+                return inFlightAtStart * 2 >= current ? Math.min(maxLimit, current + 1) : current;
+            });
+        }
+    }
+
+    private final class RoutePermit implements Permit {
+
+        private final RouteLimit routeLimit;
+
+        private final int inFlightAtStart;
+
+        private final long startNanos;
+
+        private RoutePermit(RouteLimit routeLimit, int inFlightAtStart, long startNanos) {
+            this.routeLimit = routeLimit;
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void release(boolean succeeded) {
+            routeLimit.onComplete(inFlightAtStart, nanoTime.getAsLong() - startNanos, succeeded);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.nimbly.phshoesbackend.commons.core.ratelimit;
 
+import com.nimbly.phshoesbackend.commons.core.api.rate.RateLimitExceededException;
+
 public interface ApiRateLimiter {
 
     /**
@@ -7,5 +9,37 @@ public interface ApiRateLimiter {
      * {@link ApiRateLimitException} when the request exceeds configured limits.
      */
     void verifyRequest(RateLimitRequestContext context);
-}
 
+    /**
+     * Records the request and returns whether it may proceed without throwing. Implementations should return
+     * {@link RateLimitDecision#allowed()} when admitted so no decision is built per admitted request.
+     */
+    default RateLimitDecision tryAcquire(RateLimitRequestContext context) {
+        try {
+            verifyRequest(context);
+            return RateLimitDecision.allowed();
+        } catch (RateLimitExceededException ex) {
+            return RateLimitDecision.denied(null, ex.getScope(), context.getPath(), 0, 0);
+        } catch (ApiRateLimitException ex) {
+            return RateLimitDecision.denied(null, null, context.getPath(), 0, 0);
+        }
+    }
+
+    /**
+     * Reports how an admitted request ended, for limits that count outcomes such as failed logins rather than
+     * requests. Callers only need to report requests whose decision was {@link RateLimitDecision#isOutcomeTracked()}.
+     *
+     * @param status response status
+     * @param error  exception the request ended with, or {@code null}
+     */
+    default void recordOutcome(RateLimitRequestContext context, int status, Throwable error) {
+    }
+
+    /**
+     * Whether {@link #tryAcquire} and {@link #recordOutcome} may block on I/O, e.g. on a remote counter store.
+     * Reactive callers run blocking limiters off the event loop.
+     */
+    default boolean isBlocking() {
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+/**
+ * Bounds the number of requests in flight, as opposed to {@link ApiRateLimiter} which bounds requests per window.
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * Takes a slot for a request to {@code path}.
+     *
+     * @return the slot to release when the request completes, or {@code null} when the request should be shed
+     */
+    Permit tryAcquire(String path);
+
+    interface Permit {
+
+        /**
+         * Frees the slot and reports how the request went. Must be called exactly once.
+         *
+         * @param succeeded false when the request failed in a way that suggests overload, e.g. a server error
+         */
+        void release(boolean succeeded);
+    }
+}
@@ -0,0 +1,233 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.LimitConfig;
+import com.nimbly.phshoesbackend.commons.core.model.dynamo.RateLimitAttrs;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Rate limiter whose counters live in DynamoDB so limits hold across every instance of a service.
+ * <p>
+ * Each key is counted in fixed windows aligned to the epoch; the window start is part of the item key, so a new
+ * window starts from an absent item and old ones are removed by TTL. A request is admitted by a single
+ * conditional {@code UpdateItem ADD} that only succeeds while the count stays within the limit.
+ */
+public class DynamoApiRateLimiter extends AbstractApiRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(DynamoApiRateLimiter.class);
+
+    private static final String ACQUIRE_EXPRESSION = "ADD #hits :permits SET #expiresAt = if_not_exists(#expiresAt, :expiresAt)";
+    private static final String ACQUIRE_CONDITION = "attribute_not_exists(#hits) OR #hits <= :max";
+    private static final String RELEASE_EXPRESSION = "ADD #hits :permits";
+    private static final String RELEASE_CONDITION = "attribute_exists(#hits)";
+    private static final Map<String, String> ATTRIBUTE_NAMES = Map.of(
+            "#hits", RateLimitAttrs.HITS,
+            "#expiresAt", RateLimitAttrs.EXPIRES_AT);
+    private static final Map<String, String> HITS_NAME = Map.of("#hits", RateLimitAttrs.HITS);
+
+    /**
+     * Attempts at shrinking a partially available grant before giving up on a contended item.
+     */
+    private static final int MAX_PARTIAL_ATTEMPTS = 3;
+
+    /**
+     * Minimum time between warnings while the store keeps failing.
+     */
+    private static final long FAILURE_LOG_INTERVAL_MILLIS = 60_000;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    private final String tableName;
+
+    private final boolean failOpen;
+
+    private final long ttlGraceSeconds;
+
+    private final AtomicLong storeFailures = new AtomicLong();
+
+    private final AtomicLong nextFailureLogAt = new AtomicLong();
+
+    /**
+     * @param tableName physical table name, already prefixed for the environment
+     */
+    public DynamoApiRateLimiter(DynamoDbClient dynamoDbClient, ApiRateLimitProperties properties, String tableName) {
+        this(dynamoDbClient, properties, tableName, EpochClock.system());
+    }
+
+    /**
+     * @param tableName physical table name, already prefixed for the environment
+     * @param clock     source of the request time
+     */
+    public DynamoApiRateLimiter(DynamoDbClient dynamoDbClient,
+                                ApiRateLimitProperties properties,
+                                String tableName,
+                                EpochClock clock) {
+        super(properties, clock);
+        this.dynamoDbClient = Objects.requireNonNull(dynamoDbClient, "dynamoDbClient");
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        ApiRateLimitProperties.Dynamo dynamo = properties.getDynamo() != null
+                ? properties.getDynamo()
+                : new ApiRateLimitProperties.Dynamo();
+        this.failOpen = dynamo.isFailOpen();
+        this.ttlGraceSeconds = dynamo.getTtlGrace() != null ? dynamo.getTtlGrace().toSeconds() : Duration.ofMinutes(5).toSeconds();
+    }
+
+    /**
+     * Counters are read and written with synchronous DynamoDB calls.
+     */
+    @Override
+    public boolean isBlocking() {
+        return true;
+    }
+
+    @Override
+    protected boolean tryAcquire(String scope, String key, LimitConfig limitConfig, long permits,
+                                 long windowMillis, long nowMillis) {
+        if (permits > limitConfig.getLimit()) {
+            return false;
+        }
+        try {
+            return acquire(key, windowStart(nowMillis, windowMillis), windowMillis,
+                    limitConfig.getLimit(), permits, false) == permits;
+        } catch (SdkException ex) {
+            onStoreFailure(key, ex);
+            return failOpen;
+        }
+    }
+
+    @Override
+    protected void release(String scope, String key, LimitConfig limitConfig, long permits,
+                           long windowMillis, long nowMillis) {
+        release(key, windowStart(nowMillis, windowMillis), permits);
+    }
+
+    @Override
+    protected long resetAt(String scope, String key, LimitConfig limitConfig, long windowMillis, long nowMillis) {
+        return windowStart(nowMillis, windowMillis) + windowMillis;
+    }
+
+    /**
+     * Adds up to {@code permits} to the window's count without exceeding {@code limit}.
+     *
+     * @param partial when true, grants whatever is left if fewer than {@code permits} remain
+     * @return permits granted, zero when the window is exhausted
+     */
+    long acquire(String key, long windowStart, long windowMillis, long limit, long permits, boolean partial) {
+        long expiresAt = (windowStart + windowMillis) / 1000 + ttlGraceSeconds;
+        long requested = Math.min(permits, limit);
+        for (int attempt = 0; requested > 0 && attempt < MAX_PARTIAL_ATTEMPTS; attempt++) {
+            try {
+                dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                        .tableName(tableName)
+                        .key(itemKey(key, windowStart))
+                        .updateExpression(ACQUIRE_EXPRESSION)
+                        .conditionExpression(ACQUIRE_CONDITION)
+                        .expressionAttributeNames(ATTRIBUTE_NAMES)
+                        .expressionAttributeValues(Map.of(
+                                ":permits", AttributeValue.fromN(Long.toString(requested)),
+                                ":max", AttributeValue.fromN(Long.toString(limit - requested)),
+                                ":expiresAt", AttributeValue.fromN(Long.toString(expiresAt))))
+                        .returnValuesOnConditionCheckFailure(partial
+                                ? ReturnValuesOnConditionCheckFailure.ALL_OLD
+                                : ReturnValuesOnConditionCheckFailure.NONE)
+                        .build());
+                onStoreAvailable();
+                return requested;
+            } catch (ConditionalCheckFailedException ex) {
+                onStoreAvailable();
+                if (!partial) {
+                    return 0;
+                }
+                requested = Math.min(requested, limit - currentHits(ex));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gives {@code permits} back to a window, e.g. unused leased permits. Windows that already expired are left alone.
+     */
+    void release(String key, long windowStart, long permits) {
+        if (permits <= 0) {
+            return;
+        }
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(itemKey(key, windowStart))
+                    .updateExpression(RELEASE_EXPRESSION)
+                    .conditionExpression(RELEASE_CONDITION)
+                    .expressionAttributeNames(HITS_NAME)
+                    .expressionAttributeValues(Map.of(":permits", AttributeValue.fromN(Long.toString(-permits))))
+                    .build());
+        } catch (ConditionalCheckFailedException ex) {
+            // Window item is gone; nothing to give back.
+        } catch (SdkException ex) {
+            onStoreFailure(key, ex);
+        }
+    }
+
+    /**
+     * Logs the first failed store call of an outage with its cause, then at most one warning per minute with the
+     * number of calls that failed so far, so an outage does not log once per scope of every request.
+     */
+    void onStoreFailure(String key, SdkException ex) {
+        long failed = storeFailures.incrementAndGet();
+        long now = clock.currentTimeMillis();
+        long logAt = nextFailureLogAt.get();
+        if (now < logAt || !nextFailureLogAt.compareAndSet(logAt, now + FAILURE_LOG_INTERVAL_MILLIS)) {
+            return;
+        }
+        if (failed == 1) {
+            log.warn("Rate limit store unavailable for {} (failOpen={}): {}", key, failOpen, ex.getMessage());
+        } else {
+            log.warn("Rate limit store still unavailable: {} calls failed (failOpen={}), last for {}: {}",
+                    failed, failOpen, key, ex.getMessage());
+        }
+    }
+
+    private void onStoreAvailable() {
+        if (storeFailures.get() == 0) {
+            return;
+        }
+        long failed = storeFailures.getAndSet(0);
+        nextFailureLogAt.set(0);
+        if (failed > 0) {
+            log.info("Rate limit store available again after {} failed calls", failed);
+        }
+    }
+
+    static long windowStart(long nowMillis, long windowMillis) {
+        return nowMillis - Math.floorMod(nowMillis, windowMillis);
+    }
+
+    boolean isFailOpen() {
+        return failOpen;
+    }
+
+    private static Map<String, AttributeValue> itemKey(String key, long windowStart) {
+        return Map.of(RateLimitAttrs.PK, AttributeValue.fromS(key + "#" + windowStart));
+    }
+
+    private static long currentHits(ConditionalCheckFailedException ex) {
+        if (!ex.hasItem() || ex.item().get(RateLimitAttrs.HITS) == null) {
+            return 0;
+        }
+        return Long.parseLong(ex.item().get(RateLimitAttrs.HITS).n());
+    }
+}
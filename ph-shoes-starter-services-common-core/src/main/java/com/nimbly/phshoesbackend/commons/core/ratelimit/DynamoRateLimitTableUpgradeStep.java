@@ -0,0 +1,72 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.nimbly.phshoesbackend.commons.core.migrations.UpgradeContext;
+import com.nimbly.phshoesbackend.commons.core.migrations.UpgradeStep;
+import com.nimbly.phshoesbackend.commons.core.migrations.utility.TableCreator;
+import com.nimbly.phshoesbackend.commons.core.model.dynamo.RateLimitAttrs;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+/**
+ * Creates the table backing {@link DynamoApiRateLimiter} with TTL enabled on {@link RateLimitAttrs#EXPIRES_AT}.
+ */
+public class DynamoRateLimitTableUpgradeStep implements UpgradeStep {
+
+    private final TableCreator tableCreator;
+
+    private final String tableName;
+
+    /**
+     * @param tableName logical table name; {@link UpgradeContext#tbl(String)} applies the prefix
+     */
+    public DynamoRateLimitTableUpgradeStep(TableCreator tableCreator, String tableName) {
+        this.tableCreator = Objects.requireNonNull(tableCreator, "tableCreator");
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+    }
+
+    @Override
+    public String service() {
+        return "ph-shoes-rate-limit";
+    }
+
+    @Override
+    public String fromVersion() {
+        return "0.0.0";
+    }
+
+    @Override
+    public String toVersion() {
+        return "1.0.0";
+    }
+
+    @Override
+    public String description() {
+        return "Create " + tableName + " table with TTL";
+    }
+
+    @Override
+    public void apply(UpgradeContext context) {
+        String physicalName = context.tbl(tableName);
+        tableCreator.createTableIfNotExists(
+                physicalName,
+                List.of(AttributeDefinition.builder()
+                        .attributeName(RateLimitAttrs.PK)
+                        .attributeType(ScalarAttributeType.S)
+                        .build()),
+                List.of(KeySchemaElement.builder()
+                        .attributeName(RateLimitAttrs.PK)
+                        .keyType(KeyType.HASH)
+                        .build()),
+                BillingMode.PAY_PER_REQUEST,
+                0,
+                0);
+        tableCreator.enableTtlIfDisabled(physicalName, RateLimitAttrs.EXPIRES_AT);
+    }
+}
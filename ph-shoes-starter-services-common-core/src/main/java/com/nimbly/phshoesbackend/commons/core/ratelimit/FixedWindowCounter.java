@@ -0,0 +1,84 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Window that starts at the first request for a key and resets all at once when it elapses. Permits are added with
+ * a CAS loop only when they fit, so an expensive request that does not fit never holds room cheaper ones need.
+ */
+final class FixedWindowCounter implements RateLimitCounter {
+
+    private volatile long windowEnd;
+
+    private final AtomicLong count = new AtomicLong();
+
+    FixedWindowCounter() {
+    }
+
+    private FixedWindowCounter(long windowEnd, long count) {
+        this.windowEnd = windowEnd;
+        this.count.set(count);
+    }
+
+    /**
+     * Rebuilds a counter from {@link #snapshotState()}.
+     */
+    static FixedWindowCounter restore(long[] state) {
+        return new FixedWindowCounter(state[0], state[1]);
+    }
+
+    @Override
+    public boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis) {
+        if (windowEnd <= nowMillis) {
+            resetIfExpired(windowMillis, nowMillis);
+        }
+        while (true) {
+            long current = count.get();
+            if (current + permits > limit) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + permits)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long expiresAt() {
+        return windowEnd;
+    }
+
+    @Override
+    public void release(long permits, long limit, long windowMillis, long nowMillis) {
+        if (nowMillis < windowEnd) {
+            count.addAndGet(-permits);
+        }
+    }
+
+    @Override
+    public long resetAt(long limit, long windowMillis, long nowMillis) {
+        return windowEnd;
+    }
+
+    @Override
+    public long used(long limit, long windowMillis, long nowMillis) {
+        return nowMillis < windowEnd ? count.get() : 0;
+    }
+
+    @Override
+    public byte snapshotType() {
+        return RateLimitSnapshot.FIXED_WINDOW;
+    }
+
+    @Override
+    public long[] snapshotState() {
+        return new long[] {windowEnd, count.get()};
+    }
+
+    private synchronized void resetIfExpired(long windowMillis, long nowMillis) {
+        if (windowEnd <= nowMillis) {
+            this.count.set(0);
+            this.windowEnd = nowMillis + windowMillis;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generic Cell Rate Algorithm. The only state is the theoretical arrival time (TAT) of the next request, kept in
+ * epoch nanoseconds and advanced with a CAS loop, so admission never blocks or allocates. Requests are spaced by
+ * {@code window / limit}; up to {@code burst} of them may arrive back-to-back. A request of several permits moves the
+ * TAT by that many intervals in the same CAS.
+ */
+final class GcraCounter implements RateLimitCounter {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong();
+
+    private final long burst;
+
+    GcraCounter(long burst) {
+        this.burst = Math.max(1, burst);
+    }
+
+    /**
+     * Rebuilds a counter from {@link #snapshotState()}.
+     */
+    static GcraCounter restore(long[] state) {
+        GcraCounter counter = new GcraCounter(state[0]);
+        counter.theoreticalArrival.set(state[1]);
+        return counter;
+    }
+
+    @Override
+    public boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis) {
+        long now = nowMillis * NANOS_PER_MILLI;
+        long emissionInterval = emissionInterval(limit, windowMillis);
+        long tolerance = tolerance(emissionInterval);
+        long increment = emissionInterval * permits;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = Math.max(tat, now);
+            if (start + increment - emissionInterval - now > tolerance) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, start + increment)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long expiresAt() {
+        return theoreticalArrival.get() / NANOS_PER_MILLI + 1;
+    }
+
+    @Override
+    public void release(long permits, long limit, long windowMillis, long nowMillis) {
+        theoreticalArrival.addAndGet(-emissionInterval(limit, windowMillis) * permits);
+    }
+
+    @Override
+    public long resetAt(long limit, long windowMillis, long nowMillis) {
+        long admitFrom = theoreticalArrival.get() - tolerance(emissionInterval(limit, windowMillis));
+        return Math.max(nowMillis, (admitFrom + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Intervals the TAT is ahead of now, i.e. permits that have not drained yet.
+     */
+    @Override
+    public long used(long limit, long windowMillis, long nowMillis) {
+        long emissionInterval = emissionInterval(limit, windowMillis);
+        long backlog = Math.max(0, theoreticalArrival.get() - nowMillis * NANOS_PER_MILLI);
+        return (backlog + emissionInterval - 1) / emissionInterval;
+    }
+
+    @Override
+    public byte snapshotType() {
+        return RateLimitSnapshot.GCRA;
+    }
+
+    @Override
+    public long[] snapshotState() {
+        return new long[] {burst, theoreticalArrival.get()};
+    }
+
+    private static long emissionInterval(long limit, long windowMillis) {
+        return Math.max(1, windowMillis * NANOS_PER_MILLI / limit);
+    }
+
+    private long tolerance(long emissionInterval) {
+        return emissionInterval > Long.MAX_VALUE / burst ? Long.MAX_VALUE : emissionInterval * (burst - 1);
+    }
+}
@@ -1,114 +1,299 @@
 package com.nimbly.phshoesbackend.commons.core.ratelimit;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.Algorithm;
 import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.LimitConfig;
-import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.Route;
-import com.nimbly.phshoesbackend.commons.core.api.rate.RateLimitExceededException;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPolicy.Limit;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
-public class InMemoryApiRateLimiter implements ApiRateLimiter {
+/**
+ * Keeps counters in the memory of this instance. With {@code snapshot.enabled}, counters are written to a snapshot
+ * file periodically and when the limiter is closed, and restored from it on startup.
+ */
+public class InMemoryApiRateLimiter extends AbstractApiRateLimiter implements AutoCloseable {
 
-    private final ApiRateLimitProperties properties;
+    private static final Logger log = LoggerFactory.getLogger(InMemoryApiRateLimiter.class);
 
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final RateLimitCounterStore counters;
 
-    private final Map<String, WindowCounter> counters = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    private final Algorithm algorithm;
+
+    private final long slidingLogMaxEntries;
+
+    private final boolean striped;
+
+    private final long stripedSyncIntervalMillis;
+
+    private final double stripedSlack;
+
+    private final Path snapshotFile;
+
+    private final long snapshotIntervalMillis;
+
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+
+    private volatile long nextSnapshotAt;
 
     public InMemoryApiRateLimiter(ApiRateLimitProperties properties) {
-        this.properties = Objects.requireNonNull(properties, "properties");
+        this(properties, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param sweepExecutor executor that runs the periodic sweep of expired counters
+     */
+    public InMemoryApiRateLimiter(ApiRateLimitProperties properties, Executor sweepExecutor) {
+        this(properties, sweepExecutor, EpochClock.system());
+    }
+
+    /**
+     * @param sweepExecutor executor that runs the periodic sweep of expired counters
+     * @param clock         source of the request time
+     */
+    public InMemoryApiRateLimiter(ApiRateLimitProperties properties, Executor sweepExecutor, EpochClock clock) {
+        super(properties, clock);
+        Duration sweepInterval = properties.getSweepInterval() != null ? properties.getSweepInterval() : Duration.ofMinutes(1);
+        this.executor = Objects.requireNonNull(sweepExecutor, "sweepExecutor");
+        this.algorithm = properties.getAlgorithm() != null ? properties.getAlgorithm() : Algorithm.FIXED;
+        this.slidingLogMaxEntries = properties.getSlidingLogMaxEntries();
+        ApiRateLimitProperties.Striped stripedSettings = properties.getStriped();
+        this.striped = stripedSettings != null && stripedSettings.isEnabled();
+        this.stripedSyncIntervalMillis = striped && stripedSettings.getSyncInterval() != null
+                ? stripedSettings.getSyncInterval().toMillis()
+                : 0;
+        this.stripedSlack = striped ? stripedSettings.getSlack() : 0;
+        this.counters = new RateLimitCounterStore(properties.getMaxKeys(), properties.getOverflowPolicy(),
+                sweepInterval.toMillis(), executor, this::overflowBucket);
+        ApiRateLimitProperties.Snapshot snapshot = properties.getSnapshot();
+        if (snapshot != null && snapshot.isEnabled()) {
+            this.snapshotFile = Path.of(snapshot.getFile());
+            Duration interval = snapshot.getInterval() != null ? snapshot.getInterval() : Duration.ofMinutes(1);
+            this.snapshotIntervalMillis = Math.max(1, interval.toMillis());
+            long now = clock.currentTimeMillis();
+            this.nextSnapshotAt = now + snapshotIntervalMillis;
+            restoreSnapshot(now);
+        } else {
+            this.snapshotFile = null;
+            this.snapshotIntervalMillis = 0;
+        }
     }
 
+    /**
+     * Also drops the counters whose type or shape was fixed by a limit that changed: under {@code GCRA} the burst,
+     * and under {@code SLIDING_LOG} a limit crossing {@code sliding-log-max-entries}, which picks between an exact
+     * log and a sliding window. Those keys and the shared overflow buckets start again from an empty window, and
+     * their deny cache blocks are lifted. Other counters keep their state; counters restored from a snapshot are not
+     * checked against the limits it was written under.
+     */
     @Override
-    public void verifyRequest(RateLimitRequestContext context) {
-        if (context == null) {
+    public void reload(ApiRateLimitProperties properties) {
+        RateLimitPolicy previous = policy();
+        super.reload(properties);
+        if (algorithm != Algorithm.GCRA && algorithm != Algorithm.SLIDING_LOG) {
             return;
         }
-        Instant now = Instant.now();
-        Duration defaultWindow = properties.getDefaultWindow();
+        List<String> rebuilt = new ArrayList<>();
+        policy().limitsByKey.forEach((key, limit) -> {
+            Limit before = previous.limitsByKey.get(key);
+            boolean stripedKey = striped && !key.endsWith(":");
+            if (before != null && !stripedKey && counterShape(before) != counterShape(limit)) {
+                rebuilt.add(key);
+            }
+        });
+        if (!rebuilt.isEmpty()) {
+            log.info("Dropping rate limit counters of {} after reload changed how they are built", rebuilt);
+            Predicate<String> affected = key -> rebuilt.stream()
+                    .anyMatch(prefix -> prefix.endsWith(":") ? key.startsWith(prefix) : key.equals(prefix));
+            counters.dropMatching(affected);
+            forgetDenials(affected);
+        }
+    }
 
-        checkLimit("global", properties.getGlobal(), defaultWindow, now, context.getPath());
+    /**
+     * Number of keys currently tracked, excluding shared overflow buckets.
+     */
+    public int getLiveKeyCount() {
+        return counters.size();
+    }
 
-        if (StringUtils.hasText(context.getIpAddress())) {
-            checkLimit("ip:" + context.getIpAddress(), properties.getPerIp(), defaultWindow, now, context.getPath());
-        }
+    /**
+     * Total number of idle counters dropped since startup.
+     */
+    public long getEvictionCount() {
+        return counters.evictionCount();
+    }
 
-        if (StringUtils.hasText(context.getUserId())) {
-            checkLimit("user:" + context.getUserId(), properties.getPerUser(), defaultWindow, now, context.getPath());
+    /**
+     * Writes a final snapshot when snapshots are enabled.
+     */
+    @Override
+    public void close() {
+        if (snapshotFile != null) {
+            writeSnapshot(clock.currentTimeMillis());
         }
+    }
 
-        applyRouteOverrides(context, now, defaultWindow);
+    @Override
+    protected boolean tryAcquire(String scope, String key, LimitConfig limitConfig, long permits,
+                                 long windowMillis, long nowMillis) {
+        if (snapshotFile != null) {
+            scheduleSnapshot(nowMillis);
+        }
+        RateLimitCounter counter = counters.resolve(key, () -> newCounter(scope, key, limitConfig), nowMillis);
+        if (counter == null) {
+            return true;
+        }
+        if (!counter.tryAcquire(permits, limitConfig.getLimit(), windowMillis, nowMillis)) {
+            return false;
+        }
+        RateLimitMetrics metrics = metrics();
+        if (metrics != RateLimitMetrics.NOOP) {
+            long used = counter.used(limitConfig.getLimit(), windowMillis, nowMillis);
+            if (used >= 0) {
+                metrics.recordUsage(scope, used, limitConfig.getLimit());
+            }
+        }
+        return true;
     }
 
-    private void applyRouteOverrides(RateLimitRequestContext context, Instant now, Duration defaultWindow) {
-        List<Route> routes = properties.getRoutes();
-        if (routes == null || routes.isEmpty() || !StringUtils.hasText(context.getPath()) || !StringUtils.hasText(context.getUserId())) {
-            return;
+    @Override
+    protected void release(String scope, String key, LimitConfig limitConfig, long permits,
+                           long windowMillis, long nowMillis) {
+        RateLimitCounter counter = counters.resolve(key, () -> newCounter(scope, key, limitConfig), nowMillis);
+        if (counter != null) {
+            counter.release(permits, limitConfig.getLimit(), windowMillis, nowMillis);
         }
+    }
 
-        for (Route route : routes) {
-            if (!StringUtils.hasText(route.getPattern())) {
-                continue;
-            }
-            if (pathMatcher.match(route.getPattern(), context.getPath())) {
-                LimitConfig perUser = route.getPerUser();
-                if (perUser == null) {
-                    continue;
-                }
-                checkLimit("route:" + route.getName() + ":user:" + context.getUserId(),
-                        perUser, defaultWindow, now, route.getName());
+    @Override
+    protected long used(String scope, String key, LimitConfig limitConfig, long windowMillis, long nowMillis) {
+        RateLimitCounter counter = counters.resolve(key, () -> newCounter(scope, key, limitConfig), nowMillis);
+        return counter != null ? counter.used(limitConfig.getLimit(), windowMillis, nowMillis) : -1;
+    }
+
+    @Override
+    protected long resetAt(String scope, String key, LimitConfig limitConfig, long windowMillis, long nowMillis) {
+        RateLimitCounter counter = counters.resolve(key, () -> newCounter(scope, key, limitConfig), nowMillis);
+        return counter != null ? counter.resetAt(limitConfig.getLimit(), windowMillis, nowMillis) : nowMillis;
+    }
+
+    private void restoreSnapshot(long nowMillis) {
+        try {
+            RateLimitSnapshot snapshot = RateLimitSnapshot.open(snapshotFile, snapshotFingerprint(), nowMillis);
+            if (snapshot != null) {
+                log.info("Restoring {} rate limit counters from {}", snapshot.size(), snapshotFile);
+                counters.restoreFrom(snapshot, nowMillis);
             }
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable rate limit snapshot {}: {}", snapshotFile, ex.getMessage());
         }
     }
 
-    private void checkLimit(String key,
-                            LimitConfig limitConfig,
-                            Duration defaultWindow,
-                            Instant now,
-                            String routeName) {
-        if (limitConfig == null || limitConfig.getLimit() <= 0) {
+    private void scheduleSnapshot(long nowMillis) {
+        if (nowMillis < nextSnapshotAt || !snapshotting.compareAndSet(false, true)) {
             return;
         }
-
-        Duration window = limitConfig.getWindow() != null ? limitConfig.getWindow() : defaultWindow;
-        WindowCounter counter = counters.computeIfAbsent(key, k -> new WindowCounter(now));
-        long value = counter.incrementAndGet(window, now);
-        if (value > limitConfig.getLimit()) {
-            throw new RateLimitExceededException(key, "Rate limit exceeded for " + key + " on " + routeName);
+        nextSnapshotAt = nowMillis + snapshotIntervalMillis;
+        try {
+            executor.execute(() -> {
+                try {
+                    writeSnapshot(nowMillis);
+                } finally {
+                    snapshotting.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            snapshotting.set(false);
         }
     }
 
-    private static final class WindowCounter {
-
-        private volatile Instant windowStart;
+    /**
+     * Skipped while a restore is still running, so keys not yet copied from the previous snapshot are not lost.
+     */
+    private synchronized void writeSnapshot(long nowMillis) {
+        if (counters.isRestoring()) {
+            return;
+        }
+        try {
+            int written = counters.writeSnapshot(snapshotFile, snapshotFingerprint(), nowMillis);
+            log.debug("Wrote {} rate limit counters to {}", written, snapshotFile);
+        } catch (IOException ex) {
+            log.warn("Failed to write rate limit snapshot {}: {}", snapshotFile, ex.getMessage());
+        }
+    }
 
-        private final AtomicLong count = new AtomicLong();
+    /**
+     * Counters are only restored under the configuration that created them. Striped counters keep their sync
+     * interval and slack, so those are part of it too.
+     */
+    private int snapshotFingerprint() {
+        return (algorithm.name() + ":" + striped + ":" + stripedSyncIntervalMillis + ":" + stripedSlack).hashCode();
+    }
 
-        WindowCounter(Instant now) {
-            this.windowStart = now;
-            this.count.set(0);
+    /**
+     * Overflow bucket of a key: the key, or key prefix, of the limit it is counted against, as in
+     * {@link RateLimitPolicy#limitsByKey}. Limits that share a scope, such as a route's per-user and route-wide
+     * limits, get separate buckets.
+     */
+    private String overflowBucket(String key) {
+        Map<String, Limit> limits = policy().limitsByKey;
+        if (limits.containsKey(key)) {
+            return key;
         }
-
-        long incrementAndGet(Duration window, Instant now) {
-            resetIfExpired(window, now);
-            return count.incrementAndGet();
+        String bucket = "";
+        for (String family : limits.keySet()) {
+            if (family.endsWith(":") && family.length() > bucket.length() && key.startsWith(family)) {
+                bucket = family;
+            }
         }
+        return bucket;
+    }
 
-        private synchronized void resetIfExpired(Duration window, Instant now) {
-            Instant localStart = this.windowStart;
-            if (localStart.plus(window).isBefore(now) || localStart.plus(window).equals(now)) {
-                this.windowStart = now;
-                this.count.set(0);
-            }
+    /**
+     * What {@link #newCounter} fixes at creation for a limit: the burst under GCRA, and under SLIDING_LOG whether
+     * a log is used at all.
+     */
+    private long counterShape(Limit limit) {
+        return switch (algorithm) {
+            case GCRA -> burstOf(limit.config());
+            case SLIDING_LOG -> limit.limit() <= slidingLogMaxEntries ? 1 : 0;
+            default -> 0;
+        };
+    }
+
+    private static long burstOf(LimitConfig limitConfig) {
+        return limitConfig.getBurst() > 0 ? limitConfig.getBurst() : limitConfig.getLimit();
+    }
+
+    private RateLimitCounter newCounter(String scope, String key, LimitConfig limitConfig) {
+        if (striped && isSharedByAllCallers(scope, key)) {
+            return new StripedWindowCounter(stripedSyncIntervalMillis, stripedSlack);
         }
+        long limit = limitConfig.getLimit();
+        return switch (algorithm) {
+            case SLIDING_COUNTER -> new SlidingWindowCounter();
+            case SLIDING_LOG -> limit <= slidingLogMaxEntries
+                    ? new SlidingLogCounter(limit)
+                    : new SlidingWindowCounter();
+            case GCRA -> new GcraCounter(burstOf(limitConfig));
+            case FIXED -> new FixedWindowCounter();
+        };
     }
 }
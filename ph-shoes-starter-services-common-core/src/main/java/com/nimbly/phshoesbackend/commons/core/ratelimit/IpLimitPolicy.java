@@ -0,0 +1,67 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.IpLimitConfig;
+import com.nimbly.phshoesbackend.commons.core.net.IpAddress;
+import com.nimbly.phshoesbackend.commons.core.net.IpPrefixTrie;
+
+/**
+ * Per-IP side of {@link AbstractApiRateLimiter}: classifies a client address against the allow and deny ranges
+ * and maps it to the counter key of its subnet, so clients rotating through a /24 or a /64 share one bucket.
+ * Anything that is not an IP literal shares a single {@value #INVALID_KEY} bucket.
+ */
+final class IpLimitPolicy {
+
+    static final String INVALID_KEY = "ip:invalid";
+
+    enum Access {
+        LIMITED,
+        ALLOWED,
+        DENIED
+    }
+
+    private final IpPrefixTrie<Access> ranges;
+
+    private final int ipv4Prefix;
+
+    private final int ipv6Prefix;
+
+    IpLimitPolicy(IpLimitConfig config) {
+        IpLimitConfig settings = config != null ? config : new IpLimitConfig();
+        Map<String, Access> access = new LinkedHashMap<>();
+        put(access, settings.getAllow(), Access.ALLOWED);
+        put(access, settings.getDeny(), Access.DENIED);
+        this.ranges = IpPrefixTrie.of(access);
+        this.ipv4Prefix = settings.getIpv4Prefix();
+        this.ipv6Prefix = settings.getIpv6Prefix();
+    }
+
+    Access accessOf(IpAddress address) {
+        Access access = ranges.longestMatch(address);
+        return access != null ? access : Access.LIMITED;
+    }
+
+    /**
+     * Counter key of the subnet {@code address} belongs to, e.g. {@code ip:203.0.113.0/24}; single-host prefixes
+     * keep the plain canonical address.
+     */
+    String keyOf(IpAddress address) {
+        if (address == null) {
+            return INVALID_KEY;
+        }
+        int prefix = Math.max(0, address.isIpv4() ? ipv4Prefix : ipv6Prefix);
+        if (prefix >= address.bitLength()) {
+            return "ip:" + address;
+        }
+        return "ip:" + address.mask(prefix) + "/" + prefix;
+    }
+
+    private static void put(Map<String, Access> access, List<String> ranges, Access value) {
+        if (ranges != null) {
+            ranges.forEach(range -> access.put(range, value));
+        }
+    }
+}
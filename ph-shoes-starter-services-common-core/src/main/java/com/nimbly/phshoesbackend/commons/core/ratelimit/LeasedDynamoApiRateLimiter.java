@@ -0,0 +1,95 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.LimitConfig;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.OverflowPolicy;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * {@link DynamoApiRateLimiter} that leases blocks of permits per key and serves them from memory, so most
+ * requests are decided without a call to DynamoDB. See {@link QuotaLease} for how blocks are sized and returned.
+ * <p>
+ * Leases are kept in a bounded store; keys beyond {@code maxKeys} are counted directly in DynamoDB.
+ */
+public class LeasedDynamoApiRateLimiter extends DynamoApiRateLimiter {
+
+    private final RateLimitCounterStore leases;
+
+    private final ApiRateLimitProperties.Lease leaseSettings;
+
+    public LeasedDynamoApiRateLimiter(DynamoDbClient dynamoDbClient, ApiRateLimitProperties properties, String tableName) {
+        this(dynamoDbClient, properties, tableName, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param sweepExecutor executor that drops ended leases and hands their unused permits back
+     */
+    public LeasedDynamoApiRateLimiter(DynamoDbClient dynamoDbClient,
+                                      ApiRateLimitProperties properties,
+                                      String tableName,
+                                      Executor sweepExecutor) {
+        this(dynamoDbClient, properties, tableName, sweepExecutor, EpochClock.system());
+    }
+
+    /**
+     * @param sweepExecutor executor that drops ended leases and hands their unused permits back
+     * @param clock         source of the request time
+     */
+    public LeasedDynamoApiRateLimiter(DynamoDbClient dynamoDbClient,
+                                      ApiRateLimitProperties properties,
+                                      String tableName,
+                                      Executor sweepExecutor,
+                                      EpochClock clock) {
+        super(dynamoDbClient, properties, tableName, clock);
+        this.leaseSettings = properties.getDynamo() != null && properties.getDynamo().getLease() != null
+                ? properties.getDynamo().getLease()
+                : new ApiRateLimitProperties.Lease();
+        Duration sweepInterval = properties.getSweepInterval() != null ? properties.getSweepInterval() : Duration.ofMinutes(1);
+        this.leases = new RateLimitCounterStore(properties.getMaxKeys(), OverflowPolicy.FAIL_OPEN,
+                sweepInterval.toMillis(), Objects.requireNonNull(sweepExecutor, "sweepExecutor"));
+    }
+
+    /**
+     * Number of keys currently holding a lease.
+     */
+    public int getLiveLeaseCount() {
+        return leases.size();
+    }
+
+    @Override
+    protected boolean tryAcquire(String scope, String key, LimitConfig limitConfig, long permits,
+                                 long windowMillis, long nowMillis) {
+        RateLimitCounter lease = leases.resolve(key, () -> new QuotaLease(this, key, leaseSettings), nowMillis);
+        if (lease == null) {
+            return super.tryAcquire(scope, key, limitConfig, permits, windowMillis, nowMillis);
+        }
+        return lease.tryAcquire(permits, limitConfig.getLimit(), windowMillis, nowMillis);
+    }
+
+    @Override
+    protected void release(String scope, String key, LimitConfig limitConfig, long permits,
+                           long windowMillis, long nowMillis) {
+        RateLimitCounter lease = leases.resolve(key, () -> new QuotaLease(this, key, leaseSettings), nowMillis);
+        if (lease == null) {
+            super.release(scope, key, limitConfig, permits, windowMillis, nowMillis);
+        } else {
+            lease.release(permits, limitConfig.getLimit(), windowMillis, nowMillis);
+        }
+    }
+
+    @Override
+    protected long resetAt(String scope, String key, LimitConfig limitConfig, long windowMillis, long nowMillis) {
+        RateLimitCounter lease = leases.resolve(key, () -> new QuotaLease(this, key, leaseSettings), nowMillis);
+        if (lease == null) {
+            return super.resetAt(scope, key, limitConfig, windowMillis, nowMillis);
+        }
+        return lease.resetAt(limitConfig.getLimit(), windowMillis, nowMillis);
+    }
+}
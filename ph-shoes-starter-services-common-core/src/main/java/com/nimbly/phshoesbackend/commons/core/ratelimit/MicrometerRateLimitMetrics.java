@@ -0,0 +1,120 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publishes limiter decisions to Micrometer:
+ * <ul>
+ *     <li>{@code phshoes.ratelimit.decisions}: counter tagged {@code outcome} (allowed, denied), {@code scope} (the
+ *     {@link RateLimitMetrics#scopeType scope type} that denied, {@code none} when allowed) and {@code route}.</li>
+ *     <li>{@code phshoes.ratelimit.decision.latency}: timer of {@link ApiRateLimiter#tryAcquire} calls.</li>
+ *     <li>{@code phshoes.ratelimit.usage}: share of the limit in use right after an admission, per scope type, with
+ *     buckets at 50, 80, 90 and 100% to show how close callers run to their limits.</li>
+ *     <li>{@code phshoes.ratelimit.keys} and {@code phshoes.ratelimit.evictions} for an {@link InMemoryApiRateLimiter}
+ *     passed to {@link #monitor}.</li>
+ * </ul>
+ * Meters are created on first use and cached, so recording does not allocate once every route has been seen.
+ */
+public class MicrometerRateLimitMetrics implements RateLimitMetrics {
+
+    static final String DECISIONS = "phshoes.ratelimit.decisions";
+
+    static final String LATENCY = "phshoes.ratelimit.decision.latency";
+
+    static final String USAGE = "phshoes.ratelimit.usage";
+
+    static final String KEYS = "phshoes.ratelimit.keys";
+
+    static final String EVICTIONS = "phshoes.ratelimit.evictions";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    private final Timer latency;
+
+    private final Map<String, Counter> allowed = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Counter>> denied = new ConcurrentHashMap<>();
+
+    private final Map<String, DistributionSummary> usage = new ConcurrentHashMap<>();
+
+    public MicrometerRateLimitMetrics(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry, "registry");
+        this.latency = Timer.builder(LATENCY)
+                .description("Time taken to decide whether a request is within its rate limits")
+                .register(registry);
+    }
+
+    /**
+     * Adds gauges for the number of keys {@code limiter} tracks and the idle keys it has dropped.
+     */
+    public void monitor(InMemoryApiRateLimiter limiter) {
+        Gauge.builder(KEYS, limiter, InMemoryApiRateLimiter::getLiveKeyCount)
+                .description("Rate limit keys currently tracked in memory")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS, limiter, InMemoryApiRateLimiter::getEvictionCount)
+                .description("Idle rate limit keys dropped from memory")
+                .register(registry);
+    }
+
+    @Override
+    public void recordDecision(RateLimitDecision decision, String route, long latencyNanos) {
+        latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        String routeTag = route != null ? route : NONE;
+        if (decision.isAllowed()) {
+            Counter counter = allowed.get(routeTag);
+            if (counter == null) {
+                counter = allowed.computeIfAbsent(routeTag, r -> decisions("allowed", NONE, r));
+            }
+            counter.increment();
+            return;
+        }
+        String scopeType = RateLimitMetrics.scopeType(decision.getScope());
+        Map<String, Counter> byScope = denied.get(routeTag);
+        if (byScope == null) {
+            byScope = denied.computeIfAbsent(routeTag, r -> new ConcurrentHashMap<>());
+        }
+        Counter counter = byScope.get(scopeType);
+        if (counter == null) {
+            counter = byScope.computeIfAbsent(scopeType, s -> decisions("denied", s, routeTag));
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void recordUsage(String scope, long used, long limit) {
+        if (limit <= 0) {
+            return;
+        }
+        String scopeType = RateLimitMetrics.scopeType(scope);
+        DistributionSummary summary = usage.get(scopeType);
+        if (summary == null) {
+            summary = usage.computeIfAbsent(scopeType, s -> DistributionSummary.builder(USAGE)
+                    .description("Share of a rate limit in use after admitting a request")
+                    .tag("scope", s)
+                    .serviceLevelObjectives(0.5, 0.8, 0.9, 1.0)
+                    .register(registry));
+        }
+        summary.record((double) used / limit);
+    }
+
+    private Counter decisions(String outcome, String scopeType, String route) {
+        return Counter.builder(DECISIONS)
+                .description("Rate limit decisions")
+                .tag("outcome", outcome)
+                .tag("scope", scopeType)
+                .tag("route", route)
+                .register(registry);
+    }
+}
@@ -0,0 +1,199 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+
+import software.amazon.awssdk.core.exception.SdkException;
+
+/**
+ * Block of permits for one key, leased from the shared DynamoDB count and served from memory.
+ * <p>
+ * Permits are added to the shared count when leased, so other instances never see more than {@code limit}
+ * admitted per window. When a lease runs out or its duration ends, the next block is sized from the rate observed
+ * during the previous one; unused permits are carried into it or handed back if the new block is smaller. While
+ * DynamoDB is unavailable the key is limited locally to {@code fallbackRatio} of its limit.
+ * <p>
+ * Renewals are single-flight: callers that find the lease empty queue on {@code renewal} while one of them talks to
+ * DynamoDB, then try the new block before renewing themselves. Releases, reset lookups and eviction only touch
+ * atomics and volatile fields, so they never wait behind a DynamoDB round trip.
+ */
+final class QuotaLease implements RateLimitCounter {
+
+    private final DynamoApiRateLimiter store;
+
+    private final String key;
+
+    private final long leaseMillis;
+
+    private final long minBlock;
+
+    private final long maxBlock;
+
+    private final double fallbackRatio;
+
+    private final AtomicLong remaining = new AtomicLong();
+
+    private volatile long leaseEnd;
+
+    private volatile FixedWindowCounter fallback;
+
+    private volatile long windowStart = Long.MIN_VALUE;
+
+    private volatile long storeRetryAt;
+
+    private final ReentrantLock renewal = new ReentrantLock();
+
+    private long leaseStart;
+
+    private long granted;
+
+    private boolean exhausted;
+
+    private double permitsPerMilli = -1;
+
+    QuotaLease(DynamoApiRateLimiter store, String key, ApiRateLimitProperties.Lease settings) {
+        this.store = store;
+        this.key = key;
+        this.leaseMillis = settings.getDuration() != null ? Math.max(1, settings.getDuration().toMillis()) : 5_000;
+        this.minBlock = Math.max(1, settings.getMinBlock());
+        this.maxBlock = Math.max(minBlock, settings.getMaxBlock());
+        this.fallbackRatio = settings.getFallbackRatio();
+    }
+
+    @Override
+    public boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis) {
+        if (nowMillis < leaseEnd && takeLeased(permits)) {
+            return true;
+        }
+        renewal.lock();
+        try {
+            return renew(permits, limit, windowMillis, nowMillis);
+        } finally {
+            renewal.unlock();
+        }
+    }
+
+    @Override
+    public long expiresAt() {
+        FixedWindowCounter local = fallback;
+        return local != null ? Math.max(leaseEnd, local.expiresAt()) : leaseEnd;
+    }
+
+    @Override
+    public void release(long permits, long limit, long windowMillis, long nowMillis) {
+        FixedWindowCounter local = fallback;
+        if (nowMillis < storeRetryAt && local != null) {
+            local.release(permits, limit, windowMillis, nowMillis);
+        } else if (nowMillis < leaseEnd) {
+            remaining.addAndGet(permits);
+        }
+    }
+
+    @Override
+    public long resetAt(long limit, long windowMillis, long nowMillis) {
+        FixedWindowCounter local = fallback;
+        if (nowMillis < storeRetryAt && local != null) {
+            return local.resetAt(limit, windowMillis, nowMillis);
+        }
+        return Math.max(nowMillis, leaseEnd);
+    }
+
+    /**
+     * Hands unused permits back so other instances can use them for the rest of the window.
+     */
+    @Override
+    public void onEvicted() {
+        store.release(key, windowStart, Math.max(0, remaining.getAndSet(0)));
+    }
+
+    /**
+     * Takes {@code permits} from the current lease, or none if fewer remain.
+     */
+    private boolean takeLeased(long permits) {
+        while (true) {
+            long current = remaining.get();
+            if (current < permits) {
+                return false;
+            }
+            if (remaining.compareAndSet(current, current - permits)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean renew(long permits, long limit, long windowMillis, long now) {
+        if (now < leaseEnd) {
+            if (takeLeased(permits)) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+        }
+        if (now < storeRetryAt) {
+            return fallbackAcquire(permits, limit, windowMillis, now);
+        }
+
+        long currentWindow = DynamoApiRateLimiter.windowStart(now, windowMillis);
+        long unused = Math.max(0, remaining.getAndSet(0));
+        long carried = currentWindow == windowStart ? unused : 0;
+        long block = Math.max(nextBlock(limit, now, carried), Math.min(limit, permits));
+
+        long leased = 0;
+        boolean storeAvailable = true;
+        if (carried < block) {
+            try {
+                leased = store.acquire(key, currentWindow, windowMillis, limit, block - carried, true);
+            } catch (SdkException ex) {
+                storeAvailable = false;
+                storeRetryAt = now + leaseMillis;
+                store.onStoreFailure(key, ex);
+            }
+        } else {
+            store.release(key, currentWindow, carried - block);
+            carried = block;
+        }
+
+        long available = carried + leased;
+        if (available == 0 && !storeAvailable) {
+            return fallbackAcquire(permits, limit, windowMillis, now);
+        }
+        if (storeAvailable) {
+            fallback = null;
+        }
+        windowStart = currentWindow;
+        leaseStart = now;
+        granted = available;
+        exhausted = available < permits;
+        remaining.set(exhausted ? available : available - permits);
+        leaseEnd = Math.min(now + leaseMillis, currentWindow + windowMillis);
+        return !exhausted;
+    }
+
+    /**
+     * Sizes the next block to cover one lease duration at the rate seen over the previous lease.
+     */
+    private long nextBlock(long limit, long now, long unused) {
+        if (granted > 0) {
+            double observed = (double) (granted - unused) / Math.max(1, now - leaseStart);
+            permitsPerMilli = permitsPerMilli < 0 ? observed : (permitsPerMilli + observed) / 2;
+        }
+        long block = permitsPerMilli < 0 ? minBlock : (long) Math.ceil(permitsPerMilli * leaseMillis);
+        return Math.min(limit, Math.max(minBlock, Math.min(maxBlock, block)));
+    }
+
+    private boolean fallbackAcquire(long permits, long limit, long windowMillis, long now) {
+        long allowance = (long) (limit * fallbackRatio);
+        if (!store.isFailOpen() || allowance <= 0) {
+            return false;
+        }
+        FixedWindowCounter local = fallback;
+        if (local == null) {
+            local = new FixedWindowCounter();
+            fallback = local;
+        }
+        return local.tryAcquire(permits, allowance, windowMillis, now);
+    }
+}
@@ -0,0 +1,76 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+/**
+ * Per-key admission state kept in a {@link RateLimitCounterStore}. {@link InMemoryApiRateLimiter} has one
+ * implementation per {@link com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.Algorithm}
+ * and {@link LeasedDynamoApiRateLimiter} keeps a {@link QuotaLease} per key; all of them work on epoch
+ * milliseconds and must be safe for concurrent use.
+ */
+interface RateLimitCounter {
+
+    /**
+     * Records a request at {@code nowMillis} and returns whether it fits within {@code limit} for the window.
+     */
+    default boolean tryAcquire(long limit, long windowMillis, long nowMillis) {
+        return tryAcquire(1, limit, windowMillis, nowMillis);
+    }
+
+    /**
+     * Records {@code permits} at {@code nowMillis} as one step: either all of them fit within {@code limit} for the
+     * window and are counted, or none are.
+     */
+    boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis);
+
+    /**
+     * Epoch millis from which the counter behaves exactly like a new one, i.e. it can be dropped without
+     * changing any future decision.
+     */
+    long expiresAt();
+
+    /**
+     * Gives back a permit admitted by {@link #tryAcquire(long, long, long)} at {@code nowMillis}. Has no effect once
+     * the window it was counted in has moved on.
+     */
+    default void release(long limit, long windowMillis, long nowMillis) {
+        release(1, limit, windowMillis, nowMillis);
+    }
+
+    /**
+     * Gives back {@code permits} admitted by {@link #tryAcquire(long, long, long, long)} at {@code nowMillis}.
+     */
+    void release(long permits, long limit, long windowMillis, long nowMillis);
+
+    /**
+     * Epoch millis from which a request denied at {@code nowMillis} could be admitted again.
+     */
+    long resetAt(long limit, long windowMillis, long nowMillis);
+
+    /**
+     * Permits counted against {@code limit} at {@code nowMillis}, read for metrics and the remaining count reported
+     * to clients; may be approximate, and -1 when the counter cannot tell without extra I/O.
+     */
+    default long used(long limit, long windowMillis, long nowMillis) {
+        return -1;
+    }
+
+    /**
+     * Tag under which {@link #snapshotState()} is written to a {@link RateLimitSnapshot}, or
+     * {@link RateLimitSnapshot#NOT_PERSISTED} for counters that are not carried across restarts.
+     */
+    default byte snapshotType() {
+        return RateLimitSnapshot.NOT_PERSISTED;
+    }
+
+    /**
+     * State needed to rebuild this counter after a restart, read back by {@link RateLimitSnapshot}.
+     */
+    default long[] snapshotState() {
+        return new long[0];
+    }
+
+    /**
+     * Called once after the counter has been dropped from its store.
+     */
+    default void onEvicted() {
+    }
+}
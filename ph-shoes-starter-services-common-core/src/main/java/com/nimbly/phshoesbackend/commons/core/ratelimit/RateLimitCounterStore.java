@@ -0,0 +1,201 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.OverflowPolicy;
+
+/**
+ * Bounded map of rate limit counters. Counters whose window has fully elapsed are dropped by a sweep that runs
+ * at most once per sweep interval, triggered from the request path but executed off it. Once {@code maxKeys}
+ * is reached, new keys are handled according to the {@link OverflowPolicy}. Counters can be written to and restored
+ * from a {@link RateLimitSnapshot}.
+ */
+final class RateLimitCounterStore {
+
+    /**
+     * Returned for untracked keys under {@link OverflowPolicy#FAIL_CLOSED}.
+     */
+    static final RateLimitCounter DENY_ALL = new RateLimitCounter() {
+        @Override
+        public boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis) {
+            return false;
+        }
+
+        @Override
+        public long expiresAt() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public void release(long permits, long limit, long windowMillis, long nowMillis) {
+        }
+
+        @Override
+        public long resetAt(long limit, long windowMillis, long nowMillis) {
+            return nowMillis + windowMillis;
+        }
+    };
+
+    private final Map<String, RateLimitCounter> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, RateLimitCounter> overflowCounters = new ConcurrentHashMap<>();
+
+    private final int maxKeys;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final long sweepIntervalMillis;
+
+    private final Executor sweepExecutor;
+
+    private final Function<String, String> overflowBucket;
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile long nextSweepAt;
+
+    private volatile RateLimitSnapshot pendingRestore;
+
+    RateLimitCounterStore(int maxKeys, OverflowPolicy overflowPolicy, long sweepIntervalMillis, Executor sweepExecutor) {
+        this(maxKeys, overflowPolicy, sweepIntervalMillis, sweepExecutor, key -> key);
+    }
+
+    /**
+     * @param overflowBucket maps an untracked key to the bucket it shares under {@link OverflowPolicy#SHARED}; keys
+     *                       counted against the same limit must map to the same bucket, and keys of different
+     *                       limits to different ones
+     */
+    RateLimitCounterStore(int maxKeys, OverflowPolicy overflowPolicy, long sweepIntervalMillis, Executor sweepExecutor,
+                          Function<String, String> overflowBucket) {
+        this.maxKeys = maxKeys;
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.FAIL_OPEN;
+        this.sweepIntervalMillis = Math.max(1, sweepIntervalMillis);
+        this.sweepExecutor = sweepExecutor;
+        this.overflowBucket = overflowBucket;
+    }
+
+    /**
+     * Returns the counter for {@code key}, creating it when absent, or {@code null} when the key cannot be
+     * tracked and the overflow policy is {@link OverflowPolicy#FAIL_OPEN}.
+     */
+    RateLimitCounter resolve(String key, Supplier<RateLimitCounter> factory, long nowMillis) {
+        scheduleSweep(nowMillis);
+        RateLimitCounter counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        if (maxKeys > 0 && counters.size() >= maxKeys) {
+            return switch (overflowPolicy) {
+                case FAIL_OPEN -> null;
+                case FAIL_CLOSED -> DENY_ALL;
+                case SHARED -> overflowCounters.computeIfAbsent(overflowBucket.apply(key), bucket -> factory.get());
+            };
+        }
+        return counters.computeIfAbsent(key, k -> restoreOrCreate(k, factory, nowMillis));
+    }
+
+    /**
+     * Copies the live counters of {@code snapshot} into the store on the sweep executor. Until the copy completes,
+     * keys seen for the first time are looked up in the snapshot before a new counter is created.
+     */
+    void restoreFrom(RateLimitSnapshot snapshot, long nowMillis) {
+        pendingRestore = snapshot;
+        Runnable restore = () -> {
+            try {
+                snapshot.forEach(nowMillis, (key, counter) -> {
+                    if (maxKeys <= 0 || counters.size() < maxKeys) {
+                        counters.putIfAbsent(key, counter);
+                    }
+                });
+            } finally {
+                pendingRestore = null;
+            }
+        };
+        try {
+            sweepExecutor.execute(restore);
+        } catch (RejectedExecutionException ex) {
+            restore.run();
+        }
+    }
+
+    boolean isRestoring() {
+        return pendingRestore != null;
+    }
+
+    /**
+     * Writes the tracked counters to {@code file}; see {@link RateLimitSnapshot#write}.
+     */
+    int writeSnapshot(Path file, int fingerprint, long nowMillis) throws IOException {
+        return RateLimitSnapshot.write(file, counters, fingerprint, nowMillis);
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Drops the tracked counters whose key matches, and every shared overflow bucket, so they are rebuilt on next use.
+     */
+    void dropMatching(Predicate<String> keys) {
+        counters.forEach((key, counter) -> {
+            if (keys.test(key) && counters.remove(key, counter)) {
+                counter.onEvicted();
+            }
+        });
+        overflowCounters.clear();
+    }
+
+    /**
+     * Drops every counter that has expired at {@code nowMillis}. A request racing with the removal may still
+     * update the dropped counter, so at most one in-flight request per evicted key goes uncounted.
+     */
+    void evictExpired(long nowMillis) {
+        counters.forEach((key, counter) -> {
+            if (counter.expiresAt() <= nowMillis && counters.remove(key, counter)) {
+                evictions.increment();
+                counter.onEvicted();
+            }
+        });
+        overflowCounters.values().removeIf(counter -> counter.expiresAt() <= nowMillis);
+    }
+
+    private RateLimitCounter restoreOrCreate(String key, Supplier<RateLimitCounter> factory, long nowMillis) {
+        RateLimitSnapshot snapshot = pendingRestore;
+        RateLimitCounter restored = snapshot != null ? snapshot.restore(key, nowMillis) : null;
+        return restored != null ? restored : factory.get();
+    }
+
+    private void scheduleSweep(long nowMillis) {
+        if (nowMillis < nextSweepAt || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        nextSweepAt = nowMillis + sweepIntervalMillis;
+        try {
+            sweepExecutor.execute(() -> {
+                try {
+                    evictExpired(nowMillis);
+                } finally {
+                    sweeping.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            sweeping.set(false);
+        }
+    }
+}
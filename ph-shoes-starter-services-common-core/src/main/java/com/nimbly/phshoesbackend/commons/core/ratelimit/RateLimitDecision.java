@@ -0,0 +1,101 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Outcome of {@link ApiRateLimiter#tryAcquire(RateLimitRequestContext)}. An admitted request is described by the
+ * scope with the fewest permits left when the counters report usage; otherwise it gets the shared
+ * {@link #allowed()} instance, which carries no limit metadata, or {@link #allowedTrackingOutcome()} when the
+ * request's outcome must be reported back. A denial describes the first limit that tripped.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class RateLimitDecision {
+
+    private static final RateLimitDecision ALLOWED = new RateLimitDecision(true, false, null, null, null, 0, -1, 0);
+
+    private static final RateLimitDecision ALLOWED_TRACKING_OUTCOME =
+            new RateLimitDecision(true, true, null, null, null, 0, -1, 0);
+
+    boolean allowed;
+
+    /**
+     * Whether the request falls under a limit on outcomes, so {@link ApiRateLimiter#recordOutcome} must be
+     * called once it completes.
+     */
+    boolean outcomeTracked;
+
+    /**
+     * Key family that tripped, or for an admitted request the one with the fewest permits left, e.g. "ip" or
+     * "route:signup".
+     */
+    String scope;
+
+    /**
+     * Counter key that tripped, e.g. "ip:10.0.0.1".
+     */
+    String key;
+
+    /**
+     * Route name for route scopes, otherwise the request path.
+     */
+    String route;
+
+    /**
+     * Configured limit of {@link #scope}; zero when unknown.
+     */
+    long limit;
+
+    /**
+     * Permits left in {@link #scope} after this request; -1 when unknown.
+     */
+    long remaining;
+
+    /**
+     * Epoch millis from which the tripped scope may admit again; zero when unknown.
+     */
+    long resetAtMillis;
+
+    public static RateLimitDecision allowed() {
+        return ALLOWED;
+    }
+
+    public static RateLimitDecision allowedTrackingOutcome() {
+        return ALLOWED_TRACKING_OUTCOME;
+    }
+
+    /**
+     * @param remaining permits left in {@code scope}, the checked scope with the fewest left
+     */
+    public static RateLimitDecision allowed(String scope, String key, String route, long limit, long remaining,
+                                            boolean outcomeTracked) {
+        return new RateLimitDecision(true, outcomeTracked, scope, key, route, limit, remaining, 0);
+    }
+
+    /**
+     * Denial of a request that left nothing in its scope.
+     */
+    public static RateLimitDecision denied(String scope, String key, String route, long limit, long resetAtMillis) {
+        return denied(scope, key, route, limit, 0, resetAtMillis);
+    }
+
+    /**
+     * @param remaining permits left in the scope, more than zero when a request costing more than that was denied
+     */
+    public static RateLimitDecision denied(String scope, String key, String route, long limit, long remaining,
+                                           long resetAtMillis) {
+        return new RateLimitDecision(false, false, scope, key, route, limit, remaining, resetAtMillis);
+    }
+
+    /**
+     * Whole seconds a client should wait before retrying, rounded up; zero when the reset time is unknown.
+     */
+    public long retryAfterSeconds(long nowMillis) {
+        if (resetAtMillis <= 0) {
+            return 0;
+        }
+        return Math.max(1, (resetAtMillis - nowMillis + 999) / 1000);
+    }
+}
@@ -0,0 +1,123 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Remembers denied keys until their reset time so repeat requests are rejected with one lookup, without touching
+ * (or counting against) any counter. Clients that keep sending requests while blocked are put in a penalty box:
+ * every {@code penaltyThreshold} rejected requests extend the block, doubling the penalty each time up to
+ * {@code maxPenaltyMillis}. A block is forgotten once it expires, so penalties start over on the next denial.
+ */
+final class RateLimitDenyCache {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    private final long penaltyThreshold;
+
+    private final long penaltyMillis;
+
+    private final long maxPenaltyMillis;
+
+    private volatile long nextSweepAt;
+
+    /**
+     * @param penaltyThreshold rejected requests per escalation; zero or less disables the penalty box
+     */
+    RateLimitDenyCache(int maxEntries, long penaltyThreshold, long penaltyMillis, long maxPenaltyMillis) {
+        this.maxEntries = maxEntries;
+        this.penaltyThreshold = penaltyThreshold;
+        this.penaltyMillis = Math.max(1, penaltyMillis);
+        this.maxPenaltyMillis = Math.max(this.penaltyMillis, maxPenaltyMillis);
+    }
+
+    /**
+     * Returns the cached denial for {@code key} if it is still blocked at {@code nowMillis}, counting the request
+     * towards the penalty box, otherwise {@code null}.
+     */
+    RateLimitDecision check(String key, long nowMillis) {
+        Block block = blocks.get(key);
+        if (block == null) {
+            return null;
+        }
+        if (nowMillis >= block.blockedUntil) {
+            blocks.remove(key, block);
+            return null;
+        }
+        if (penaltyThreshold > 0 && block.penalizable && block.strikes.incrementAndGet() % penaltyThreshold == 0) {
+            block.escalate(nowMillis, penaltyMillis, maxPenaltyMillis);
+        }
+        return block.decision;
+    }
+
+    /**
+     * Caches {@code decision} for its key until its reset time. Denials without a future reset time are not
+     * cached, nor are new keys while the cache is full of live blocks.
+     *
+     * @param penalizable whether the key belongs to a single client and may be put in the penalty box
+     */
+    void block(RateLimitDecision decision, boolean penalizable, long nowMillis) {
+        if (decision.getResetAtMillis() <= nowMillis) {
+            return;
+        }
+        if (maxEntries > 0 && blocks.size() >= maxEntries && !blocks.containsKey(decision.getKey())) {
+            if (nowMillis < nextSweepAt) {
+                return;
+            }
+            nextSweepAt = nowMillis + SWEEP_INTERVAL_MILLIS;
+            blocks.values().removeIf(block -> nowMillis >= block.blockedUntil);
+            if (blocks.size() >= maxEntries) {
+                return;
+            }
+        }
+        blocks.put(decision.getKey(), new Block(decision, penalizable));
+    }
+
+    /**
+     * Lifts the blocks of the matching keys.
+     */
+    void forget(Predicate<String> keys) {
+        blocks.keySet().removeIf(keys);
+    }
+
+    int size() {
+        return blocks.size();
+    }
+
+    private static final class Block {
+
+        private final boolean penalizable;
+
+        private final AtomicLong strikes = new AtomicLong();
+
+        private volatile RateLimitDecision decision;
+
+        private volatile long blockedUntil;
+
+        private int level;
+
+        private Block(RateLimitDecision decision, boolean penalizable) {
+            this.decision = decision;
+            this.blockedUntil = decision.getResetAtMillis();
+            this.penalizable = penalizable;
+        }
+
+        private synchronized void escalate(long nowMillis, long penaltyMillis, long maxPenaltyMillis) {
+            level++;
+            long penalty = Math.min(maxPenaltyMillis, penaltyMillis << Math.min(level - 1, 30));
+            long until = nowMillis + penalty;
+            if (until > blockedUntil) {
+                RateLimitDecision current = decision;
+                decision = RateLimitDecision.denied(current.getScope(), current.getKey(), current.getRoute(),
+                        current.getLimit(), until);
+                blockedUntil = until;
+            }
+        }
+    }
+}
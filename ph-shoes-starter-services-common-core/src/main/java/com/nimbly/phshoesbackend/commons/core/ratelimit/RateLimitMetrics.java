@@ -0,0 +1,48 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+/**
+ * Receives what an {@link AbstractApiRateLimiter} decides. Implementations must keep tag cardinality bounded: the
+ * scope and route names passed in come from configuration, never from users or addresses.
+ */
+public interface RateLimitMetrics {
+
+    /**
+     * Records nothing; limiters skip timing and usage reads altogether when they are given this instance.
+     */
+    RateLimitMetrics NOOP = new RateLimitMetrics() {
+    };
+
+    /**
+     * @param decision     outcome of {@link ApiRateLimiter#tryAcquire}
+     * @param route        configured route to tag the decision with: the tripped route when a route limit denied,
+     *                     otherwise the first route matching the request, or {@code null} when none matches
+     * @param latencyNanos time taken to reach the decision
+     */
+    default void recordDecision(RateLimitDecision decision, String route, long latencyNanos) {
+    }
+
+    /**
+     * Records how full a counter is right after admitting a request.
+     *
+     * @param scope key family of the counter, e.g. "ip" or "route:signup"
+     */
+    default void recordUsage(String scope, long used, long limit) {
+    }
+
+    /**
+     * Coarse kind of a scope: {@code route}, {@code failures}, {@code user}, {@code ip}, {@code global}, or
+     * {@code none} for decisions without one.
+     */
+    static String scopeType(String scope) {
+        if (scope == null) {
+            return "none";
+        }
+        if (scope.startsWith("route:")) {
+            return scope.endsWith(":failures") ? "failures" : "route";
+        }
+        return switch (scope) {
+            case "user", "ip", "global" -> scope;
+            default -> "none";
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+/**
+ * Which scopes {@link ApiRateLimiter#tryAcquire(RateLimitRequestContext)} checks, so the limits that only need the
+ * client address can reject floods before authentication and handler mapping run.
+ */
+public enum RateLimitPhase {
+
+    /**
+     * Every scope at once.
+     */
+    ALL,
+
+    /**
+     * Only the global and per-IP limits.
+     */
+    EARLY,
+
+    /**
+     * The per-user and route limits of a request that already passed {@link #EARLY}. If one of them denies, the
+     * permits taken in the early phase are given back as well.
+     */
+    LATE
+}
@@ -0,0 +1,177 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.LimitConfig;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.OutcomeLimit;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.Route;
+import com.nimbly.phshoesbackend.commons.core.path.PathPatternIndex;
+
+/**
+ * {@link ApiRateLimitProperties} compiled for the request path: limits are copied, windows resolved against the
+ * default window, routes indexed and their scopes and key prefixes built once. Nothing in it changes after
+ * {@link #compile}, so {@link AbstractApiRateLimiter} can swap in a new policy while requests are running and each
+ * request sees one configuration throughout.
+ */
+final class RateLimitPolicy {
+
+    static final String USER_KEY_PREFIX = "user:";
+
+    /**
+     * Per-user limit, or {@code null} when not configured; likewise for {@link #perIp} and {@link #global}.
+     */
+    final Limit perUser;
+
+    final Limit perIp;
+
+    final Limit global;
+
+    final IpLimitPolicy ipPolicy;
+
+    final PathPatternIndex<RoutePolicy> routes;
+
+    final PathPatternIndex<RoutePolicy> outcomeRoutes;
+
+    /**
+     * Every limit keyed by the counter keys it applies to: the key itself for global and route-wide limits, or the
+     * key prefix, ending in {@code ':'}, for per-user, per-IP and failure limits.
+     */
+    final Map<String, Limit> limitsByKey;
+
+    private RateLimitPolicy(Limit perUser, Limit perIp, Limit global, IpLimitPolicy ipPolicy,
+                            List<RoutePolicy> routes) {
+        this.perUser = perUser;
+        this.perIp = perIp;
+        this.global = global;
+        this.ipPolicy = ipPolicy;
+        this.routes = PathPatternIndex.of(routes, RoutePolicy::pattern);
+        this.outcomeRoutes = PathPatternIndex.of(routes.stream().filter(route -> route.failures() != null).toList(),
+                RoutePolicy::pattern);
+        Map<String, Limit> limits = new HashMap<>();
+        putLimit(limits, USER_KEY_PREFIX, perUser);
+        putLimit(limits, "ip:", perIp);
+        putLimit(limits, "global", global);
+        for (RoutePolicy route : routes) {
+            putLimit(limits, route.userKeyPrefix(), route.perUser());
+            putLimit(limits, route.scope(), route.global());
+            if (route.failures() != null) {
+                putLimit(limits, route.failureUserPrefix(), route.failures().limit());
+                putLimit(limits, route.failureIpPrefix() + "ip:", route.failures().limit());
+            }
+        }
+        this.limitsByKey = Map.copyOf(limits);
+    }
+
+    static RateLimitPolicy compile(ApiRateLimitProperties properties) {
+        Duration defaultWindow = properties.getDefaultWindow() != null ? properties.getDefaultWindow() : Duration.ofHours(24);
+        List<RoutePolicy> routes = properties.getRoutes() == null
+                ? List.of()
+                : properties.getRoutes().stream()
+                        .filter(route -> route.getPerUser() != null || route.getGlobal() != null || route.getCost() > 1)
+                        .map(route -> RoutePolicy.of(route, defaultWindow))
+                        .toList();
+        return new RateLimitPolicy(
+                Limit.of(properties.getPerUser(), defaultWindow),
+                Limit.of(properties.getPerIp(), defaultWindow),
+                Limit.of(properties.getGlobal(), defaultWindow),
+                new IpLimitPolicy(properties.getPerIp()),
+                routes);
+    }
+
+    private static void putLimit(Map<String, Limit> limits, String key, Limit limit) {
+        if (limit != null) {
+            limits.put(key, limit);
+        }
+    }
+
+    /**
+     * A configured limit with its window resolved. {@code config} is a private copy, handed to the counter
+     * backends, which read the limit and burst from it.
+     */
+    record Limit(LimitConfig config, long windowMillis) {
+
+        /**
+         * @return {@code null} when {@code source} is absent or has no positive limit
+         */
+        static Limit of(LimitConfig source, Duration defaultWindow) {
+            if (source == null || source.getLimit() <= 0) {
+                return null;
+            }
+            LimitConfig copy = new LimitConfig();
+            copy.setLimit(source.getLimit());
+            copy.setBurst(source.getBurst());
+            copy.setWindow(source.getWindow() != null ? source.getWindow() : defaultWindow);
+            return new Limit(copy, copy.getWindow().toMillis());
+        }
+
+        long limit() {
+            return config.getLimit();
+        }
+    }
+
+    /**
+     * Limit on failed requests to a route, with the statuses and exceptions that count as failures.
+     *
+     * @param statuses empty to count every 4xx response
+     */
+    record FailureLimit(Limit limit, int[] statuses, List<Class<? extends Throwable>> exceptions) {
+
+        static FailureLimit of(OutcomeLimit source, Duration defaultWindow) {
+            Limit limit = Limit.of(source, defaultWindow);
+            if (limit == null) {
+                return null;
+            }
+            int[] statuses = source.getStatuses() == null
+                    ? new int[0]
+                    : source.getStatuses().stream().mapToInt(Integer::intValue).toArray();
+            List<Class<? extends Throwable>> exceptions = source.getExceptions() == null
+                    ? List.of()
+                    : List.copyOf(source.getExceptions());
+            return new FailureLimit(limit, statuses, exceptions);
+        }
+
+        boolean isFailure(int status, Throwable error) {
+            if (error != null) {
+                for (Class<? extends Throwable> type : exceptions) {
+                    if (type.isInstance(error)) {
+                        return true;
+                    }
+                }
+            }
+            if (statuses.length == 0) {
+                return status >= 400 && status < 500;
+            }
+            for (int failureStatus : statuses) {
+                if (failureStatus == status) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param scope             key family of the route's limits, {@code route:<name>}
+     * @param userKeyPrefix     prefix of the route's per-user keys, completed with the user id
+     * @param failureScope      key family of the route's failure counters
+     * @param failureUserPrefix prefix of the route's per-user failure keys, completed with the user id
+     * @param failureIpPrefix   prefix of the route's per-IP failure keys, completed with the IP key
+     */
+    record RoutePolicy(String name, String pattern, long cost, Limit perUser, Limit global, FailureLimit failures,
+                       String scope, String userKeyPrefix, String failureScope, String failureUserPrefix,
+                       String failureIpPrefix) {
+
+        static RoutePolicy of(Route route, Duration defaultWindow) {
+            String scope = "route:" + route.getName();
+            String failureScope = scope + ":failures";
+            return new RoutePolicy(route.getName(), route.getPattern(), route.getCost(),
+                    Limit.of(route.getPerUser(), defaultWindow), Limit.of(route.getGlobal(), defaultWindow),
+                    route.getFailures() != null ? FailureLimit.of(route.getFailures(), defaultWindow) : null,
+                    scope, scope + ":user:", failureScope, failureScope + ":user:", failureScope + ":");
+        }
+    }
+}
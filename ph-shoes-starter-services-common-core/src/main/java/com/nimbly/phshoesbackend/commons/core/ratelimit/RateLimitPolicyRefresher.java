@@ -0,0 +1,75 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.env.Environment;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+
+/**
+ * Reloads the limits of an {@link AbstractApiRateLimiter} when Spring Cloud reports changed configuration, e.g. after
+ * {@code /actuator/refresh} or a config server push. The event is matched by name so Spring Cloud stays optional,
+ * and the properties are bound afresh from the {@link Environment} rather than read from the properties bean,
+ * whose rebinding may not have run yet. Other {@link ApiRateLimiter} implementations are left alone.
+ */
+public class RateLimitPolicyRefresher implements SmartApplicationListener {
+
+    static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitPolicyRefresher.class);
+
+    private final ApiRateLimiter limiter;
+
+    private final Environment environment;
+
+    private final String prefix;
+
+    public RateLimitPolicyRefresher(ApiRateLimiter limiter, Environment environment) {
+        this(limiter, environment, "phshoes.api.rate-limit");
+    }
+
+    RateLimitPolicyRefresher(ApiRateLimiter limiter, Environment environment, String prefix) {
+        this.limiter = Objects.requireNonNull(limiter, "limiter");
+        this.environment = Objects.requireNonNull(environment, "environment");
+        this.prefix = Objects.requireNonNull(prefix, "prefix");
+    }
+
+    @Override
+    public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        for (Class<?> type = eventType; type != null; type = type.getSuperclass()) {
+            if (ENVIRONMENT_CHANGE_EVENT.equals(type.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        refresh();
+    }
+
+    /**
+     * Binds the rate limit properties from the environment and applies them. Invalid configuration is logged and
+     * the current policy kept.
+     */
+    public void refresh() {
+        if (!(limiter instanceof AbstractApiRateLimiter reloadable)) {
+            return;
+        }
+        try {
+            ApiRateLimitProperties properties = Binder.get(environment)
+                    .bind(prefix, ApiRateLimitProperties.class)
+                    .orElseGet(ApiRateLimitProperties::new);
+            reloadable.reload(properties);
+            log.info("Reloaded rate limit policy");
+        } catch (RuntimeException ex) {
+            log.warn("Keeping current rate limit policy, configuration could not be applied: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates rate limit rejections per key. The first rejection of a key is logged as it happens; later ones are
+ * counted and summarised in one line per key per interval, written off the request path. At most {@code maxKeys}
+ * keys are counted individually, the rest are summarised together.
+ * <p>
+ * A summary is scheduled one interval after a rejection is counted and re-scheduled while keys are still tracked,
+ * so the last interval is written even when rejections stop. {@link #close()} writes whatever is still pending.
+ */
+public class RateLimitRejectionLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitRejectionLog.class);
+
+    private static final int DEFAULT_MAX_KEYS = 1000;
+
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    private final LongAdder untracked = new LongAdder();
+
+    private final long intervalMillis;
+
+    private final int maxKeys;
+
+    private final Executor flushExecutor;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    public RateLimitRejectionLog(Duration interval) {
+        this(interval, DEFAULT_MAX_KEYS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor executor that writes the periodic summaries
+     */
+    public RateLimitRejectionLog(Duration interval, int maxKeys, Executor executor) {
+        this.intervalMillis = Math.max(1, Objects.requireNonNull(interval, "interval").toMillis());
+        this.maxKeys = maxKeys;
+        this.flushExecutor = CompletableFuture.delayedExecutor(intervalMillis, TimeUnit.MILLISECONDS,
+                Objects.requireNonNull(executor, "executor"));
+    }
+
+    public void record(RateLimitDecision decision) {
+        String key = decision.getKey() != null ? decision.getKey() : "unknown";
+        LongAdder counter = rejections.get(key);
+        if (counter != null) {
+            counter.increment();
+        } else if (maxKeys > 0 && rejections.size() >= maxKeys) {
+            untracked.increment();
+        } else if (rejections.putIfAbsent(key, new LongAdder()) == null) {
+            log.warn("Request blocked by rate limiter: {} on {}", key, decision.getRoute());
+        } else {
+            rejections.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Writes the rejections counted since the last summary and stops scheduling new ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+    }
+
+    int trackedKeyCount() {
+        return rejections.size();
+    }
+
+    /**
+     * Rejections counted but not yet written in a summary.
+     */
+    long pendingCount() {
+        long pending = untracked.sum();
+        for (LongAdder counter : rejections.values()) {
+            pending += counter.sum();
+        }
+        return pending;
+    }
+
+    /**
+     * Logs the rejections counted since the previous flush. Keys without new rejections are forgotten, so their
+     * next rejection is logged immediately again.
+     */
+    void flush() {
+        rejections.forEach((key, counter) -> {
+            long count = counter.sumThenReset();
+            if (count > 0) {
+                log.warn("Rate limiter rejected {} more requests for {} in the last {}s", count, key,
+                        intervalMillis / 1000);
+            } else {
+                rejections.remove(key, counter);
+            }
+        });
+        long others = untracked.sumThenReset();
+        if (others > 0) {
+            log.warn("Rate limiter rejected {} requests for other keys in the last {}s", others, intervalMillis / 1000);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (closed || scheduled.get() || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushExecutor.execute(this::scheduledFlush);
+        } catch (RejectedExecutionException ex) {
+            scheduled.set(false);
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } finally {
+            scheduled.set(false);
+        }
+        if (!rejections.isEmpty() || untracked.sum() > 0) {
+            scheduleFlush();
+        }
+    }
+}
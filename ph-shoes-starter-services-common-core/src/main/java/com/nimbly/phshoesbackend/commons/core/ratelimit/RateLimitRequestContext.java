@@ -21,5 +21,16 @@ public class RateLimitRequestContext {
      * Authenticated user identifier, if available.
      */
     String userId;
+
+    /**
+     * Permits the request costs, overriding the cost of matching routes; zero or less uses the route cost.
+     */
+    long cost;
+
+    /**
+     * Scopes to check; defaults to all of them.
+     */
+    @Builder.Default
+    RateLimitPhase phase = RateLimitPhase.ALL;
 }
 
@@ -0,0 +1,273 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only, memory-mapped snapshot of in-memory rate limit counters, written by {@link #write} and opened on
+ * startup without reading the records, so opening costs the same for ten keys as for a million.
+ * <p>
+ * Layout: the records, one per key ({@code short} key length, UTF-8 key, {@code byte} type, {@code long} expiry,
+ * {@code int} state length, state longs), then an open-addressing table of {@code (hash << 32) | (offset + 1)}
+ * slots used by {@link #restore(String, long)}, then a fixed-size footer.
+ */
+final class RateLimitSnapshot {
+
+    static final byte NOT_PERSISTED = 0;
+
+    static final byte FIXED_WINDOW = 1;
+
+    static final byte SLIDING_WINDOW = 2;
+
+    static final byte SLIDING_LOG = 3;
+
+    static final byte GCRA = 4;
+
+    static final byte STRIPED_WINDOW = 5;
+
+    private static final int MAGIC = 0x5048524C;
+
+    private static final int VERSION = 1;
+
+    private static final int FOOTER_BYTES = 32;
+
+    private static final int MAX_KEY_BYTES = 0xFFFF;
+
+    /**
+     * Records stop being written past this offset so slot offsets always fit in an int.
+     */
+    private static final int MAX_RECORDS_BYTES = 1 << 30;
+
+    private final ByteBuffer buffer;
+
+    private final int slotTableOffset;
+
+    private final int slotCount;
+
+    private final int recordCount;
+
+    private RateLimitSnapshot(ByteBuffer buffer, int slotTableOffset, int slotCount, int recordCount) {
+        this.buffer = buffer;
+        this.slotTableOffset = slotTableOffset;
+        this.slotCount = slotCount;
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * Maps {@code file}, or returns {@code null} when it is missing, was written for another {@code fingerprint}
+     * or only holds windows that have expired by {@code nowMillis}.
+     *
+     * @param fingerprint identifies the counting configuration; counters written under another one are discarded
+     * @throws IOException when the file cannot be read or is not a snapshot
+     */
+    static RateLimitSnapshot open(Path file, int fingerprint, long nowMillis) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a rate limit snapshot: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int footer = buffer.capacity() - FOOTER_BYTES;
+        if (buffer.getInt(footer + 28) != MAGIC || buffer.getInt(footer + 24) != VERSION) {
+            throw new IOException("Not a rate limit snapshot: " + file);
+        }
+        int slotTableOffset = buffer.getInt(footer);
+        int slotCount = buffer.getInt(footer + 4);
+        int recordCount = buffer.getInt(footer + 8);
+        if (Integer.bitCount(slotCount) != 1 || slotTableOffset < 0 || (long) slotTableOffset + slotCount * 8L != footer) {
+            throw new IOException("Corrupt rate limit snapshot: " + file);
+        }
+        if (buffer.getInt(footer + 12) != fingerprint || buffer.getLong(footer + 16) <= nowMillis) {
+            return null;
+        }
+        return new RateLimitSnapshot(buffer, slotTableOffset, slotCount, recordCount);
+    }
+
+    /**
+     * Writes every persistable counter in {@code counters} whose window is still open at {@code nowMillis} to a
+     * temporary file next to {@code file}, forces it to disk and moves it over {@code file}.
+     *
+     * @return number of counters written
+     */
+    static int write(Path file, Map<String, RateLimitCounter> counters, int fingerprint, long nowMillis) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] entries = new long[Math.max(16, counters.size())];
+        int count = 0;
+        long maxExpiresAt = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            for (Map.Entry<String, RateLimitCounter> entry : counters.entrySet()) {
+                RateLimitCounter counter = entry.getValue();
+                long expiresAt = counter.expiresAt();
+                byte type = counter.snapshotType();
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                if (type == NOT_PERSISTED || expiresAt <= nowMillis || key.length > MAX_KEY_BYTES) {
+                    continue;
+                }
+                if (out.size() >= MAX_RECORDS_BYTES) {
+                    break;
+                }
+                if (count == entries.length) {
+                    entries = Arrays.copyOf(entries, count * 2);
+                }
+                entries[count++] = ((long) hash(entry.getKey()) << 32) | (out.size() + 1L);
+                long[] state = counter.snapshotState();
+                out.writeShort(key.length);
+                out.write(key);
+                out.writeByte(type);
+                out.writeLong(expiresAt);
+                out.writeInt(state.length);
+                for (long value : state) {
+                    out.writeLong(value);
+                }
+                maxExpiresAt = Math.max(maxExpiresAt, expiresAt);
+            }
+            int slotTableOffset = out.size();
+            long[] slots = new long[slotCountFor(count)];
+            int mask = slots.length - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = (int) (entries[i] >>> 32) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entries[i];
+            }
+            for (long slot : slots) {
+                out.writeLong(slot);
+            }
+            out.writeInt(slotTableOffset);
+            out.writeInt(slots.length);
+            out.writeInt(count);
+            out.writeInt(fingerprint);
+            out.writeLong(maxExpiresAt);
+            out.writeInt(VERSION);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return count;
+    }
+
+    int size() {
+        return recordCount;
+    }
+
+    /**
+     * Rebuilds the counter stored for {@code key}, or returns {@code null} when there is none or its window has
+     * expired by {@code nowMillis}. Safe for concurrent use.
+     */
+    RateLimitCounter restore(String key, long nowMillis) {
+        int hash = hash(key);
+        int mask = slotCount - 1;
+        byte[] keyBytes = null;
+        int slot = hash & mask;
+        for (int probes = 0; probes < slotCount; probes++) {
+            long entry = buffer.getLong(slotTableOffset + slot * 8);
+            if (entry == 0) {
+                return null;
+            }
+            if ((int) (entry >>> 32) == hash) {
+                if (keyBytes == null) {
+                    keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                }
+                int offset = (int) entry - 1;
+                if (keyEquals(offset, keyBytes)) {
+                    return readCounter(offset + 2 + keyBytes.length, nowMillis);
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Passes every counter whose window is still open at {@code nowMillis} to {@code action}, in file order.
+     */
+    void forEach(long nowMillis, BiConsumer<String, RateLimitCounter> action) {
+        int offset = 0;
+        for (int i = 0; i < recordCount; i++) {
+            int keyLength = buffer.getShort(offset) & 0xFFFF;
+            byte[] key = new byte[keyLength];
+            buffer.get(offset + 2, key);
+            int recordStart = offset + 2 + keyLength;
+            RateLimitCounter counter = readCounter(recordStart, nowMillis);
+            if (counter != null) {
+                action.accept(new String(key, StandardCharsets.UTF_8), counter);
+            }
+            offset = recordStart + 13 + buffer.getInt(recordStart + 9) * 8;
+        }
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if ((buffer.getShort(offset) & 0xFFFF) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + 2 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private RateLimitCounter readCounter(int offset, long nowMillis) {
+        byte type = buffer.get(offset);
+        if (buffer.getLong(offset + 1) <= nowMillis) {
+            return null;
+        }
+        long[] state = new long[buffer.getInt(offset + 9)];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = buffer.getLong(offset + 13 + i * 8);
+        }
+        return switch (type) {
+            case FIXED_WINDOW -> FixedWindowCounter.restore(state);
+            case SLIDING_WINDOW -> SlidingWindowCounter.restore(state);
+            case SLIDING_LOG -> SlidingLogCounter.restore(state);
+            case GCRA -> GcraCounter.restore(state);
+            case STRIPED_WINDOW -> StripedWindowCounter.restore(state);
+            default -> null;
+        };
+    }
+
+    /**
+     * {@link String#hashCode()} is specified, so the hash is stable across JVMs; the spread keeps the high bits
+     * in play for small tables.
+     */
+    private static int hash(String key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int slotCountFor(int count) {
+        int slots = Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1;
+        return Math.max(2, slots);
+    }
+}
@@ -0,0 +1,127 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.Arrays;
+
+/**
+ * Exact trailing window backed by a ring buffer of admitted request timestamps. The buffer grows on demand but
+ * never beyond the limit it was created for, so memory per key is bounded by
+ * {@code phshoes.api.rate-limit.sliding-log-max-entries}.
+ */
+final class SlidingLogCounter implements RateLimitCounter {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] log;
+
+    private int head;
+
+    private int size;
+
+    private volatile long expiresAt;
+
+    SlidingLogCounter(long limit) {
+        this.log = new long[(int) Math.max(1, Math.min(limit, INITIAL_CAPACITY))];
+    }
+
+    /**
+     * Rebuilds a counter from {@link #snapshotState()}: the expiry followed by the logged timestamps, oldest first.
+     */
+    static SlidingLogCounter restore(long[] state) {
+        SlidingLogCounter counter = new SlidingLogCounter(1);
+        if (state.length > 1) {
+            counter.log = Arrays.copyOfRange(state, 1, state.length);
+        }
+        counter.size = state.length - 1;
+        counter.expiresAt = state[0];
+        return counter;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis) {
+        long cutoff = nowMillis - windowMillis;
+        while (size > 0 && log[head] <= cutoff) {
+            head = (head + 1) % log.length;
+            size--;
+        }
+        if (size + permits > limit) {
+            return false;
+        }
+        if (size + permits > log.length) {
+            grow((int) Math.min(limit, Math.max(size + permits, (long) log.length * 2)));
+        }
+        for (long i = 0; i < permits; i++) {
+            log[(head + size) % log.length] = nowMillis;
+            size++;
+        }
+        expiresAt = nowMillis + windowMillis;
+        return true;
+    }
+
+    @Override
+    public long expiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Removes the newest {@code permits} entries recorded at {@code nowMillis}; entries admitted after them shift
+     * down.
+     */
+    @Override
+    public synchronized void release(long permits, long limit, long windowMillis, long nowMillis) {
+        int end = size;
+        while (end > 0 && log[(head + end - 1) % log.length] > nowMillis) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && end - start < permits && log[(head + start - 1) % log.length] == nowMillis) {
+            start--;
+        }
+        int removed = end - start;
+        if (removed == 0) {
+            return;
+        }
+        for (int j = start; j < size - removed; j++) {
+            log[(head + j) % log.length] = log[(head + j + removed) % log.length];
+        }
+        size -= removed;
+    }
+
+    @Override
+    public synchronized long resetAt(long limit, long windowMillis, long nowMillis) {
+        return size > 0 ? log[head] + windowMillis : nowMillis;
+    }
+
+    @Override
+    public synchronized long used(long limit, long windowMillis, long nowMillis) {
+        long cutoff = nowMillis - windowMillis;
+        int expired = 0;
+        while (expired < size && log[(head + expired) % log.length] <= cutoff) {
+            expired++;
+        }
+        return size - expired;
+    }
+
+    @Override
+    public byte snapshotType() {
+        return RateLimitSnapshot.SLIDING_LOG;
+    }
+
+    @Override
+    public synchronized long[] snapshotState() {
+        long[] state = new long[size + 1];
+        state[0] = expiresAt;
+        for (int i = 0; i < size; i++) {
+            state[i + 1] = log[(head + i) % log.length];
+        }
+        return state;
+    }
+
+    private void grow(int capacity) {
+        long[] grown = new long[capacity];
+        for (int i = 0; i < size; i++) {
+            grown[i] = log[(head + i) % log.length];
+        }
+        log = grown;
+        head = 0;
+    }
+}
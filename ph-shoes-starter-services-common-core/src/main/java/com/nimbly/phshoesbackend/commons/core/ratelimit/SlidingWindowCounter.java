@@ -0,0 +1,97 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+/**
+ * Approximates a trailing window with two aligned buckets: the previous bucket's count is weighted by how much
+ * of it still overlaps the trailing window and added to the current bucket. Keeps the memory footprint of a
+ * fixed window while removing the double-burst at bucket boundaries.
+ */
+final class SlidingWindowCounter implements RateLimitCounter {
+
+    private long bucketStart;
+
+    private long previous;
+
+    private long current;
+
+    private volatile long expiresAt;
+
+    SlidingWindowCounter() {
+    }
+
+    /**
+     * Rebuilds a counter from {@link #snapshotState()}.
+     */
+    static SlidingWindowCounter restore(long[] state) {
+        SlidingWindowCounter counter = new SlidingWindowCounter();
+        counter.bucketStart = state[0];
+        counter.previous = state[1];
+        counter.current = state[2];
+        counter.expiresAt = state[3];
+        return counter;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis) {
+        roll(windowMillis, nowMillis);
+        long remainingOverlap = windowMillis - (nowMillis - bucketStart);
+        long estimate = previous * remainingOverlap / windowMillis + current;
+        if (estimate + permits > limit) {
+            return false;
+        }
+        current += permits;
+        expiresAt = bucketStart + 2 * windowMillis;
+        return true;
+    }
+
+    @Override
+    public long expiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public synchronized void release(long permits, long limit, long windowMillis, long nowMillis) {
+        if (bucketStart == nowMillis - Math.floorMod(nowMillis, windowMillis)) {
+            current = Math.max(0, current - permits);
+        }
+    }
+
+    /**
+     * Solves the estimate for the first instant it drops below the limit within the current bucket; when the
+     * current bucket alone is full, the next bucket boundary.
+     */
+    @Override
+    public synchronized long resetAt(long limit, long windowMillis, long nowMillis) {
+        roll(windowMillis, nowMillis);
+        if (current >= limit || previous == 0) {
+            return bucketStart + windowMillis;
+        }
+        long maxOverlap = ((limit - current) * windowMillis + previous - 1) / previous - 1;
+        return Math.max(nowMillis, bucketStart + windowMillis - maxOverlap);
+    }
+
+    @Override
+    public synchronized long used(long limit, long windowMillis, long nowMillis) {
+        roll(windowMillis, nowMillis);
+        return previous * (windowMillis - (nowMillis - bucketStart)) / windowMillis + current;
+    }
+
+    @Override
+    public byte snapshotType() {
+        return RateLimitSnapshot.SLIDING_WINDOW;
+    }
+
+    @Override
+    public synchronized long[] snapshotState() {
+        return new long[] {bucketStart, previous, current, expiresAt};
+    }
+
+    private void roll(long windowMillis, long nowMillis) {
+        long start = nowMillis - Math.floorMod(nowMillis, windowMillis);
+        if (start == bucketStart) {
+            return;
+        }
+        previous = start - bucketStart == windowMillis ? current : 0;
+        current = 0;
+        bucketStart = start;
+    }
+}
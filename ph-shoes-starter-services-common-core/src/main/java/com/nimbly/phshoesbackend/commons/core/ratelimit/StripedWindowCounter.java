@@ -0,0 +1,142 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Epoch-aligned fixed window for keys shared by every caller, such as the global limit. Admissions go to a
+ * {@link LongAdder}, so threads do not contend on one cache line; the limit is checked against a sum refreshed at
+ * most once per sync interval, and against the live sum once the count is within {@code slack} of the limit.
+ * <p>
+ * Far from the limit a window may therefore admit up to the requests of one sync interval beyond what it would
+ * exactly, and near it racing threads may each take the last permit.
+ */
+final class StripedWindowCounter implements RateLimitCounter {
+
+    private final long syncIntervalMillis;
+
+    private final double slack;
+
+    private volatile Window window = new Window(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    /**
+     * @param slack share of the limit below it from which every request reads the live sum
+     */
+    StripedWindowCounter(long syncIntervalMillis, double slack) {
+        this.syncIntervalMillis = Math.max(0, syncIntervalMillis);
+        this.slack = Math.max(0, slack);
+    }
+
+    /**
+     * Rebuilds a counter from {@link #snapshotState()}.
+     */
+    static StripedWindowCounter restore(long[] state) {
+        StripedWindowCounter counter = new StripedWindowCounter(state[0], Double.longBitsToDouble(state[1]));
+        Window window = new Window(state[2], state[3]);
+        window.hits.add(state[4]);
+        window.syncedCount = state[4];
+        counter.window = window;
+        return counter;
+    }
+
+    @Override
+    public boolean tryAcquire(long permits, long limit, long windowMillis, long nowMillis) {
+        Window current = current(windowMillis, nowMillis);
+        long count;
+        if (nowMillis >= current.nextSyncAt) {
+            count = current.sync(nowMillis, syncIntervalMillis);
+        } else {
+            count = current.syncedCount;
+            if (count + permits > limit - (long) (limit * slack)) {
+                count = current.hits.sum();
+            }
+        }
+        if (count + permits > limit) {
+            return false;
+        }
+        current.hits.add(permits);
+        return true;
+    }
+
+    @Override
+    public void release(long permits, long limit, long windowMillis, long nowMillis) {
+        Window current = window;
+        if (nowMillis >= current.start && nowMillis < current.end) {
+            current.hits.add(-permits);
+        }
+    }
+
+    @Override
+    public long expiresAt() {
+        return window.end;
+    }
+
+    @Override
+    public long resetAt(long limit, long windowMillis, long nowMillis) {
+        return window.end;
+    }
+
+    /**
+     * The last synced sum, so reading it does not touch the cells.
+     */
+    @Override
+    public long used(long limit, long windowMillis, long nowMillis) {
+        Window current = window;
+        return nowMillis >= current.start && nowMillis < current.end ? current.syncedCount : 0;
+    }
+
+    @Override
+    public byte snapshotType() {
+        return RateLimitSnapshot.STRIPED_WINDOW;
+    }
+
+    @Override
+    public long[] snapshotState() {
+        Window current = window;
+        return new long[] {syncIntervalMillis, Double.doubleToLongBits(slack), current.start, current.end, current.hits.sum()};
+    }
+
+    private Window current(long windowMillis, long nowMillis) {
+        Window current = window;
+        if (nowMillis < current.end) {
+            return current;
+        }
+        synchronized (this) {
+            current = window;
+            if (nowMillis >= current.end) {
+                long start = nowMillis - Math.floorMod(nowMillis, windowMillis);
+                current = new Window(start, start + windowMillis);
+                window = current;
+            }
+            return current;
+        }
+    }
+
+    private static final class Window {
+
+        final long start;
+
+        final long end;
+
+        final LongAdder hits = new LongAdder();
+
+        volatile long syncedCount;
+
+        volatile long nextSyncAt;
+
+        Window(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Refreshes the shared count. Threads racing past the deadline may each sum; the results only differ by
+         * admissions made in between.
+         */
+        long sync(long nowMillis, long syncIntervalMillis) {
+            long count = hits.sum();
+            syncedCount = count;
+            nextSyncAt = nowMillis + syncIntervalMillis;
+            return count;
+        }
+    }
+}
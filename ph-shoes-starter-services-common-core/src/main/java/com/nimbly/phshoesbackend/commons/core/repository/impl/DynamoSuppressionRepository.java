@@ -1,6 +1,5 @@
 package com.nimbly.phshoesbackend.commons.core.repository.impl;
 
-import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -8,6 +7,7 @@ import java.util.Objects;
 import com.nimbly.phshoesbackend.commons.core.config.SuppressionProperties;
 import com.nimbly.phshoesbackend.commons.core.model.SuppressionEntry;
 import com.nimbly.phshoesbackend.commons.core.repository.SuppressionRepository;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
@@ -20,11 +20,19 @@ public class DynamoSuppressionRepository implements SuppressionRepository {
 
     private final DynamoDbClient dynamoDbClient;
     private final SuppressionProperties properties;
+    private final EpochClock clock;
 
     public DynamoSuppressionRepository(DynamoDbClient dynamoDbClient,
                                        SuppressionProperties properties) {
+        this(dynamoDbClient, properties, EpochClock.system());
+    }
+
+    public DynamoSuppressionRepository(DynamoDbClient dynamoDbClient,
+                                       SuppressionProperties properties,
+                                       EpochClock clock) {
         this.dynamoDbClient = Objects.requireNonNull(dynamoDbClient, "dynamoDbClient");
         this.properties = Objects.requireNonNull(properties, "properties");
+        this.clock = Objects.requireNonNull(clock, "clock");
     }
 
     @Override
@@ -40,8 +48,10 @@ public class DynamoSuppressionRepository implements SuppressionRepository {
         put(item, properties.getSourceAttribute(), entry.getSource());
         put(item, properties.getNotesAttribute(), entry.getNotes());
 
-        Instant createdAt = entry.getCreatedAt() != null ? entry.getCreatedAt() : Instant.now();
-        put(item, properties.getCreatedAtAttribute(), createdAt.getEpochSecond());
+        long createdAt = entry.getCreatedAt() != null
+                ? entry.getCreatedAt().getEpochSecond()
+                : clock.currentTimeMillis() / 1000;
+        put(item, properties.getCreatedAtAttribute(), createdAt);
         if (entry.getUpdatedAt() != null) {
             put(item, properties.getUpdatedAtAttribute(), entry.getUpdatedAt().getEpochSecond());
         }
@@ -75,7 +85,7 @@ public class DynamoSuppressionRepository implements SuppressionRepository {
             return true;
         }
         long expiresAt = Long.parseLong(ttl.n());
-        return expiresAt <= 0 || expiresAt > Instant.now().getEpochSecond();
+        return expiresAt <= 0 || expiresAt > clock.currentTimeMillis() / 1000;
     }
 
     @Override
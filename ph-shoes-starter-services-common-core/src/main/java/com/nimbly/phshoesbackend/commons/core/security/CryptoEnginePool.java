@@ -0,0 +1,52 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import java.security.GeneralSecurityException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of {@link javax.crypto.Mac} or {@link javax.crypto.Cipher} instances, so provider lookup and key
+ * setup are paid once per engine instead of once per call.
+ * <p>
+ * Engines are borrowed for the duration of one call rather than bound to a thread: a {@code ThreadLocal} would
+ * create one engine per virtual thread and never reuse it. {@link #borrow()} never blocks; when the pool is empty a
+ * new engine is created, and engines released into a full pool are dropped.
+ */
+final class CryptoEnginePool<T> {
+
+    @FunctionalInterface
+    interface EngineFactory<T> {
+
+        T create() throws GeneralSecurityException;
+    }
+
+    private final ArrayBlockingQueue<T> idle;
+
+    private final EngineFactory<T> factory;
+
+    CryptoEnginePool(int capacity, EngineFactory<T> factory) {
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.factory = Objects.requireNonNull(factory, "factory");
+    }
+
+    static int defaultCapacity() {
+        return Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    T borrow() throws GeneralSecurityException {
+        T engine = idle.poll();
+        return engine != null ? engine : factory.create();
+    }
+
+    /**
+     * Returns an engine after a call that completed normally. Engines left in an unknown state by an exception
+     * should not be released.
+     */
+    void release(T engine) {
+        idle.offer(engine);
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+}
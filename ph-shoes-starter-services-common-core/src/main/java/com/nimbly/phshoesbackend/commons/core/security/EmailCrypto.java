@@ -8,7 +8,9 @@ import java.security.SecureRandom;
 import java.text.Normalizer;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -29,40 +31,67 @@ import com.nimbly.phshoesbackend.commons.core.config.EmailSecurityProperties;
  * <p>
  * Hashing uses HMAC-SHA256 with a project-wide pepper so the resulting hashes are stable but not reversible.
  * Encryption uses AES/GCM with a symmetric key so plain-text email addresses can be stored securely when necessary.
+ * <p>
+ * {@link Mac} and {@link Cipher} instances are pooled and reused across calls; HMAC engines are keyed once when
+ * created. Instances are safe to share between threads, virtual threads included.
+ * <p>
+ * The {@code byte[]} and {@link ByteBuffer} overloads work on UTF-8 addresses and raw (not Base64) payloads, writing
+ * into caller-provided buffers so high-volume callers can reuse them. An encrypted payload is the 12-byte IV followed
+ * by the GCM ciphertext and tag, the same bytes the {@code String} methods Base64-encode.
  */
 public class EmailCrypto {
 
+    /**
+     * Length of a raw email hash, before Base64 encoding.
+     */
+    public static final int HASH_LENGTH = 32;
+
     private static final SecureRandom RANDOM = new SecureRandom();
     private static final int GCM_TAG_BITS = 128;
     private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BYTES = GCM_TAG_BITS / 8;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String AES_TRANSFORMATION = "AES/GCM/NoPadding";
 
-    private final SecretKeySpec hmacKey;
     private final SecretKeySpec aesKey;
-    private final List<SecretKeySpec> legacyHmacKeys;
+    private final CryptoEnginePool<Mac> hmacEngines;
+    private final List<CryptoEnginePool<Mac>> legacyHmacEngines;
+    private final CryptoEnginePool<AesEngine> aesEngines;
+    private final EmailHashCache hashCache;
 
     public EmailCrypto(EmailSecurityProperties properties) {
         Objects.requireNonNull(properties, "EmailSecurityProperties must not be null");
-        this.hmacKey = toKey(properties.getHmacPepperB64(), "HMAC pepper");
+        int capacity = CryptoEnginePool.defaultCapacity();
+        this.hmacEngines = hmacPool(toKey(properties.getHmacPepperB64(), "HMAC pepper"), capacity);
         this.aesKey = toKey(properties.getAesKeyB64(), "AES key");
-        this.legacyHmacKeys = properties.getLegacyPeppersB64() == null
+        this.aesEngines = new CryptoEnginePool<>(capacity, AesEngine::new);
+        this.legacyHmacEngines = properties.getLegacyPeppersB64() == null
                 ? List.of()
                 : properties.getLegacyPeppersB64().stream()
-                .map(p -> toKey(p, "legacy pepper"))
+                .map(p -> hmacPool(toKey(p, "legacy pepper"), capacity))
                 .toList();
+        EmailSecurityProperties.HashCache cache = properties.getHashCache();
+        this.hashCache = cache != null && cache.isEnabled()
+                ? new EmailHashCache(cache.getMaxEntries(), cache.getTtl())
+                : null;
+    }
+
+    /**
+     * Cache behind {@link #hash(String)} and {@link #hashCandidates}, or {@code null} when it is disabled.
+     */
+    public EmailHashCache getHashCache() {
+        return hashCache;
     }
 
     public String normalize(String email) {
         if (!StringUtils.hasText(email)) {
             return null;
         }
-        String trimmed = Normalizer.normalize(email.trim(), Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
-        int at = trimmed.indexOf('@');
-        if (at < 0) {
-            return trimmed;
+        String ascii = normalizeAscii(email);
+        if (ascii != null) {
+            return ascii;
         }
-        String local = trimmed.substring(0, at);
-        String domain = trimmed.substring(at + 1);
-        return local + "@" + domain;
+        return Normalizer.normalize(email.trim(), Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
     }
 
     public List<String> hashCandidates(String normalizedEmail) {
@@ -73,22 +102,34 @@ public class EmailCrypto {
         if (!StringUtils.hasText(normalized)) {
             return List.of();
         }
+        return hashCache != null
+                ? hashCache.hashCandidates(normalized, this::computeHashCandidates)
+                : computeHashCandidates(normalized);
+    }
+
+    public String hash(String normalizedEmail) {
+        if (!StringUtils.hasText(normalizedEmail)) {
+            return null;
+        }
+        return hashCache != null ? hashCache.hash(normalizedEmail, this::computeHash) : computeHash(normalizedEmail);
+    }
+
+    private List<String> computeHashCandidates(String normalized) {
         Set<String> candidates = new LinkedHashSet<>();
         candidates.add(normalized);
         candidates.addAll(variations(normalized));
-        List<String> hashes = new ArrayList<>();
+        List<String> hashes = new ArrayList<>(candidates.size());
+        Mac mac = borrowMac(hmacEngines);
         for (String candidate : candidates) {
-            hashes.add(hash(candidate));
+            hashes.add(encodeHash(mac.doFinal(candidate.getBytes(StandardCharsets.UTF_8))));
         }
-        return hashes;
+        hmacEngines.release(mac);
+        return Collections.unmodifiableList(hashes);
     }
 
-    public String hash(String normalizedEmail) {
-        if (!StringUtils.hasText(normalizedEmail)) {
-            return null;
-        }
+    private String computeHash(String normalizedEmail) {
         byte[] bytes = normalizedEmail.getBytes(StandardCharsets.UTF_8);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(bytes, hmacKey));
+        return encodeHash(hmac(bytes, hmacEngines));
     }
 
     public boolean matchesLegacyHash(String emailHash, String emailPlain) {
@@ -97,11 +138,8 @@ public class EmailCrypto {
         }
         String normalized = normalize(emailPlain);
         byte[] bytes = normalized == null ? new byte[0] : normalized.getBytes(StandardCharsets.UTF_8);
-        for (SecretKeySpec key : legacyHmacKeys) {
-            if (key == null) {
-                continue;
-            }
-            String candidate = Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(bytes, key));
+        for (CryptoEnginePool<Mac> engines : legacyHmacEngines) {
+            String candidate = encodeHash(hmac(bytes, engines));
             if (emailHash.equals(candidate)) {
                 return true;
             }
@@ -113,41 +151,165 @@ public class EmailCrypto {
         if (!StringUtils.hasText(normalizedEmail)) {
             return null;
         }
+        byte[] plaintext = normalizedEmail.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[encryptedLength(plaintext.length)];
+        encrypt(plaintext, 0, plaintext.length, payload, 0);
+        return Base64.getEncoder().encodeToString(payload);
+    }
+
+    public String decrypt(String encrypted) {
+        if (!StringUtils.hasText(encrypted)) {
+            return null;
+        }
+        byte[] payload = Base64.getDecoder().decode(encrypted);
+        int length = decrypt(payload, 0, payload.length, payload, 0);
+        return new String(payload, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Size of the payload {@link #encrypt(byte[], int, int, byte[], int)} writes for a plaintext of this length.
+     */
+    public static int encryptedLength(int plaintextLength) {
+        return GCM_IV_BYTES + plaintextLength + GCM_TAG_BYTES;
+    }
+
+    /**
+     * Size of the plaintext held by an encrypted payload of this length.
+     */
+    public static int decryptedLength(int encryptedLength) {
+        return Math.max(0, encryptedLength - GCM_IV_BYTES - GCM_TAG_BYTES);
+    }
+
+    /**
+     * Writes the {@link #HASH_LENGTH}-byte hash of a UTF-8 normalized address to {@code output}.
+     *
+     * @return bytes written
+     */
+    public int hash(byte[] normalizedEmail, int offset, int length, byte[] output, int outputOffset) {
+        Objects.checkFromIndexSize(offset, length, normalizedEmail.length);
+        checkOutput(output.length - outputOffset, HASH_LENGTH);
+        Mac mac = borrowMac(hmacEngines);
+        try {
+            mac.update(normalizedEmail, offset, length);
+            mac.doFinal(output, outputOffset);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute email hash", e);
+        }
+        hmacEngines.release(mac);
+        return HASH_LENGTH;
+    }
+
+    /**
+     * Hashes the remaining bytes of {@code normalizedEmail} into {@code output}, advancing both buffers.
+     *
+     * @return bytes written
+     */
+    public int hash(ByteBuffer normalizedEmail, ByteBuffer output) {
+        checkOutput(output.remaining(), HASH_LENGTH);
+        Mac mac = borrowMac(hmacEngines);
+        mac.update(normalizedEmail);
+        if (output.hasArray()) {
+            try {
+                mac.doFinal(output.array(), output.arrayOffset() + output.position());
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to compute email hash", e);
+            }
+            output.position(output.position() + HASH_LENGTH);
+        } else {
+            output.put(mac.doFinal());
+        }
+        hmacEngines.release(mac);
+        return HASH_LENGTH;
+    }
+
+    /**
+     * Encrypts a UTF-8 address into {@code output}, which needs {@link #encryptedLength} bytes. To encrypt in place,
+     * place the plaintext at {@code outputOffset + 12} of the same array.
+     *
+     * @return bytes written
+     */
+    public int encrypt(byte[] normalizedEmail, int offset, int length, byte[] output, int outputOffset) {
+        Objects.checkFromIndexSize(offset, length, normalizedEmail.length);
+        checkOutput(output.length - outputOffset, encryptedLength(length));
         try {
-            byte[] iv = new byte[GCM_IV_BYTES];
-            RANDOM.nextBytes(iv);
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
-            byte[] ciphertext = cipher.doFinal(normalizedEmail.getBytes(StandardCharsets.UTF_8));
-            ByteBuffer buffer = ByteBuffer.allocate(iv.length + ciphertext.length);
-            buffer.put(iv);
-            buffer.put(ciphertext);
-            return Base64.getEncoder().encodeToString(buffer.array());
+            AesEngine engine = aesEngines.borrow();
+            int written = engine.encrypt(aesKey, normalizedEmail, offset, length, output, outputOffset);
+            aesEngines.release(engine);
+            return written;
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException("Failed to encrypt email address", e);
         }
     }
 
-    public String decrypt(String encrypted) {
-        if (!StringUtils.hasText(encrypted)) {
-            return null;
+    /**
+     * Encrypts the remaining bytes of {@code normalizedEmail} into {@code output}, advancing both buffers. The two
+     * buffers must not be the same object.
+     *
+     * @return bytes written
+     */
+    public int encrypt(ByteBuffer normalizedEmail, ByteBuffer output) {
+        checkOutput(output.remaining(), encryptedLength(normalizedEmail.remaining()));
+        try {
+            AesEngine engine = aesEngines.borrow();
+            RANDOM.nextBytes(engine.iv);
+            output.put(engine.iv);
+            engine.cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_BITS, engine.iv));
+            int written = GCM_IV_BYTES + engine.cipher.doFinal(normalizedEmail, output);
+            aesEngines.release(engine);
+            return written;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt email address", e);
         }
+    }
+
+    /**
+     * Decrypts a raw payload into {@code output}, which needs {@link #decryptedLength} bytes. The output may overlap
+     * the payload, so {@code decrypt(payload, 0, n, payload, 0)} decrypts in place.
+     *
+     * @return plaintext bytes written
+     */
+    public int decrypt(byte[] encrypted, int offset, int length, byte[] output, int outputOffset) {
+        Objects.checkFromIndexSize(offset, length, encrypted.length);
+        checkPayload(length);
+        checkOutput(output.length - outputOffset, decryptedLength(length));
         try {
-            byte[] payload = Base64.getDecoder().decode(encrypted);
-            ByteBuffer buffer = ByteBuffer.wrap(payload);
-            byte[] iv = new byte[GCM_IV_BYTES];
-            buffer.get(iv);
-            byte[] ciphertext = new byte[buffer.remaining()];
-            buffer.get(ciphertext);
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
-            byte[] plaintext = cipher.doFinal(ciphertext);
-            return new String(plaintext, StandardCharsets.UTF_8);
+            AesEngine engine = aesEngines.borrow();
+            int written = engine.decrypt(aesKey, encrypted, offset, length, output, outputOffset);
+            aesEngines.release(engine);
+            return written;
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException("Failed to decrypt email address", e);
         }
     }
 
+    /**
+     * Decrypts the remaining bytes of {@code encrypted} into {@code output}, advancing both buffers. The two buffers
+     * must not be the same object.
+     *
+     * @return plaintext bytes written
+     */
+    public int decrypt(ByteBuffer encrypted, ByteBuffer output) {
+        checkPayload(encrypted.remaining());
+        checkOutput(output.remaining(), decryptedLength(encrypted.remaining()));
+        try {
+            AesEngine engine = aesEngines.borrow();
+            encrypted.get(engine.iv);
+            engine.cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_BITS, engine.iv));
+            int written = engine.cipher.doFinal(encrypted, output);
+            aesEngines.release(engine);
+            return written;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to decrypt email address", e);
+        }
+    }
+
+    /**
+     * Opens a session for a batch task; see {@link BatchSession}.
+     */
+    BatchSession openBatchSession() {
+        return new BatchSession();
+    }
+
     private SecretKeySpec toKey(String base64, String description) {
         if (!StringUtils.hasText(base64)) {
             throw new IllegalStateException(description + " must be configured");
@@ -156,42 +318,252 @@ public class EmailCrypto {
         if (bytes.length == 0) {
             throw new IllegalStateException(description + " must not decode to empty bytes");
         }
-        return new SecretKeySpec(bytes, description.startsWith("AES") ? "AES" : "HmacSHA256");
+        return new SecretKeySpec(bytes, description.startsWith("AES") ? "AES" : HMAC_ALGORITHM);
     }
 
-    private byte[] hmac(byte[] payload, SecretKeySpec key) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
+    /**
+     * Engines are keyed when created; {@link Mac#doFinal} resets them for the next caller.
+     */
+    private static CryptoEnginePool<Mac> hmacPool(SecretKeySpec key, int capacity) {
+        return new CryptoEnginePool<>(capacity, () -> {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
             mac.init(key);
-            return mac.doFinal(payload);
+            return mac;
+        });
+    }
+
+    private static Mac borrowMac(CryptoEnginePool<Mac> engines) {
+        try {
+            return engines.borrow();
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException("Unable to compute email hash", e);
         }
     }
 
-    private List<String> variations(String normalizedEmail) {
+    private static byte[] hmac(byte[] payload, CryptoEnginePool<Mac> engines) {
+        Mac mac = borrowMac(engines);
+        byte[] digest = mac.doFinal(payload);
+        engines.release(mac);
+        return digest;
+    }
+
+    private static void checkOutput(int available, int required) {
+        if (available < required) {
+            throw new IllegalArgumentException("Output buffer too small: " + required + " bytes needed, " + available
+                    + " available");
+        }
+    }
+
+    private static void checkPayload(int length) {
+        if (length < GCM_IV_BYTES + GCM_TAG_BYTES) {
+            throw new IllegalStateException("Failed to decrypt email address: payload is too short");
+        }
+    }
+
+    private static String encodeHash(byte[] digest) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    /**
+     * Trims and lower-cases in one pass when the address is plain ASCII, which NFKC leaves unchanged. Returns
+     * {@code email} itself when there is nothing to change, and {@code null} when a character outside ASCII needs
+     * the full Unicode path.
+     */
+    static String normalizeAscii(String email) {
+        int start = 0;
+        int end = email.length();
+        while (start < end && email.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && email.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean upperCase = false;
+        for (int i = start; i < end; i++) {
+            char c = email.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            upperCase |= c >= 'A' && c <= 'Z';
+        }
+        if (!upperCase) {
+            return start == 0 && end == email.length() ? email : email.substring(start, end);
+        }
+        byte[] lower = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            char c = email.charAt(i);
+            lower[i - start] = (byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+        return new String(lower, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Gmail ignores dots and anything after a plus in the local part; other domains only the plus suffix. Variants
+     * are built straight from {@code normalizedEmail} without intermediate local and domain strings.
+     */
+    private static List<String> variations(String normalizedEmail) {
         int at = normalizedEmail.indexOf('@');
         if (at < 0) {
             return List.of();
         }
-        String local = normalizedEmail.substring(0, at);
-        String domain = normalizedEmail.substring(at + 1);
-        List<String> variations = new ArrayList<>();
+        int length = normalizedEmail.length();
+        if (isGmail(normalizedEmail, at + 1)) {
+            char[] chars = new char[length];
+            int local = 0;
+            int plus = -1;
+            for (int i = 0; i < at; i++) {
+                char c = normalizedEmail.charAt(i);
+                if (c == '.') {
+                    continue;
+                }
+                if (c == '+' && plus < 0) {
+                    plus = local;
+                }
+                chars[local++] = c;
+            }
+            int domainLength = length - at;
+            normalizedEmail.getChars(at, length, chars, local);
+            String withoutDots = new String(chars, 0, local + domainLength);
+            if (plus < 0) {
+                return List.of(withoutDots);
+            }
+            System.arraycopy(chars, local, chars, plus, domainLength);
+            return List.of(withoutDots, new String(chars, 0, plus + domainLength));
+        }
+        int plus = normalizedEmail.indexOf('+');
+        if (plus < 0 || plus > at) {
+            return List.of();
+        }
+        return List.of(new StringBuilder(length - at + plus)
+                .append(normalizedEmail, 0, plus)
+                .append(normalizedEmail, at, length)
+                .toString());
+    }
+
+    private static boolean isGmail(String email, int domainStart) {
+        int domainLength = email.length() - domainStart;
+        return domainLength == 9 && email.startsWith("gmail.com", domainStart)
+                || domainLength == 14 && email.startsWith("googlemail.com", domainStart);
+    }
+
+    /**
+     * Single-threaded view used by {@link EmailCryptoBatch} for one chunk of a batch. Holds on to one engine of each
+     * kind and to the digest and payload buffers, growing the payload buffer to the largest element, so consecutive
+     * elements only allocate their input bytes and result strings. Engines go back to the pools on {@link #close()};
+     * an engine whose call failed is dropped instead.
+     */
+    final class BatchSession implements AutoCloseable {
+
+        private final byte[] digest = new byte[HASH_LENGTH];
+        private final byte[] encodedDigest = new byte[43];
+        private Mac mac;
+        private AesEngine aes;
+        private byte[] payload = new byte[256];
+
+        private BatchSession() {
+        }
 
-        if (domain.equals("gmail.com") || domain.equals("googlemail.com")) {
-            String withoutDots = local.replace(".", "");
-            variations.add(withoutDots + "@" + domain);
-            int plus = withoutDots.indexOf('+');
-            if (plus >= 0) {
-                variations.add(withoutDots.substring(0, plus) + "@" + domain);
+        String hash(String normalizedEmail) {
+            if (!StringUtils.hasText(normalizedEmail)) {
+                return null;
             }
-        } else {
-            int plus = local.indexOf('+');
-            if (plus >= 0) {
-                variations.add(local.substring(0, plus) + "@" + domain);
+            if (mac == null) {
+                mac = borrowMac(hmacEngines);
+            }
+            try {
+                mac.update(normalizedEmail.getBytes(StandardCharsets.UTF_8));
+                mac.doFinal(digest, 0);
+            } catch (GeneralSecurityException e) {
+                mac = null;
+                throw new IllegalStateException("Unable to compute email hash", e);
+            }
+            int length = Base64.getUrlEncoder().withoutPadding().encode(digest, encodedDigest);
+            return new String(encodedDigest, 0, length, StandardCharsets.ISO_8859_1);
+        }
+
+        String encrypt(String normalizedEmail) {
+            if (!StringUtils.hasText(normalizedEmail)) {
+                return null;
+            }
+            byte[] input = normalizedEmail.getBytes(StandardCharsets.UTF_8);
+            ensurePayload(encryptedLength(input.length));
+            try {
+                int length = aes().encrypt(aesKey, input, 0, input.length, payload, 0);
+                return Base64.getEncoder().encodeToString(Arrays.copyOf(payload, length));
+            } catch (GeneralSecurityException e) {
+                aes = null;
+                throw new IllegalStateException("Failed to encrypt email address", e);
+            }
+        }
+
+        String decrypt(String encrypted) {
+            if (!StringUtils.hasText(encrypted)) {
+                return null;
+            }
+            byte[] encoded = encrypted.getBytes(StandardCharsets.ISO_8859_1);
+            ensurePayload(encoded.length / 4 * 3 + 3);
+            int length = Base64.getDecoder().decode(encoded, payload);
+            checkPayload(length);
+            try {
+                int plaintextLength = aes().decrypt(aesKey, payload, 0, length, payload, 0);
+                return new String(payload, 0, plaintextLength, StandardCharsets.UTF_8);
+            } catch (GeneralSecurityException e) {
+                aes = null;
+                throw new IllegalStateException("Failed to decrypt email address", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (mac != null) {
+                hmacEngines.release(mac);
+                mac = null;
+            }
+            if (aes != null) {
+                aesEngines.release(aes);
+                aes = null;
+            }
+        }
+
+        private AesEngine aes() throws GeneralSecurityException {
+            if (aes == null) {
+                aes = aesEngines.borrow();
+            }
+            return aes;
+        }
+
+        private void ensurePayload(int length) {
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
             }
         }
-        return variations;
     }
-}
 
+    /**
+     * Pooled AES/GCM cipher with a buffer for the IV, which has to change on every encryption. Re-initialising the
+     * same instance with the same key keeps its expanded key schedule.
+     */
+    private static final class AesEngine {
+
+        private final Cipher cipher;
+        private final byte[] iv = new byte[GCM_IV_BYTES];
+
+        private AesEngine() throws GeneralSecurityException {
+            this.cipher = Cipher.getInstance(AES_TRANSFORMATION);
+        }
+
+        int encrypt(SecretKeySpec key, byte[] input, int offset, int length, byte[] output, int outputOffset)
+                throws GeneralSecurityException {
+            RANDOM.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            System.arraycopy(iv, 0, output, outputOffset, GCM_IV_BYTES);
+            return GCM_IV_BYTES + cipher.doFinal(input, offset, length, output, outputOffset + GCM_IV_BYTES);
+        }
+
+        int decrypt(SecretKeySpec key, byte[] input, int offset, int length, byte[] output, int outputOffset)
+                throws GeneralSecurityException {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, input, offset, GCM_IV_BYTES));
+            return cipher.doFinal(input, offset + GCM_IV_BYTES, length - GCM_IV_BYTES, output, outputOffset);
+        }
+    }
+}
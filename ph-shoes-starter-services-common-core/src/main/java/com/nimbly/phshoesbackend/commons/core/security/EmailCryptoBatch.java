@@ -0,0 +1,151 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import com.nimbly.phshoesbackend.commons.core.config.EmailSecurityProperties;
+
+/**
+ * Hashes, encrypts or decrypts many email addresses at once, e.g. while rotating the pepper or the AES key.
+ * <p>
+ * The input is read in chunks of {@code chunkSize} elements and each chunk runs as one task on the executor, reusing
+ * one set of engines and buffers for all of its elements. Results come back in input order. An element that fails
+ * is reported in its {@link EmailCryptoResult} and does not stop the batch.
+ */
+public class EmailCryptoBatch implements AutoCloseable {
+
+    private final EmailCrypto crypto;
+
+    private final Executor executor;
+
+    private final int chunkSize;
+
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * @param executor runs the chunks; not shut down by {@link #close()}
+     */
+    public EmailCryptoBatch(EmailCrypto crypto, Executor executor, int chunkSize) {
+        this(crypto, executor, chunkSize, null);
+    }
+
+    private EmailCryptoBatch(EmailCrypto crypto, Executor executor, int chunkSize, ExecutorService ownedExecutor) {
+        this.crypto = Objects.requireNonNull(crypto, "crypto");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.chunkSize = Math.max(1, chunkSize);
+        this.ownedExecutor = ownedExecutor;
+    }
+
+    /**
+     * Creates a batch runner with its own executor, shut down by {@link #close()}.
+     */
+    public static EmailCryptoBatch create(EmailCrypto crypto, EmailSecurityProperties.Batch settings) {
+        ExecutorService executor = settings.getExecutor() == EmailSecurityProperties.BatchExecutor.VIRTUAL_THREADS
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("email-crypto-batch-", 0).factory())
+                : new ForkJoinPool(settings.getParallelism() > 0
+                        ? settings.getParallelism()
+                        : Runtime.getRuntime().availableProcessors());
+        return new EmailCryptoBatch(crypto, executor, settings.getChunkSize(), executor);
+    }
+
+    public List<EmailCryptoResult> hashAll(List<String> normalizedEmails) {
+        return hashAll(normalizedEmails.spliterator());
+    }
+
+    public List<EmailCryptoResult> hashAll(Stream<String> normalizedEmails) {
+        return hashAll(normalizedEmails.spliterator());
+    }
+
+    public List<EmailCryptoResult> hashAll(Spliterator<String> normalizedEmails) {
+        return run(normalizedEmails, EmailCrypto.BatchSession::hash);
+    }
+
+    public List<EmailCryptoResult> encryptAll(List<String> normalizedEmails) {
+        return encryptAll(normalizedEmails.spliterator());
+    }
+
+    public List<EmailCryptoResult> encryptAll(Stream<String> normalizedEmails) {
+        return encryptAll(normalizedEmails.spliterator());
+    }
+
+    public List<EmailCryptoResult> encryptAll(Spliterator<String> normalizedEmails) {
+        return run(normalizedEmails, EmailCrypto.BatchSession::encrypt);
+    }
+
+    public List<EmailCryptoResult> decryptAll(List<String> encrypted) {
+        return decryptAll(encrypted.spliterator());
+    }
+
+    public List<EmailCryptoResult> decryptAll(Stream<String> encrypted) {
+        return decryptAll(encrypted.spliterator());
+    }
+
+    public List<EmailCryptoResult> decryptAll(Spliterator<String> encrypted) {
+        return run(encrypted, EmailCrypto.BatchSession::decrypt);
+    }
+
+    /**
+     * Shuts down the executor when it was created by {@link #create}.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private List<EmailCryptoResult> run(Spliterator<String> input, Operation operation) {
+        Objects.requireNonNull(input, "input");
+        List<CompletableFuture<EmailCryptoResult[]>> chunks = new ArrayList<>();
+        int count = 0;
+        while (true) {
+            List<String> chunk = new ArrayList<>(chunkSize);
+            while (chunk.size() < chunkSize && input.tryAdvance(chunk::add)) {
+                // reads the next chunk
+            }
+            if (chunk.isEmpty()) {
+                break;
+            }
+            int start = count;
+            count += chunk.size();
+            chunks.add(CompletableFuture.supplyAsync(() -> process(chunk, start, operation), executor));
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        List<EmailCryptoResult> results = new ArrayList<>(count);
+        for (CompletableFuture<EmailCryptoResult[]> chunk : chunks) {
+            results.addAll(Arrays.asList(chunk.join()));
+        }
+        return results;
+    }
+
+    private EmailCryptoResult[] process(List<String> chunk, int start, Operation operation) {
+        EmailCryptoResult[] results = new EmailCryptoResult[chunk.size()];
+        try (EmailCrypto.BatchSession session = crypto.openBatchSession()) {
+            for (int i = 0; i < results.length; i++) {
+                try {
+                    results[i] = new EmailCryptoResult(start + i, operation.apply(session, chunk.get(i)), null);
+                } catch (RuntimeException ex) {
+                    results[i] = new EmailCryptoResult(start + i, null, ex);
+                }
+            }
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+
+        String apply(EmailCrypto.BatchSession session, String value);
+    }
+}
@@ -0,0 +1,15 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+/**
+ * Outcome of one element of an {@link EmailCryptoBatch} call.
+ *
+ * @param index position of the element in the input
+ * @param value hash, ciphertext or plaintext; {@code null} for blank input or when the element failed
+ * @param error why the element failed, or {@code null}
+ */
+public record EmailCryptoResult(int index, String value, RuntimeException error) {
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,202 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of email hashes for the small set of addresses that are hashed over and over (sign-in, suppression
+ * checks, unsubscribe links, bounces).
+ * <p>
+ * Entries are keyed by a 128-bit digest of the address computed with random per-instance seeds, so the cache never
+ * holds plain-text addresses. Hits are a map lookup plus setting the entry's reference bit; once {@code maxEntries}
+ * is reached, inserts evict with the CLOCK algorithm, skipping entries referenced since the hand last passed them.
+ * Entries older than the TTL are treated as misses.
+ */
+public final class EmailHashCache {
+
+    private static final long MULTIPLIER_HIGH = 0x9E3779B97F4A7C15L;
+
+    private static final long MULTIPLIER_LOW = 0xC2B2AE3D27D4EB4FL;
+
+    private final ConcurrentHashMap<Key, Entry> entries;
+
+    private final Entry[] ring;
+
+    private final long ttlNanos;
+
+    private final long seedHigh;
+
+    private final long seedLow;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private int hand;
+
+    private int count;
+
+    /**
+     * @param ttl zero or {@code null} to keep entries until they are evicted
+     */
+    EmailHashCache(int maxEntries, Duration ttl) {
+        int capacity = Math.max(1, maxEntries);
+        this.entries = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        this.ring = new Entry[capacity];
+        this.ttlNanos = ttl != null && !ttl.isNegative() ? ttl.toNanos() : 0;
+        SecureRandom random = new SecureRandom();
+        this.seedHigh = random.nextLong();
+        this.seedLow = random.nextLong();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Share of lookups served from the cache since startup, or 0 before the first lookup.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    String hash(String email, Function<String, String> loader) {
+        return (String) get(Kind.HASH, email, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<String> hashCandidates(String normalizedEmail, Function<String, List<String>> loader) {
+        return (List<String>) get(Kind.CANDIDATES, normalizedEmail, loader);
+    }
+
+    private Object get(Kind kind, String email, Function<String, ?> loader) {
+        Key key = key(kind, email);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && !isExpired(entry, now)) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        Object value = loader.apply(email);
+        if (value != null) {
+            put(key, value, now);
+        }
+        return value;
+    }
+
+    private void put(Key key, Object value, long now) {
+        lock.lock();
+        try {
+            Entry existing = entries.get(key);
+            int slot;
+            if (existing != null) {
+                slot = existing.slot;
+            } else if (count < ring.length) {
+                slot = count++;
+            } else {
+                slot = evict(now);
+            }
+            Entry entry = new Entry(key, value, now + ttlNanos, slot);
+            ring[slot] = entry;
+            entries.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Advances the hand to the first entry that is expired or was not referenced since the last pass, clearing
+     * reference bits on the way, and frees its slot. Ends within two turns of the ring.
+     */
+    private int evict(long now) {
+        while (true) {
+            int slot = hand;
+            hand = hand + 1 == ring.length ? 0 : hand + 1;
+            Entry candidate = ring[slot];
+            if (candidate.referenced && !isExpired(candidate, now)) {
+                candidate.referenced = false;
+                continue;
+            }
+            entries.remove(candidate.key, candidate);
+            evictions.increment();
+            return slot;
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlNanos > 0 && now - entry.expiresAt >= 0;
+    }
+
+    private Key key(Kind kind, String email) {
+        long high = seedHigh ^ kind.ordinal();
+        long low = seedLow ^ email.length();
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            high = (high ^ c) * MULTIPLIER_HIGH;
+            low = Long.rotateLeft(low ^ c, 31) * MULTIPLIER_LOW;
+        }
+        return new Key(mix(high), mix(low ^ high));
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private enum Kind {
+        HASH,
+        CANDIDATES
+    }
+
+    private record Key(long high, long low) {
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+
+        private final Object value;
+
+        private final long expiresAt;
+
+        private final int slot;
+
+        /**
+         * Set on every hit without synchronization; a lost update only costs the entry one extra CLOCK pass.
+         */
+        private boolean referenced;
+
+        private Entry(Key key, Object value, long expiresAt, int slot) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.slot = slot;
+        }
+    }
+}
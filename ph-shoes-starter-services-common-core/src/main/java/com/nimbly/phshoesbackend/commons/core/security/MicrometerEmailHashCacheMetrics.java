@@ -0,0 +1,54 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import java.util.Objects;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes {@link EmailHashCache} statistics to Micrometer:
+ * <ul>
+ *     <li>{@code phshoes.email.hash-cache.gets}: lookups tagged {@code result} (hit, miss).</li>
+ *     <li>{@code phshoes.email.hash-cache.hit-ratio}: share of lookups served from the cache since startup.</li>
+ *     <li>{@code phshoes.email.hash-cache.size} and {@code phshoes.email.hash-cache.evictions}.</li>
+ * </ul>
+ */
+public class MicrometerEmailHashCacheMetrics implements MeterBinder {
+
+    static final String GETS = "phshoes.email.hash-cache.gets";
+
+    static final String HIT_RATIO = "phshoes.email.hash-cache.hit-ratio";
+
+    static final String SIZE = "phshoes.email.hash-cache.size";
+
+    static final String EVICTIONS = "phshoes.email.hash-cache.evictions";
+
+    private final EmailHashCache cache;
+
+    public MicrometerEmailHashCacheMetrics(EmailHashCache cache) {
+        this.cache = Objects.requireNonNull(cache, "cache");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(GETS, cache, EmailHashCache::getHitCount)
+                .tag("result", "hit")
+                .description("Email hash lookups served from the cache")
+                .register(registry);
+        FunctionCounter.builder(GETS, cache, EmailHashCache::getMissCount)
+                .tag("result", "miss")
+                .description("Email hash lookups that computed the hash")
+                .register(registry);
+        Gauge.builder(HIT_RATIO, cache, EmailHashCache::getHitRatio)
+                .description("Share of email hash lookups served from the cache")
+                .register(registry);
+        Gauge.builder(SIZE, cache, EmailHashCache::size)
+                .description("Email hashes currently cached")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS, cache, EmailHashCache::getEvictionCount)
+                .description("Email hashes evicted to stay within the size bound")
+                .register(registry);
+    }
+}
@@ -0,0 +1,60 @@
+package com.nimbly.phshoesbackend.commons.core.time;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EpochClock} whose reading is a volatile field refreshed by a daemon thread every tick, so callers pay a
+ * single memory read instead of a system call. Readings lag the system clock by at most one tick and never go
+ * backwards.
+ */
+public class CachedEpochClock implements EpochClock, AutoCloseable {
+
+    private final EpochClock source;
+
+    private final ScheduledExecutorService ticker;
+
+    private volatile long currentTimeMillis;
+
+    public CachedEpochClock(Duration tickInterval) {
+        this(EpochClock.system(), tickInterval);
+    }
+
+    /**
+     * @param source clock sampled on every tick
+     */
+    public CachedEpochClock(EpochClock source, Duration tickInterval) {
+        this.source = Objects.requireNonNull(source, "source");
+        long tickMicros = Math.max(1, Objects.requireNonNull(tickInterval, "tickInterval").toNanos() / 1_000);
+        this.currentTimeMillis = source.currentTimeMillis();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "phshoes-epoch-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this::tick, tickMicros, tickMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+
+    /**
+     * Stops the ticker; the clock keeps returning its last reading.
+     */
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    void tick() {
+        long now = source.currentTimeMillis();
+        if (now > currentTimeMillis) {
+            currentTimeMillis = now;
+        }
+    }
+}
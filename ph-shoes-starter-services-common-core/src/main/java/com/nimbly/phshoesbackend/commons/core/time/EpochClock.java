@@ -0,0 +1,32 @@
+package com.nimbly.phshoesbackend.commons.core.time;
+
+import java.time.Clock;
+import java.time.ZoneOffset;
+
+/**
+ * Source of the current time as epoch milliseconds, injected wherever hot paths need "now" so they can work on
+ * primitive {@code long}s and tests can supply a fixed or stepped time.
+ */
+@FunctionalInterface
+public interface EpochClock {
+
+    /**
+     * Current time in milliseconds since the epoch.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Clock reading {@link System#currentTimeMillis()} on every call.
+     */
+    static EpochClock system() {
+        return System::currentTimeMillis;
+    }
+
+    /**
+     * Adapts this clock to {@link java.time.Clock} in UTC, for libraries that take one. Clocks derived with
+     * {@link Clock#withZone} keep reading this clock.
+     */
+    default Clock asJavaClock() {
+        return new EpochJavaClock(this, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,56 @@
+package com.nimbly.phshoesbackend.commons.core.time;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Objects;
+
+/**
+ * {@link Clock} view of an {@link EpochClock}; every zone derived from it reads the same source.
+ */
+final class EpochJavaClock extends Clock {
+
+    private final EpochClock source;
+
+    private final ZoneId zone;
+
+    EpochJavaClock(EpochClock source, ZoneId zone) {
+        this.source = Objects.requireNonNull(source, "source");
+        this.zone = Objects.requireNonNull(zone, "zone");
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new EpochJavaClock(source, zone);
+    }
+
+    @Override
+    public long millis() {
+        return source.currentTimeMillis();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(source.currentTimeMillis());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof EpochJavaClock clock && source.equals(clock.source) && zone.equals(clock.zone);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode() ^ zone.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "EpochJavaClock[" + zone + "]";
+    }
+}
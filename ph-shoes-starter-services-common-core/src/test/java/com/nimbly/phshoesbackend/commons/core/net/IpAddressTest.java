@@ -0,0 +1,68 @@
+package com.nimbly.phshoesbackend.commons.core.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class IpAddressTest {
+
+    @Test
+    void parse_acceptsIpv4WithPortAndWhitespace() {
+        assertEquals("203.0.113.7", IpAddress.parse(" 203.0.113.7 ").toString());
+        assertEquals("203.0.113.7", IpAddress.parse("203.0.113.7:8443").toString());
+        assertTrue(IpAddress.parse("203.0.113.7").isIpv4());
+    }
+
+    @Test
+    void parse_canonicalizesIpv6() {
+        assertEquals("2001:db8::1", IpAddress.parse("2001:0DB8:0000:0000:0000:0000:0000:0001").toString());
+        assertEquals("2001:db8::1", IpAddress.parse("[2001:db8::1]:443").toString());
+        assertEquals("fe80::1", IpAddress.parse("fe80::1%eth0").toString());
+        assertEquals("::", IpAddress.parse("::").toString());
+        assertEquals("1::", IpAddress.parse("1::").toString());
+        assertEquals("2001:db8:0:1:1:1:1:1", IpAddress.parse("2001:db8:0:1:1:1:1:1").toString());
+        assertEquals("2001:0:0:1::1", IpAddress.parse("2001:0:0:1:0:0:0:1").toString());
+        assertFalse(IpAddress.parse("::1").isIpv4());
+    }
+
+    @Test
+    void parse_treatsIpv4MappedAddressesAsIpv4() {
+        IpAddress mapped = IpAddress.parse("::ffff:192.0.2.1");
+
+        assertTrue(mapped.isIpv4());
+        assertEquals(IpAddress.parse("192.0.2.1"), mapped);
+        assertEquals("192.0.2.1", mapped.toString());
+    }
+
+    @Test
+    void parse_rejectsNonLiterals() {
+        for (String text : List.of("", "localhost", "example.com", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1..2.3",
+                "1.2.3.4.", "1:2:3:4:5:6:7:8:9", "1::2::3", ":1::", "12345::", "::g", "1.2.3.4:80:90", "[::1")) {
+            assertNull(IpAddress.parse(text), text);
+        }
+    }
+
+    @Test
+    void parse_matchesInetAddressForLiterals() throws Exception {
+        for (String text : List.of("::", "::1", "1::", "2001:db8::8:800:200c:417a", "ff01::101", "::13.1.68.3",
+                "0:0:0:0:0:0:13.1.68.3", "1:2:3:4:5:6:7:8", "10.0.0.1", "0.0.0.0", "255.255.255.255")) {
+            InetAddress expected = InetAddress.getByName(text);
+            assertEquals(IpAddress.parse(expected.getHostAddress()), IpAddress.parse(text));
+        }
+    }
+
+    @Test
+    void mask_keepsLeadingBits() {
+        assertEquals("203.0.113.0", IpAddress.parse("203.0.113.77").mask(24).toString());
+        assertEquals("0.0.0.0", IpAddress.parse("203.0.113.77").mask(0).toString());
+        assertEquals("2001:db8:1:2::", IpAddress.parse("2001:db8:1:2:aaaa:bbbb:cccc:dddd").mask(64).toString());
+        assertEquals("2001:db8::", IpAddress.parse("2001:db8:1:2::1").mask(32).toString());
+        assertEquals("2001:db8:1:2:8000::", IpAddress.parse("2001:db8:1:2:ffff::").mask(65).toString());
+    }
+}
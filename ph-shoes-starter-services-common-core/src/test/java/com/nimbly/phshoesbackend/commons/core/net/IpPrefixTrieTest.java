@@ -0,0 +1,49 @@
+package com.nimbly.phshoesbackend.commons.core.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class IpPrefixTrieTest {
+
+    @Test
+    void longestMatch_prefersMostSpecificRange() {
+        Map<String, String> ranges = new LinkedHashMap<>();
+        ranges.put("10.0.0.0/8", "private");
+        ranges.put("10.1.0.0/16", "office");
+        ranges.put("10.1.2.3", "host");
+        ranges.put("2001:db8::/32", "docs");
+        IpPrefixTrie<String> trie = IpPrefixTrie.of(ranges);
+
+        assertEquals("private", trie.longestMatch(IpAddress.parse("10.200.0.1")));
+        assertEquals("office", trie.longestMatch(IpAddress.parse("10.1.9.9")));
+        assertEquals("host", trie.longestMatch(IpAddress.parse("10.1.2.3")));
+        assertEquals("docs", trie.longestMatch(IpAddress.parse("2001:db8:ffff::1")));
+        assertNull(trie.longestMatch(IpAddress.parse("11.0.0.1")));
+        assertNull(trie.longestMatch(IpAddress.parse("2001:db9::1")));
+        assertNull(trie.longestMatch(null));
+    }
+
+    @Test
+    void longestMatch_keepsAddressFamiliesApart() {
+        IpPrefixTrie<String> trie = IpPrefixTrie.of(Map.of("0.0.0.0/0", "any-ipv4"));
+
+        assertEquals("any-ipv4", trie.longestMatch(IpAddress.parse("198.51.100.1")));
+        assertEquals("any-ipv4", trie.longestMatch(IpAddress.parse("::ffff:198.51.100.1")));
+        assertNull(trie.longestMatch(IpAddress.parse("::1")));
+    }
+
+    @Test
+    void of_rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, () -> IpPrefixTrie.of(Map.of("10.0.0.0/33", "x")));
+        assertThrows(IllegalArgumentException.class, () -> IpPrefixTrie.of(Map.of("10.0.0.0/abc", "x")));
+        assertThrows(IllegalArgumentException.class, () -> IpPrefixTrie.of(Map.of("intranet", "x")));
+        assertTrue(IpPrefixTrie.of(Map.of(" ", "x")).isEmpty());
+    }
+}
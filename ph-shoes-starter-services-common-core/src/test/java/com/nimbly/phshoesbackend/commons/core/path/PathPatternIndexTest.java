@@ -0,0 +1,86 @@
+package com.nimbly.phshoesbackend.commons.core.path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+class PathPatternIndexTest {
+
+    @Test
+    void match_returnsEveryMatchingPatternInDeclarationOrder() {
+        PathPatternIndex<String> index = PathPatternIndex.of(List.of(
+                "/api/**",
+                "/api/v1/user-accounts/verify",
+                "/api/v1/*/verify",
+                "/api/v1/products/{id}",
+                "/public/**"));
+
+        assertEquals(List.of("/api/**", "/api/v1/user-accounts/verify", "/api/v1/*/verify"),
+                index.match("/api/v1/user-accounts/verify"));
+        assertEquals(List.of("/api/**", "/api/v1/products/{id}"), index.match("/api/v1/products/42"));
+        assertEquals(List.of(), index.match("/health"));
+    }
+
+    @Test
+    void matchesAny_handlesDoubleWildcardAndTrailingSlash() {
+        PathPatternIndex<String> index = PathPatternIndex.of(List.of("/public/**", "/docs/*", "/status"));
+
+        assertTrue(index.matchesAny("/public"));
+        assertTrue(index.matchesAny("/public/a/b/"));
+        assertTrue(index.matchesAny("/docs/"));
+        assertFalse(index.matchesAny("/status/"));
+        assertFalse(index.matchesAny("/docs/a/b"));
+    }
+
+    @Test
+    void match_fallsBackToAntMatchingForComplexSegments() {
+        PathPatternIndex<String> index = PathPatternIndex.of(List.of("/files/*.json", "/v?/items", "/files/**"));
+
+        assertEquals(List.of("/files/*.json", "/files/**"), index.match("/files/a.json"));
+        assertEquals(List.of("/v?/items"), index.match("/v1/items"));
+    }
+
+    @Test
+    void match_agreesWithAntPathMatcher() {
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+        String[] patternSegments = {"a", "b", "*", "**", "{id}", "x.json", "*.json", "a?"};
+        String[] pathSegments = {"a", "b", "c", "x.json", "ab", ""};
+        Random random = new Random(7);
+
+        for (int iteration = 0; iteration < 20_000; iteration++) {
+            List<String> patterns = new ArrayList<>();
+            for (int p = 0; p < 1 + random.nextInt(4); p++) {
+                patterns.add(randomPath(random, patternSegments));
+            }
+            String path = randomPath(random, pathSegments);
+            List<String> expected = patterns.stream().filter(pattern -> antPathMatcher.match(pattern, path)).toList();
+
+            PathPatternIndex<String> index = PathPatternIndex.of(patterns);
+
+            assertEquals(expected, index.match(path), () -> patterns + " vs " + path);
+            assertEquals(!expected.isEmpty(), index.matchesAny(path), () -> patterns + " vs " + path);
+        }
+    }
+
+    private static String randomPath(Random random, String[] segments) {
+        StringBuilder builder = new StringBuilder(random.nextInt(12) == 0 ? "" : "/");
+        int length = random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                builder.append(random.nextInt(10) == 0 ? "//" : "/");
+            }
+            builder.append(segments[random.nextInt(segments.length)]);
+        }
+        if (random.nextInt(5) == 0) {
+            builder.append('/');
+        }
+        return builder.isEmpty() ? "/" : builder.toString();
+    }
+}
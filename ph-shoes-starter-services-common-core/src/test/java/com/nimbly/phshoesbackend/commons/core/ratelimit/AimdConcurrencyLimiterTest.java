@@ -0,0 +1,92 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+
+class AimdConcurrencyLimiterTest {
+
+    @Test
+    void tryAcquire_shedsOnceLimitIsInFlight() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(properties(2), () -> 0L);
+
+        ConcurrencyLimiter.Permit first = limiter.tryAcquire("/api/test");
+        assertNotNull(limiter.tryAcquire("/api/test"));
+        assertNull(limiter.tryAcquire("/api/test"));
+
+        first.release(true);
+        assertEquals(1, limiter.getInFlight("/api/test"));
+        assertNotNull(limiter.tryAcquire("/api/test"));
+    }
+
+    @Test
+    void release_growsLimitWhileItIsWellUsed() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(properties(4), () -> 0L);
+
+        limiter.tryAcquire("/api/test").release(true);
+        assertEquals(4, limiter.getLimit("/api/test"));
+
+        ConcurrencyLimiter.Permit first = limiter.tryAcquire("/api/test");
+        ConcurrencyLimiter.Permit second = limiter.tryAcquire("/api/test");
+        first.release(true);
+        second.release(true);
+        assertEquals(5, limiter.getLimit("/api/test"));
+    }
+
+    @Test
+    void release_backsOffOnFailureAndSlowRequests() {
+        long[] now = {0};
+        ApiRateLimitProperties properties = properties(10);
+        properties.getConcurrency().setTimeout(Duration.ofMillis(100));
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(properties, () -> now[0]);
+
+        limiter.tryAcquire("/api/test").release(false);
+        assertEquals(9, limiter.getLimit("/api/test"));
+
+        ConcurrencyLimiter.Permit slow = limiter.tryAcquire("/api/test");
+        now[0] = Duration.ofMillis(150).toNanos();
+        slow.release(true);
+        assertEquals(8, limiter.getLimit("/api/test"));
+    }
+
+    @Test
+    void release_neverDropsBelowMinimum() {
+        ApiRateLimitProperties properties = properties(2);
+        properties.getConcurrency().setMinLimit(2);
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(properties, () -> 0L);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("/api/test").release(false);
+        }
+
+        assertEquals(2, limiter.getLimit("/api/test"));
+    }
+
+    @Test
+    void tryAcquire_keepsOneLimitPerRoute() {
+        ApiRateLimitProperties properties = properties(1);
+        ApiRateLimitProperties.Route route = new ApiRateLimitProperties.Route();
+        route.setName("search");
+        route.setPattern("/api/search/**");
+        properties.getRoutes().add(route);
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(properties, () -> 0L);
+
+        assertNotNull(limiter.tryAcquire("/api/search/shoes"));
+        assertNull(limiter.tryAcquire("/api/search/boots"));
+        assertNotNull(limiter.tryAcquire("/api/orders"));
+        assertNull(limiter.tryAcquire("/api/cart"));
+    }
+
+    private static ApiRateLimitProperties properties(int initialLimit) {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getConcurrency().setEnabled(true);
+        properties.getConcurrency().setInitialLimit(initialLimit);
+        return properties;
+    }
+}
@@ -0,0 +1,149 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.nimbly.phshoesbackend.commons.core.api.rate.RateLimitExceededException;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.model.dynamo.RateLimitAttrs;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+class DynamoApiRateLimiterTest {
+
+    @Test
+    void verifyRequest_countsAcrossInstancesSharingTheTable() {
+        DynamoDbClient client = fakeCountingClient();
+        ApiRateLimitProperties properties = perUserLimit(2);
+        DynamoApiRateLimiter first = new DynamoApiRateLimiter(client, properties, "api_rate_limits");
+        DynamoApiRateLimiter second = new DynamoApiRateLimiter(client, properties, "api_rate_limits");
+        RateLimitRequestContext context = RateLimitRequestContext.builder()
+                .path("/api/test")
+                .userId("user-1")
+                .build();
+
+        first.verifyRequest(context);
+        second.verifyRequest(context);
+
+        assertThrows(RateLimitExceededException.class, () -> first.verifyRequest(context));
+    }
+
+    @Test
+    void verifyRequest_usesConditionalAddOnWindowBucketedKey() {
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        when(client.updateItem(any(UpdateItemRequest.class))).thenReturn(UpdateItemResponse.builder().build());
+        DynamoApiRateLimiter limiter = new DynamoApiRateLimiter(client, perUserLimit(5), "dev_api_rate_limits");
+
+        limiter.verifyRequest(RateLimitRequestContext.builder().userId("user-1").build());
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(client).updateItem(captor.capture());
+        UpdateItemRequest request = captor.getValue();
+        assertEquals("dev_api_rate_limits", request.tableName());
+        assertTrue(request.key().get(RateLimitAttrs.PK).s().startsWith("user:user-1#"));
+        assertTrue(request.updateExpression().startsWith("ADD"));
+        assertEquals("1", request.expressionAttributeValues().get(":permits").n());
+        assertEquals("4", request.expressionAttributeValues().get(":max").n());
+    }
+
+    @Test
+    void verifyRequest_failsOpenWhenStoreUnavailable() {
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        when(client.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(SdkClientException.builder().message("timeout").build());
+        DynamoApiRateLimiter limiter = new DynamoApiRateLimiter(client, perUserLimit(1), "api_rate_limits");
+
+        assertDoesNotThrow(() -> limiter.verifyRequest(RateLimitRequestContext.builder().userId("user-1").build()));
+    }
+
+    @Test
+    void verifyRequest_failsClosedWhenConfigured() {
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        when(client.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(SdkClientException.builder().message("timeout").build());
+        ApiRateLimitProperties properties = perUserLimit(1);
+        properties.getDynamo().setFailOpen(false);
+        DynamoApiRateLimiter limiter = new DynamoApiRateLimiter(client, properties, "api_rate_limits");
+
+        assertThrows(RateLimitExceededException.class,
+                () -> limiter.verifyRequest(RateLimitRequestContext.builder().userId("user-1").build()));
+    }
+
+    @Test
+    void verifyRequest_refundsUserCountWhenIpDenies() {
+        Map<String, Long> hits = new HashMap<>();
+        ApiRateLimitProperties properties = perUserLimit(5);
+        properties.getPerIp().setLimit(1);
+        DynamoApiRateLimiter limiter = new DynamoApiRateLimiter(fakeCountingClient(hits), properties, "api_rate_limits");
+
+        limiter.verifyRequest(RateLimitRequestContext.builder().ipAddress("10.0.0.1").userId("user-1").build());
+        assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(
+                RateLimitRequestContext.builder().ipAddress("10.0.0.1").userId("user-2").build()));
+
+        long userTwoHits = hits.entrySet().stream()
+                .filter(entry -> entry.getKey().contains("/user:user-2#"))
+                .findFirst()
+                .orElseThrow()
+                .getValue();
+        assertEquals(0L, userTwoHits);
+    }
+
+    private static ApiRateLimitProperties perUserLimit(long limit) {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setStore(ApiRateLimitProperties.Store.DYNAMO);
+        properties.setDefaultWindow(Duration.ofHours(1));
+        properties.getPerUser().setLimit(limit);
+        return properties;
+    }
+
+    /**
+     * In-process stand-in for DynamoDB that applies the limiter's conditional ADD atomically.
+     */
+    static DynamoDbClient fakeCountingClient() {
+        return fakeCountingClient(new HashMap<>());
+    }
+
+    /**
+     * @param hits backing counts keyed by {@code table/pk}, exposed so tests can inspect returned permits
+     */
+    static DynamoDbClient fakeCountingClient(Map<String, Long> hits) {
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        when(client.updateItem(any(UpdateItemRequest.class))).thenAnswer(invocation -> {
+            UpdateItemRequest request = invocation.getArgument(0);
+            String key = request.tableName() + "/" + request.key().get(RateLimitAttrs.PK).s();
+            long permits = Long.parseLong(request.expressionAttributeValues().get(":permits").n());
+            AttributeValue max = request.expressionAttributeValues().get(":max");
+            synchronized (hits) {
+                Long current = hits.get(key);
+                if (max == null ? current == null : current != null && current > Long.parseLong(max.n())) {
+                    ConditionalCheckFailedException.Builder failure = ConditionalCheckFailedException.builder().message("limit");
+                    if (current != null) {
+                        failure.item(Map.of(RateLimitAttrs.HITS, AttributeValue.fromN(current.toString())));
+                    }
+                    throw failure.build();
+                }
+                hits.put(key, (current == null ? 0 : current) + permits);
+            }
+            return UpdateItemResponse.builder().build();
+        });
+        return client;
+    }
+}
@@ -0,0 +1,35 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.DynamoMigrationProperties;
+import com.nimbly.phshoesbackend.commons.core.migrations.UpgradeContext;
+import com.nimbly.phshoesbackend.commons.core.migrations.utility.TableCreator;
+import com.nimbly.phshoesbackend.commons.core.model.dynamo.RateLimitAttrs;
+
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+
+class DynamoRateLimitTableUpgradeStepTest {
+
+    @Test
+    void apply_createsPrefixedTableWithTtl() {
+        TableCreator tableCreator = Mockito.mock(TableCreator.class);
+        DynamoMigrationProperties properties = new DynamoMigrationProperties();
+        properties.setTablePrefix("dev_");
+        DynamoRateLimitTableUpgradeStep step = new DynamoRateLimitTableUpgradeStep(tableCreator, RateLimitAttrs.TABLE);
+
+        step.apply(new UpgradeContext(properties));
+
+        verify(tableCreator).createTableIfNotExists(eq("dev_api_rate_limits"), anyList(), anyList(),
+                eq(BillingMode.PAY_PER_REQUEST), anyLong(), anyLong());
+        verify(tableCreator).enableTtlIfDisabled("dev_api_rate_limits", RateLimitAttrs.EXPIRES_AT);
+        assertEquals("1.0.0", step.toVersion());
+    }
+}
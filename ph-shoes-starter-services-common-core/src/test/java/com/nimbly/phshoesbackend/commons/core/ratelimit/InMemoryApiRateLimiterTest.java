@@ -1,17 +1,28 @@
 package com.nimbly.phshoesbackend.commons.core.ratelimit;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.nimbly.phshoesbackend.commons.core.api.rate.RateLimitExceededException;
 import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
 
 class InMemoryApiRateLimiterTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     void verifyRequest_allowsNullContext() {
         ApiRateLimitProperties properties = new ApiRateLimitProperties();
@@ -57,4 +68,598 @@ class InMemoryApiRateLimiterTest {
         limiter.verifyRequest(context);
         assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(context));
     }
+
+    @Test
+    void verifyRequest_slidingLogEnforcesPerIpLimit() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setAlgorithm(ApiRateLimitProperties.Algorithm.SLIDING_LOG);
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerIp().setLimit(2);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        RateLimitRequestContext context = RateLimitRequestContext.builder()
+                .path("/api/test")
+                .ipAddress("10.0.0.1")
+                .build();
+
+        limiter.verifyRequest(context);
+        limiter.verifyRequest(context);
+        assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(context));
+    }
+
+    @Test
+    void verifyRequest_slidingCounterEnforcesGlobalLimit() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setAlgorithm(ApiRateLimitProperties.Algorithm.SLIDING_COUNTER);
+        properties.setDefaultWindow(Duration.ofMinutes(5));
+        properties.getGlobal().setLimit(1);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        RateLimitRequestContext context = RateLimitRequestContext.builder()
+                .path("/api/test")
+                .build();
+
+        limiter.verifyRequest(context);
+        assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(context));
+    }
+
+    @Test
+    void verifyRequest_gcraHonoursBurst() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setAlgorithm(ApiRateLimitProperties.Algorithm.GCRA);
+        properties.setDefaultWindow(Duration.ofHours(1));
+        properties.getPerUser().setLimit(100);
+        properties.getPerUser().setBurst(2);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        RateLimitRequestContext context = RateLimitRequestContext.builder()
+                .path("/api/test")
+                .userId("user-1")
+                .build();
+
+        limiter.verifyRequest(context);
+        limiter.verifyRequest(context);
+        assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(context));
+    }
+
+    @Test
+    void verifyRequest_tracksLiveKeys() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getPerIp().setLimit(5);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run);
+
+        limiter.verifyRequest(RateLimitRequestContext.builder().path("/api/test").ipAddress("10.0.0.1").build());
+        limiter.verifyRequest(RateLimitRequestContext.builder().path("/api/test").ipAddress("10.0.0.2").build());
+
+        assertEquals(2, limiter.getLiveKeyCount());
+        assertEquals(0, limiter.getEvictionCount());
+    }
+
+    @Test
+    void tryAcquire_reportsRemainingPermitsAndDescribesDenial() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerIp().setLimit(2);
+        properties.getGlobal().setLimit(100);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        RateLimitRequestContext context = RateLimitRequestContext.builder()
+                .path("/api/test")
+                .ipAddress("10.0.0.1")
+                .build();
+
+        RateLimitDecision first = limiter.tryAcquire(context);
+        assertTrue(first.isAllowed());
+        assertEquals("ip", first.getScope());
+        assertEquals(2, first.getLimit());
+        assertEquals(1, first.getRemaining());
+        assertEquals(0, limiter.tryAcquire(context).getRemaining());
+        long before = System.currentTimeMillis();
+        RateLimitDecision denied = limiter.tryAcquire(context);
+
+        assertFalse(denied.isAllowed());
+        assertEquals("ip", denied.getScope());
+        assertEquals("ip:10.0.0.1", denied.getKey());
+        assertEquals(2, denied.getLimit());
+        assertEquals(0, denied.getRemaining());
+        assertTrue(denied.getResetAtMillis() > before);
+        assertTrue(denied.retryAfterSeconds(before) <= 30);
+    }
+
+    @Test
+    void verifyRequest_deniedUserDoesNotConsumeGlobalQuota() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getGlobal().setLimit(2);
+        properties.getPerUser().setLimit(1);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        RateLimitRequestContext abusive = RateLimitRequestContext.builder().path("/api/test").userId("user-1").build();
+
+        limiter.verifyRequest(abusive);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(abusive));
+        }
+
+        assertDoesNotThrow(() -> limiter.verifyRequest(
+                RateLimitRequestContext.builder().path("/api/test").userId("user-2").build()));
+    }
+
+    @Test
+    void verifyRequest_refundsScopesAcquiredBeforeDenial() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerIp().setLimit(1);
+        properties.getPerUser().setLimit(1);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        limiter.verifyRequest(RateLimitRequestContext.builder().ipAddress("10.0.0.1").userId("user-1").build());
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(
+                RateLimitRequestContext.builder().ipAddress("10.0.0.1").userId("user-2").build()));
+
+        assertEquals("ip:10.0.0.1", ex.getScope());
+        assertDoesNotThrow(() -> limiter.verifyRequest(
+                RateLimitRequestContext.builder().ipAddress("10.0.0.2").userId("user-2").build()));
+    }
+
+    @Test
+    void verifyRequest_stripedRouteWideLimitAppliesToAllCallers() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getStriped().setEnabled(true);
+        properties.getStriped().setSlack(1.0);
+        ApiRateLimitProperties.Route route = new ApiRateLimitProperties.Route();
+        route.setName("search");
+        route.setPattern("/api/search/**");
+        route.getGlobal().setLimit(2);
+        properties.getRoutes().add(route);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        limiter.verifyRequest(RateLimitRequestContext.builder().path("/api/search/shoes").userId("user-1").build());
+        limiter.verifyRequest(RateLimitRequestContext.builder().path("/api/search/boots").ipAddress("10.0.0.1").build());
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(
+                RateLimitRequestContext.builder().path("/api/search/heels").userId("user-2").build()));
+
+        assertEquals("route:search", ex.getScope());
+        assertDoesNotThrow(() -> limiter.verifyRequest(
+                RateLimitRequestContext.builder().path("/api/other").userId("user-2").build()));
+    }
+
+    @Test
+    void verifyRequest_resetsWindowOnInjectedClock() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getGlobal().setLimit(1);
+        long[] now = {1_000};
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        RateLimitRequestContext context = RateLimitRequestContext.builder().path("/api/test").build();
+
+        limiter.verifyRequest(context);
+        now[0] += 29_999;
+        assertThrows(RateLimitExceededException.class, () -> limiter.verifyRequest(context));
+        now[0] += 1;
+        assertDoesNotThrow(() -> limiter.verifyRequest(context));
+    }
+
+    @Test
+    void tryAcquire_deniedKeyIsNotCountedUntilReset() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerIp().setLimit(1);
+        long[] now = {0};
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        RateLimitRequestContext context = RateLimitRequestContext.builder().path("/api/test").ipAddress("10.0.0.1").build();
+
+        assertTrue(limiter.tryAcquire(context).isAllowed());
+        RateLimitDecision denied = limiter.tryAcquire(context);
+        now[0] = 10_000;
+        assertSame(denied, limiter.tryAcquire(context));
+        now[0] = 30_000;
+        assertTrue(limiter.tryAcquire(context).isAllowed());
+    }
+
+    @Test
+    void tryAcquire_penaltyBoxExtendsBlockForHammeringClient() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerIp().setLimit(1);
+        properties.getDenyCache().setPenaltyThreshold(2);
+        properties.getDenyCache().setPenaltyDuration(Duration.ofMinutes(5));
+        long[] now = {0};
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        RateLimitRequestContext context = RateLimitRequestContext.builder().path("/api/test").ipAddress("10.0.0.1").build();
+
+        limiter.tryAcquire(context);
+        limiter.tryAcquire(context);
+        limiter.tryAcquire(context);
+        RateLimitDecision penalized = limiter.tryAcquire(context);
+
+        assertEquals(300_000, penalized.getResetAtMillis());
+        now[0] = 30_000;
+        assertFalse(limiter.tryAcquire(context).isAllowed());
+        now[0] = 300_000;
+        assertTrue(limiter.tryAcquire(context).isAllowed());
+    }
+
+    @Test
+    void close_snapshotsCountersThatSurviveRestart() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getPerUser().setLimit(1);
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setFile(tempDir.resolve("snapshot.bin").toString());
+        RateLimitRequestContext context = RateLimitRequestContext.builder().path("/api/test").userId("user-1").build();
+        long[] now = {1_000};
+
+        InMemoryApiRateLimiter first = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        first.verifyRequest(context);
+        first.close();
+
+        now[0] = 2_000;
+        InMemoryApiRateLimiter restarted = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        assertEquals(1, restarted.getLiveKeyCount());
+        assertThrows(RateLimitExceededException.class, () -> restarted.verifyRequest(context));
+        assertDoesNotThrow(() -> restarted.verifyRequest(
+                RateLimitRequestContext.builder().path("/api/test").userId("user-2").build()));
+    }
+
+    @Test
+    void close_discardsSnapshotWhenStripedSettingsChange() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getGlobal().setLimit(1);
+        properties.getStriped().setEnabled(true);
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setFile(tempDir.resolve("snapshot.bin").toString());
+        RateLimitRequestContext context = RateLimitRequestContext.builder().path("/api/test").build();
+        long[] now = {1_000};
+
+        InMemoryApiRateLimiter first = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        first.verifyRequest(context);
+        first.close();
+
+        now[0] = 2_000;
+        properties.getStriped().setSlack(0.5);
+        InMemoryApiRateLimiter restarted = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        assertEquals(0, restarted.getLiveKeyCount());
+        assertDoesNotThrow(() -> restarted.verifyRequest(context));
+    }
+
+    @Test
+    void tryAcquire_aggregatesClientsBySubnet() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getPerIp().setLimit(1);
+        properties.getPerIp().setIpv4Prefix(24);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("203.0.113.1").build()).isAllowed());
+        RateLimitDecision denied = limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("203.0.113.200").build());
+        assertFalse(denied.isAllowed());
+        assertEquals("ip:203.0.113.0/24", denied.getKey());
+
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("2001:db8:1:2::1").build()).isAllowed());
+        assertFalse(limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("2001:db8:1:2:ffff::9").build()).isAllowed());
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("2001:db8:1:3::1").build()).isAllowed());
+    }
+
+    @Test
+    void tryAcquire_sharesOneBucketForUnparseableAddresses() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getPerIp().setLimit(1);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("garbage-1").build()).isAllowed());
+        assertEquals(IpLimitPolicy.INVALID_KEY,
+                limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("garbage-2").build()).getKey());
+    }
+
+    @Test
+    void tryAcquire_appliesAllowAndDenyRanges() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getPerIp().setLimit(1);
+        properties.getPerIp().getAllow().add("10.0.0.0/8");
+        properties.getPerIp().getDeny().add("10.66.0.0/16");
+        properties.getPerIp().getDeny().add("198.51.100.0/24");
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        RateLimitRequestContext internal = RateLimitRequestContext.builder().ipAddress("10.1.1.1").build();
+
+        assertTrue(limiter.tryAcquire(internal).isAllowed());
+        assertTrue(limiter.tryAcquire(internal).isAllowed());
+        RateLimitDecision denied = limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("10.66.0.5").build());
+        assertFalse(denied.isAllowed());
+        assertEquals(0, denied.getResetAtMillis());
+        assertFalse(limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("198.51.100.9").build()).isAllowed());
+        assertEquals(0, limiter.getLiveKeyCount());
+    }
+
+    @Test
+    void tryAcquire_chargesRouteCostAgainstEveryScope() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerUser().setLimit(10);
+        properties.getGlobal().setLimit(100);
+        ApiRateLimitProperties.Route export = new ApiRateLimitProperties.Route();
+        export.setName("export");
+        export.setPattern("/api/export/**");
+        export.setCost(4);
+        properties.getRoutes().add(export);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        RateLimitRequestContext exportRequest = RateLimitRequestContext.builder()
+                .path("/api/export/orders").userId("user-1").build();
+        RateLimitRequestContext cheapRequest = RateLimitRequestContext.builder()
+                .path("/api/orders").userId("user-1").build();
+
+        assertTrue(limiter.tryAcquire(exportRequest).isAllowed());
+        assertTrue(limiter.tryAcquire(exportRequest).isAllowed());
+        RateLimitDecision denied = limiter.tryAcquire(exportRequest);
+        assertFalse(denied.isAllowed());
+        assertEquals("user:user-1", denied.getKey());
+
+        assertTrue(limiter.tryAcquire(cheapRequest).isAllowed());
+        assertTrue(limiter.tryAcquire(cheapRequest).isAllowed());
+        assertFalse(limiter.tryAcquire(cheapRequest).isAllowed());
+    }
+
+    @Test
+    void tryAcquire_contextCostOverridesRouteCost() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getGlobal().setLimit(10);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/batch").cost(7).build()).isAllowed());
+        assertFalse(limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/batch").cost(4).build()).isAllowed());
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/batch").cost(3).build()).isAllowed());
+        assertFalse(limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/test").build()).isAllowed());
+    }
+
+    @Test
+    void recordOutcome_rejectsCallerAfterTooManyFailures() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        ApiRateLimitProperties.Route login = new ApiRateLimitProperties.Route();
+        login.setName("login");
+        login.setPattern("/api/login");
+        login.getFailures().setLimit(2);
+        properties.getRoutes().add(login);
+        long[] now = {1_000};
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, () -> now[0]);
+        RateLimitRequestContext attempt = RateLimitRequestContext.builder()
+                .path("/api/login").ipAddress("10.0.0.1").userId("user-1").build();
+
+        for (int i = 0; i < 5; i++) {
+            RateLimitDecision decision = limiter.tryAcquire(attempt);
+            assertTrue(decision.isOutcomeTracked());
+            limiter.recordOutcome(attempt, 200, null);
+        }
+        limiter.recordOutcome(attempt, 401, null);
+        limiter.recordOutcome(attempt, 401, null);
+
+        RateLimitDecision denied = limiter.tryAcquire(attempt);
+        assertFalse(denied.isAllowed());
+        assertEquals("route:login:failures:user:user-1", denied.getKey());
+        assertEquals(31_000, denied.getResetAtMillis());
+        assertFalse(limiter.tryAcquire(RateLimitRequestContext.builder()
+                .path("/api/login").ipAddress("10.0.0.1").userId("user-2").build()).isAllowed());
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder()
+                .path("/api/login").ipAddress("10.0.0.2").userId("user-2").build()).isAllowed());
+        RateLimitDecision orders = limiter.tryAcquire(RateLimitRequestContext.builder()
+                .path("/api/orders").ipAddress("10.0.0.1").userId("user-1").build());
+        assertTrue(orders.isAllowed());
+        assertFalse(orders.isOutcomeTracked());
+
+        now[0] = 31_000;
+        assertTrue(limiter.tryAcquire(attempt).isAllowed());
+    }
+
+    @Test
+    void recordOutcome_countsConfiguredStatusesAndExceptions() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        ApiRateLimitProperties.Route verify = new ApiRateLimitProperties.Route();
+        verify.setName("verify");
+        verify.setPattern("/api/verify");
+        verify.getFailures().setLimit(1);
+        verify.getFailures().getStatuses().add(403);
+        verify.getFailures().getExceptions().add(IllegalStateException.class);
+        properties.getRoutes().add(verify);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        RateLimitRequestContext first = RateLimitRequestContext.builder().path("/api/verify").userId("user-1").build();
+        RateLimitRequestContext second = RateLimitRequestContext.builder().path("/api/verify").userId("user-2").build();
+
+        limiter.recordOutcome(first, 404, null);
+        assertTrue(limiter.tryAcquire(first).isAllowed());
+        limiter.recordOutcome(first, 403, null);
+        assertFalse(limiter.tryAcquire(first).isAllowed());
+
+        limiter.recordOutcome(second, 200, new IllegalStateException("code expired"));
+        assertFalse(limiter.tryAcquire(second).isAllowed());
+    }
+
+    @Test
+    void tryAcquire_latePhaseDenialRefundsEarlyPermits() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getGlobal().setLimit(2);
+        properties.getPerIp().setLimit(10);
+        properties.getPerUser().setLimit(1);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(phase("user-1", RateLimitPhase.EARLY)).isAllowed());
+        assertTrue(limiter.tryAcquire(phase("user-1", RateLimitPhase.LATE)).isAllowed());
+        assertTrue(limiter.tryAcquire(phase("user-1", RateLimitPhase.EARLY)).isAllowed());
+        assertEquals("user:user-1", limiter.tryAcquire(phase("user-1", RateLimitPhase.LATE)).getKey());
+
+        assertTrue(limiter.tryAcquire(phase("user-2", RateLimitPhase.EARLY)).isAllowed());
+        assertTrue(limiter.tryAcquire(phase("user-2", RateLimitPhase.LATE)).isAllowed());
+        assertEquals("global", limiter.tryAcquire(phase("user-3", RateLimitPhase.EARLY)).getKey());
+    }
+
+    @Test
+    void tryAcquire_latePhaseDenyCacheAndFailureDenialsRefundEarlyPermits() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getGlobal().setLimit(2);
+        properties.getPerIp().setLimit(3);
+        properties.getPerUser().setLimit(1);
+        ApiRateLimitProperties.Route login = new ApiRateLimitProperties.Route();
+        login.setName("login");
+        login.setPattern("/api/login");
+        login.getFailures().setLimit(1);
+        properties.getRoutes().add(login);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(phase("user-1", RateLimitPhase.EARLY)).isAllowed());
+        assertTrue(limiter.tryAcquire(phase("user-1", RateLimitPhase.LATE)).isAllowed());
+        assertEquals("user:user-1", limiter.tryAcquire(phase("user-1", RateLimitPhase.ALL)).getKey());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(phase("user-1", RateLimitPhase.EARLY)).isAllowed());
+            assertEquals("user:user-1", limiter.tryAcquire(phase("user-1", RateLimitPhase.LATE)).getKey());
+        }
+
+        RateLimitRequestContext loginAttempt = RateLimitRequestContext.builder()
+                .path("/api/login").ipAddress("10.0.0.1").userId("user-2").build();
+        limiter.recordOutcome(loginAttempt, 401, null);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(phase("user-2", RateLimitPhase.EARLY)).isAllowed());
+            assertFalse(limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/login").ipAddress("10.0.0.1")
+                    .userId("user-2").phase(RateLimitPhase.LATE).build()).isAllowed());
+        }
+
+        assertTrue(limiter.tryAcquire(phase("user-3", RateLimitPhase.EARLY)).isAllowed());
+        assertTrue(limiter.tryAcquire(phase("user-3", RateLimitPhase.LATE)).isAllowed());
+        assertEquals("global", limiter.tryAcquire(phase("user-4", RateLimitPhase.EARLY)).getKey());
+    }
+
+    @Test
+    void tryAcquire_reportsDecisionsAndUsageToMetrics() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerIp().setLimit(2);
+        ApiRateLimitProperties.Route search = new ApiRateLimitProperties.Route();
+        search.setName("search");
+        search.setPattern("/api/search/**");
+        search.getPerUser().setLimit(1);
+        properties.getRoutes().add(search);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        List<String> recorded = new ArrayList<>();
+        limiter.setMetrics(new RateLimitMetrics() {
+            @Override
+            public void recordDecision(RateLimitDecision decision, String route, long latencyNanos) {
+                recorded.add((decision.isAllowed() ? "allowed" : "denied:" + RateLimitMetrics.scopeType(decision.getScope()))
+                        + "@" + route);
+            }
+
+            @Override
+            public void recordUsage(String scope, long used, long limit) {
+                recorded.add(RateLimitMetrics.scopeType(scope) + "=" + used + "/" + limit);
+            }
+        });
+
+        limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/search/shoes").ipAddress("10.0.0.1").userId("user-1").build());
+        limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/search/shoes").ipAddress("10.0.0.1").userId("user-1").build());
+        limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/orders").ipAddress("10.0.0.1").build());
+        limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/orders").ipAddress("10.0.0.1").build());
+
+        assertEquals(List.of("route=1/1", "ip=1/2", "allowed@search", "denied:route@search", "ip=2/2", "allowed@null",
+                "denied:ip@null"), recorded);
+    }
+
+    @Test
+    void reload_appliesNewLimitsWithoutDroppingCounters() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerUser().setLimit(2);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        RateLimitRequestContext search = RateLimitRequestContext.builder().path("/api/search").userId("user-1").build();
+
+        assertTrue(limiter.tryAcquire(search).isAllowed());
+        properties.getPerUser().setLimit(1);
+        assertTrue(limiter.tryAcquire(search).isAllowed());
+
+        ApiRateLimitProperties reloaded = new ApiRateLimitProperties();
+        reloaded.setDefaultWindow(Duration.ofSeconds(30));
+        reloaded.getPerUser().setLimit(3);
+        ApiRateLimitProperties.Route route = new ApiRateLimitProperties.Route();
+        route.setName("search");
+        route.setPattern("/api/search");
+        route.setCost(2);
+        reloaded.getRoutes().add(route);
+        limiter.reload(reloaded);
+
+        RateLimitDecision denied = limiter.tryAcquire(search);
+        assertFalse(denied.isAllowed());
+        assertEquals(3, denied.getLimit());
+        assertTrue(limiter.tryAcquire(RateLimitRequestContext.builder().path("/api/orders").userId("user-1").build())
+                .isAllowed());
+    }
+
+    @Test
+    void reload_rebuildsGcraCountersWhoseBurstChanged() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setAlgorithm(ApiRateLimitProperties.Algorithm.GCRA);
+        properties.setDefaultWindow(Duration.ofHours(1));
+        properties.getPerUser().setLimit(100);
+        properties.getPerUser().setBurst(1);
+        properties.getGlobal().setLimit(1_000);
+        properties.getGlobal().setBurst(1_000);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, () -> 1_000L);
+        RateLimitRequestContext context = RateLimitRequestContext.builder().path("/api/test").userId("user-1").build();
+
+        assertTrue(limiter.tryAcquire(context).isAllowed());
+        assertFalse(limiter.tryAcquire(context).isAllowed());
+
+        properties.getPerUser().setBurst(3);
+        limiter.reload(properties);
+
+        assertTrue(limiter.tryAcquire(context).isAllowed());
+        assertTrue(limiter.tryAcquire(context).isAllowed());
+        assertTrue(limiter.tryAcquire(context).isAllowed());
+        assertFalse(limiter.tryAcquire(context).isAllowed());
+        assertEquals(2, limiter.getLiveKeyCount());
+    }
+
+    @Test
+    void tryAcquire_reportsPermitsLeftWhenCostlierRequestIsDenied() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerUser().setLimit(5);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, () -> 1_000L);
+
+        limiter.tryAcquire(RateLimitRequestContext.builder().userId("user-1").cost(3).build());
+        RateLimitDecision denied = limiter.tryAcquire(RateLimitRequestContext.builder().userId("user-1").cost(3).build());
+
+        assertFalse(denied.isAllowed());
+        assertEquals(2, denied.getRemaining());
+    }
+
+    @Test
+    void tryAcquire_sharedOverflowKeepsLimitsOfOneScopeApart() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getGlobal().setLimit(0);
+        properties.getPerUser().setLimit(0);
+        properties.getPerIp().setLimit(0);
+        properties.setMaxKeys(1);
+        properties.setOverflowPolicy(ApiRateLimitProperties.OverflowPolicy.SHARED);
+        ApiRateLimitProperties.Route route = new ApiRateLimitProperties.Route();
+        route.setName("login");
+        route.setPattern("/api/login");
+        route.getPerUser().setLimit(1);
+        route.getGlobal().setLimit(5);
+        properties.getRoutes().add(route);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, () -> 1_000L);
+
+        assertTrue(limiter.tryAcquire(login("user-a")).isAllowed());
+        assertTrue(limiter.tryAcquire(login("user-b")).isAllowed());
+        RateLimitDecision denied = limiter.tryAcquire(login("user-c"));
+
+        assertFalse(denied.isAllowed());
+        assertEquals("route:login:user:user-c", denied.getKey());
+    }
+
+    private static RateLimitRequestContext login(String userId) {
+        return RateLimitRequestContext.builder().path("/api/login").userId(userId).build();
+    }
+
+    private static RateLimitRequestContext phase(String userId, RateLimitPhase phase) {
+        return RateLimitRequestContext.builder()
+                .path("/api/test").ipAddress("10.0.0.1").userId(userId).phase(phase).build();
+    }
 }
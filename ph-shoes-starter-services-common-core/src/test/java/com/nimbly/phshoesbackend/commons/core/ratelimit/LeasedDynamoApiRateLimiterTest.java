@@ -0,0 +1,178 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.LimitConfig;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+class LeasedDynamoApiRateLimiterTest {
+
+    private static final String TABLE = "api_rate_limits";
+    private static final long WINDOW = 60_000;
+
+    @Test
+    void tryAcquire_servesLeasedBlockFromMemory() {
+        DynamoDbClient client = DynamoApiRateLimiterTest.fakeCountingClient();
+        ApiRateLimitProperties properties = leaseProperties(5, 5);
+        LeasedDynamoApiRateLimiter limiter = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("user", "user:u1", limit(10), 1, WINDOW, 1_000));
+        }
+
+        verify(client, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void tryAcquire_neverAdmitsMoreThanLimitAcrossInstances() {
+        DynamoDbClient client = DynamoApiRateLimiterTest.fakeCountingClient();
+        ApiRateLimitProperties properties = leaseProperties(3, 3);
+        LeasedDynamoApiRateLimiter first = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+        LeasedDynamoApiRateLimiter second = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            admitted += first.tryAcquire("user", "user:u1", limit(4), 1, WINDOW, 1_000) ? 1 : 0;
+            admitted += second.tryAcquire("user", "user:u1", limit(4), 1, WINDOW, 1_000) ? 1 : 0;
+        }
+
+        assertEquals(4, admitted);
+    }
+
+    @Test
+    void tryAcquire_growsBlockWithRequestRate() {
+        Map<String, Long> hits = new HashMap<>();
+        DynamoDbClient client = DynamoApiRateLimiterTest.fakeCountingClient(hits);
+        ApiRateLimitProperties properties = leaseProperties(1, 50);
+        LeasedDynamoApiRateLimiter limiter = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+
+        limiter.tryAcquire("user", "user:u1", limit(1_000), 1, WINDOW, 1_000);
+        limiter.tryAcquire("user", "user:u1", limit(1_000), 1, WINDOW, 1_000);
+
+        assertEquals(51L, hits.get(TABLE + "/user:u1#0"));
+    }
+
+    @Test
+    void tryAcquire_leasesAtLeastTheRequestedPermits() {
+        Map<String, Long> hits = new HashMap<>();
+        DynamoDbClient client = DynamoApiRateLimiterTest.fakeCountingClient(hits);
+        ApiRateLimitProperties properties = leaseProperties(2, 2);
+        LeasedDynamoApiRateLimiter limiter = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+
+        assertTrue(limiter.tryAcquire("user", "user:u1", limit(10), 5, WINDOW, 1_000));
+        assertEquals(5L, hits.get(TABLE + "/user:u1#0"));
+        assertFalse(limiter.tryAcquire("user", "user:u1", limit(10), 6, WINDOW, 1_000));
+        assertTrue(limiter.tryAcquire("user", "user:u1", limit(10), 5, WINDOW, 1_000));
+    }
+
+    @Test
+    void endedLease_handsUnusedPermitsBack() {
+        Map<String, Long> hits = new HashMap<>();
+        DynamoDbClient client = DynamoApiRateLimiterTest.fakeCountingClient(hits);
+        ApiRateLimitProperties properties = leaseProperties(5, 5);
+        properties.setSweepInterval(Duration.ofMillis(1));
+        LeasedDynamoApiRateLimiter limiter = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+
+        limiter.tryAcquire("user", "user:u1", limit(10), 1, WINDOW, 1_000);
+        limiter.tryAcquire("user", "user:u2", limit(10), 1, WINDOW, 7_000);
+
+        assertEquals(1L, hits.get(TABLE + "/user:u1#0"));
+        assertEquals(1, limiter.getLiveLeaseCount());
+    }
+
+    @Test
+    void tryAcquire_limitsLocallyWhenStoreUnavailable() {
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        when(client.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(SdkClientException.builder().message("timeout").build());
+        ApiRateLimitProperties properties = leaseProperties(1, 10);
+        properties.getDynamo().getLease().setFallbackRatio(0.2);
+        LeasedDynamoApiRateLimiter limiter = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+
+        assertTrue(limiter.tryAcquire("user", "user:u1", limit(10), 1, WINDOW, 1_000));
+        assertTrue(limiter.tryAcquire("user", "user:u1", limit(10), 1, WINDOW, 1_000));
+        assertFalse(limiter.tryAcquire("user", "user:u1", limit(10), 1, WINDOW, 1_000));
+        verify(client, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void tryAcquire_countsRemotelyWhenLeaseStoreIsFull() {
+        DynamoDbClient client = DynamoApiRateLimiterTest.fakeCountingClient();
+        ApiRateLimitProperties properties = leaseProperties(5, 5);
+        properties.setMaxKeys(1);
+        LeasedDynamoApiRateLimiter limiter = new LeasedDynamoApiRateLimiter(client, properties, TABLE, Runnable::run);
+
+        limiter.tryAcquire("user", "user:u1", limit(10), 1, WINDOW, 1_000);
+        limiter.tryAcquire("user", "user:u2", limit(10), 1, WINDOW, 1_000);
+        limiter.tryAcquire("user", "user:u2", limit(10), 1, WINDOW, 1_000);
+
+        assertEquals(1, limiter.getLiveLeaseCount());
+        verify(client, times(3)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void release_doesNotWaitForRenewalInFlight() throws Exception {
+        DynamoDbClient counting = DynamoApiRateLimiterTest.fakeCountingClient();
+        CountDownLatch renewing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        when(client.updateItem(any(UpdateItemRequest.class))).thenAnswer(invocation -> {
+            renewing.countDown();
+            proceed.await();
+            return counting.updateItem(invocation.getArgument(0, UpdateItemRequest.class));
+        });
+        LeasedDynamoApiRateLimiter limiter =
+                new LeasedDynamoApiRateLimiter(client, leaseProperties(5, 5), TABLE, Runnable::run);
+
+        CompletableFuture<Boolean> acquire = CompletableFuture.supplyAsync(
+                () -> limiter.tryAcquire("user", "user:u1", limit(10), 1, WINDOW, 1_000));
+        assertTrue(renewing.await(5, TimeUnit.SECONDS));
+        try {
+            CompletableFuture.runAsync(() -> {
+                limiter.release("user", "user:u1", limit(10), 1, WINDOW, 1_000);
+                limiter.resetAt("user", "user:u1", limit(10), WINDOW, 1_000);
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            proceed.countDown();
+        }
+
+        assertTrue(acquire.get(5, TimeUnit.SECONDS));
+    }
+
+    private static ApiRateLimitProperties leaseProperties(long minBlock, long maxBlock) {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setStore(ApiRateLimitProperties.Store.DYNAMO);
+        ApiRateLimitProperties.Lease lease = properties.getDynamo().getLease();
+        lease.setEnabled(true);
+        lease.setDuration(Duration.ofSeconds(5));
+        lease.setMinBlock(minBlock);
+        lease.setMaxBlock(maxBlock);
+        return properties;
+    }
+
+    private static LimitConfig limit(long limit) {
+        LimitConfig config = new LimitConfig();
+        config.setLimit(limit);
+        return config;
+    }
+}
@@ -0,0 +1,64 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MicrometerRateLimitMetricsTest {
+
+    @Test
+    void recordDecision_countsByOutcomeScopeTypeAndRoute() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerRateLimitMetrics metrics = new MicrometerRateLimitMetrics(registry);
+
+        metrics.recordDecision(RateLimitDecision.allowed(), "search", 1_000);
+        metrics.recordDecision(RateLimitDecision.allowed(), "search", 1_000);
+        metrics.recordDecision(RateLimitDecision.allowed(), null, 1_000);
+        metrics.recordDecision(RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/search", 5, 0), "search", 1_000);
+        metrics.recordDecision(RateLimitDecision.denied("ip", "ip:10.0.0.2", "/api/search", 5, 0), "search", 1_000);
+
+        assertEquals(2, registry.get(MicrometerRateLimitMetrics.DECISIONS)
+                .tags("outcome", "allowed", "route", "search").counter().count());
+        assertEquals(1, registry.get(MicrometerRateLimitMetrics.DECISIONS)
+                .tags("outcome", "allowed", "route", "none").counter().count());
+        assertEquals(2, registry.get(MicrometerRateLimitMetrics.DECISIONS)
+                .tags("outcome", "denied", "scope", "ip", "route", "search").counter().count());
+        assertEquals(3, registry.get(MicrometerRateLimitMetrics.DECISIONS).counters().size());
+        assertEquals(5, registry.get(MicrometerRateLimitMetrics.LATENCY).timer().count());
+    }
+
+    @Test
+    void recordUsage_recordsShareOfLimitPerScopeType() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerRateLimitMetrics metrics = new MicrometerRateLimitMetrics(registry);
+
+        metrics.recordUsage("route:search", 9, 10);
+        metrics.recordUsage("route:orders", 5, 10);
+
+        assertEquals(2, registry.get(MicrometerRateLimitMetrics.USAGE).tag("scope", "route").summary().count());
+        assertEquals(1.4, registry.get(MicrometerRateLimitMetrics.USAGE).tag("scope", "route").summary().totalAmount(),
+                1e-9);
+    }
+
+    @Test
+    void monitor_exposesLiveKeysAndEvictions() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getPerIp().setLimit(5);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MicrometerRateLimitMetrics(registry).monitor(limiter);
+
+        limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("10.0.0.1").build());
+        limiter.tryAcquire(RateLimitRequestContext.builder().ipAddress("10.0.0.2").build());
+
+        assertEquals(2, registry.get(MicrometerRateLimitMetrics.KEYS).gauge().value());
+        assertEquals(0, registry.get(MicrometerRateLimitMetrics.EVICTIONS).functionCounter().count());
+    }
+}
@@ -0,0 +1,88 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties.OverflowPolicy;
+
+class RateLimitCounterStoreTest {
+
+    private static final long WINDOW = 1_000;
+
+    @Test
+    void evictExpired_dropsIdleCounters() {
+        RateLimitCounterStore store = new RateLimitCounterStore(10, OverflowPolicy.SHARED, 60_000, Runnable::run);
+
+        store.resolve("ip:a", FixedWindowCounter::new, 0).tryAcquire(5, WINDOW, 0);
+        store.resolve("ip:b", FixedWindowCounter::new, 0).tryAcquire(5, WINDOW, 500);
+
+        store.evictExpired(1_200);
+
+        assertEquals(1, store.size());
+        assertEquals(1, store.evictionCount());
+    }
+
+    @Test
+    void resolve_sweepsAtMostOncePerInterval() {
+        RateLimitCounterStore store = new RateLimitCounterStore(10, OverflowPolicy.SHARED, 5_000, Runnable::run);
+
+        store.resolve("ip:a", FixedWindowCounter::new, 0).tryAcquire(5, WINDOW, 0);
+        store.resolve("ip:b", FixedWindowCounter::new, 2_000);
+        assertEquals(2, store.size());
+
+        store.resolve("ip:b", FixedWindowCounter::new, 5_000);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void resolve_failOpenReturnsNullAtCapacity() {
+        RateLimitCounterStore store = new RateLimitCounterStore(1, OverflowPolicy.FAIL_OPEN, 60_000, Runnable::run);
+
+        store.resolve("ip:a", FixedWindowCounter::new, 0);
+
+        assertNull(store.resolve("ip:b", FixedWindowCounter::new, 0));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void resolve_failClosedDeniesAtCapacity() {
+        RateLimitCounterStore store = new RateLimitCounterStore(1, OverflowPolicy.FAIL_CLOSED, 60_000, Runnable::run);
+
+        store.resolve("ip:a", FixedWindowCounter::new, 0);
+
+        assertFalse(store.resolve("ip:b", FixedWindowCounter::new, 0).tryAcquire(5, WINDOW, 0));
+    }
+
+    @Test
+    void resolve_sharedPolicyCollapsesOverflowPerBucket() {
+        RateLimitCounterStore store = new RateLimitCounterStore(1, OverflowPolicy.SHARED, 60_000, Runnable::run,
+                key -> key.substring(0, key.indexOf(':') + 1));
+
+        RateLimitCounter tracked = store.resolve("ip:a", FixedWindowCounter::new, 0);
+        RateLimitCounter first = store.resolve("ip:b", FixedWindowCounter::new, 0);
+        RateLimitCounter second = store.resolve("ip:c", FixedWindowCounter::new, 0);
+
+        assertNotSame(tracked, first);
+        assertSame(first, second);
+        assertTrue(first.tryAcquire(1, WINDOW, 0));
+        assertFalse(second.tryAcquire(1, WINDOW, 0));
+    }
+
+    @Test
+    void resolve_sharedPolicySeparatesOverflowBuckets() {
+        RateLimitCounterStore store = new RateLimitCounterStore(1, OverflowPolicy.SHARED, 60_000, Runnable::run,
+                key -> key.substring(0, key.indexOf(':') + 1));
+
+        store.resolve("ip:a", FixedWindowCounter::new, 0);
+        RateLimitCounter ip = store.resolve("ip:b", FixedWindowCounter::new, 0);
+        RateLimitCounter user = store.resolve("user:b", FixedWindowCounter::new, 0);
+
+        assertNotSame(ip, user);
+    }
+}
@@ -0,0 +1,221 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimitCounterTest {
+
+    private static final long WINDOW = 1_000;
+
+    @Test
+    void fixedWindow_resetsWhenWindowElapses() {
+        FixedWindowCounter counter = new FixedWindowCounter();
+
+        assertTrue(counter.tryAcquire(2, WINDOW, 0));
+        assertTrue(counter.tryAcquire(2, WINDOW, 500));
+        assertFalse(counter.tryAcquire(2, WINDOW, 999));
+        assertTrue(counter.tryAcquire(2, WINDOW, 1_000));
+    }
+
+    @Test
+    void slidingCounter_weightsPreviousBucketAcrossBoundary() {
+        SlidingWindowCounter counter = new SlidingWindowCounter();
+
+        assertTrue(counter.tryAcquire(2, WINDOW, 900));
+        assertTrue(counter.tryAcquire(2, WINDOW, 950));
+        // A fixed window would admit two more right after the boundary.
+        assertFalse(counter.tryAcquire(2, WINDOW, 1_000));
+        // 40% of the previous bucket has slid out: estimate 2 * 0.6 = 1.2, one more fits.
+        assertTrue(counter.tryAcquire(2, WINDOW, 1_400));
+        assertFalse(counter.tryAcquire(2, WINDOW, 1_450));
+    }
+
+    @Test
+    void slidingCounter_dropsHistoryAfterIdleWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter();
+
+        assertTrue(counter.tryAcquire(1, WINDOW, 100));
+        assertFalse(counter.tryAcquire(1, WINDOW, 200));
+        assertTrue(counter.tryAcquire(1, WINDOW, 2_100));
+    }
+
+    @Test
+    void slidingLog_admitsExactlyLimitWithinTrailingWindow() {
+        SlidingLogCounter counter = new SlidingLogCounter(3);
+
+        assertTrue(counter.tryAcquire(3, WINDOW, 0));
+        assertTrue(counter.tryAcquire(3, WINDOW, 400));
+        assertTrue(counter.tryAcquire(3, WINDOW, 800));
+        assertFalse(counter.tryAcquire(3, WINDOW, 999));
+        assertTrue(counter.tryAcquire(3, WINDOW, 1_000));
+        assertFalse(counter.tryAcquire(3, WINDOW, 1_300));
+        assertTrue(counter.tryAcquire(3, WINDOW, 1_400));
+    }
+
+    @Test
+    void slidingLog_growsBufferUpToLimit() {
+        SlidingLogCounter counter = new SlidingLogCounter(40);
+
+        for (int i = 0; i < 40; i++) {
+            assertTrue(counter.tryAcquire(40, WINDOW, i));
+        }
+        assertFalse(counter.tryAcquire(40, WINDOW, 40));
+        assertTrue(counter.tryAcquire(40, WINDOW, 1_000));
+    }
+
+    @Test
+    void gcra_allowsBurstThenSpacesRequests() {
+        GcraCounter counter = new GcraCounter(2);
+
+        assertTrue(counter.tryAcquire(4, WINDOW, 0));
+        assertTrue(counter.tryAcquire(4, WINDOW, 0));
+        assertFalse(counter.tryAcquire(4, WINDOW, 0));
+        assertFalse(counter.tryAcquire(4, WINDOW, 249));
+        assertTrue(counter.tryAcquire(4, WINDOW, 250));
+        assertFalse(counter.tryAcquire(4, WINDOW, 251));
+    }
+
+    @Test
+    void gcra_refillsContinuouslyAfterIdle() {
+        GcraCounter counter = new GcraCounter(1);
+
+        assertTrue(counter.tryAcquire(10, WINDOW, 0));
+        assertFalse(counter.tryAcquire(10, WINDOW, 50));
+        assertTrue(counter.tryAcquire(10, WINDOW, 100));
+        assertTrue(counter.tryAcquire(10, WINDOW, 5_000));
+    }
+
+    @Test
+    void resetAt_reportsWhenEachAlgorithmAdmitsAgain() {
+        FixedWindowCounter fixed = new FixedWindowCounter();
+        fixed.tryAcquire(1, WINDOW, 100);
+        assertEquals(1100, fixed.resetAt(1, WINDOW, 200));
+
+        SlidingWindowCounter sliding = new SlidingWindowCounter();
+        sliding.tryAcquire(2, WINDOW, 0);
+        sliding.tryAcquire(2, WINDOW, 0);
+        assertFalse(sliding.tryAcquire(2, WINDOW, 1000));
+        assertEquals(1001, sliding.resetAt(2, WINDOW, 1000));
+        assertTrue(sliding.tryAcquire(2, WINDOW, 1001));
+
+        SlidingLogCounter log = new SlidingLogCounter(2);
+        log.tryAcquire(2, WINDOW, 0);
+        log.tryAcquire(2, WINDOW, 300);
+        assertFalse(log.tryAcquire(2, WINDOW, 500));
+        assertEquals(1000, log.resetAt(2, WINDOW, 500));
+
+        GcraCounter gcra = new GcraCounter(2);
+        gcra.tryAcquire(4, WINDOW, 0);
+        gcra.tryAcquire(4, WINDOW, 0);
+        assertFalse(gcra.tryAcquire(4, WINDOW, 0));
+        assertEquals(250, gcra.resetAt(4, WINDOW, 0));
+    }
+
+    @Test
+    void release_returnsPermitToEachAlgorithm() {
+        RateLimitCounter[] counters = {
+                new FixedWindowCounter(), new SlidingWindowCounter(), new SlidingLogCounter(2), new GcraCounter(2),
+                new StripedWindowCounter(0, 1.0)
+        };
+        for (RateLimitCounter counter : counters) {
+            assertTrue(counter.tryAcquire(2, WINDOW, 100));
+            assertTrue(counter.tryAcquire(2, WINDOW, 100));
+            counter.release(2, WINDOW, 100);
+            assertTrue(counter.tryAcquire(2, WINDOW, 100), counter.getClass().getSimpleName());
+            assertFalse(counter.tryAcquire(2, WINDOW, 100), counter.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void striped_checksLiveSumWithinSlackOfLimit() {
+        StripedWindowCounter counter = new StripedWindowCounter(60_000, 1.0);
+
+        assertTrue(counter.tryAcquire(3, WINDOW, 0));
+        assertTrue(counter.tryAcquire(3, WINDOW, 10));
+        assertTrue(counter.tryAcquire(3, WINDOW, 20));
+        assertFalse(counter.tryAcquire(3, WINDOW, 30));
+        assertEquals(WINDOW, counter.resetAt(3, WINDOW, 30));
+        assertTrue(counter.tryAcquire(3, WINDOW, WINDOW));
+    }
+
+    @Test
+    void striped_overAdmitsAtMostOneSyncIntervalFarFromLimit() {
+        StripedWindowCounter counter = new StripedWindowCounter(100, 0);
+
+        assertTrue(counter.tryAcquire(2, WINDOW, 0));
+        assertTrue(counter.tryAcquire(2, WINDOW, 50));
+        assertTrue(counter.tryAcquire(2, WINDOW, 99));
+        assertFalse(counter.tryAcquire(2, WINDOW, 100));
+    }
+
+    @Test
+    void tryAcquire_takesAllPermitsOrNone() {
+        RateLimitCounter[] counters = {
+                new FixedWindowCounter(), new SlidingWindowCounter(), new SlidingLogCounter(10), new GcraCounter(10),
+                new StripedWindowCounter(0, 1.0)
+        };
+        for (RateLimitCounter counter : counters) {
+            String name = counter.getClass().getSimpleName();
+            assertTrue(counter.tryAcquire(6, 10, WINDOW, 100), name);
+            assertFalse(counter.tryAcquire(5, 10, WINDOW, 100), name);
+            assertTrue(counter.tryAcquire(4, 10, WINDOW, 100), name);
+            assertFalse(counter.tryAcquire(10, WINDOW, 100), name);
+            counter.release(3, 10, WINDOW, 100);
+            assertTrue(counter.tryAcquire(3, 10, WINDOW, 100), name);
+            assertFalse(counter.tryAcquire(10, WINDOW, 100), name);
+        }
+    }
+
+    @Test
+    void tryAcquire_neverAdmitsMorePermitsThanLimit() {
+        RateLimitCounter[] counters = {
+                new FixedWindowCounter(), new SlidingWindowCounter(), new SlidingLogCounter(4), new GcraCounter(4),
+                new StripedWindowCounter(0, 1.0)
+        };
+        for (RateLimitCounter counter : counters) {
+            assertFalse(counter.tryAcquire(5, 4, WINDOW, 100), counter.getClass().getSimpleName());
+            assertTrue(counter.tryAcquire(4, 4, WINDOW, 100), counter.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void fixedWindow_deniedRequestNeverHoldsPermits() throws InterruptedException {
+        FixedWindowCounter counter = new FixedWindowCounter();
+        assertTrue(counter.tryAcquire(9, 10, WINDOW, 100));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread expensive = new Thread(() -> {
+            while (running.get()) {
+                counter.tryAcquire(5, 10, WINDOW, 100);
+            }
+        });
+        expensive.start();
+        try {
+            for (int i = 0; i < 100_000; i++) {
+                assertEquals(9, counter.used(10, WINDOW, 100));
+            }
+        } finally {
+            running.set(false);
+            expensive.join();
+        }
+        assertTrue(counter.tryAcquire(1, 10, WINDOW, 100));
+    }
+
+    @Test
+    void used_reportsPermitsCountedInWindow() {
+        RateLimitCounter[] counters = {
+                new FixedWindowCounter(), new SlidingWindowCounter(), new SlidingLogCounter(10), new GcraCounter(10)
+        };
+        for (RateLimitCounter counter : counters) {
+            String name = counter.getClass().getSimpleName();
+            assertEquals(0, counter.used(10, WINDOW, 100), name);
+            assertTrue(counter.tryAcquire(3, 10, WINDOW, 100), name);
+            assertEquals(3, counter.used(10, WINDOW, 100), name);
+            assertEquals(0, counter.used(10, WINDOW, 100 + 2 * WINDOW), name);
+        }
+    }
+}
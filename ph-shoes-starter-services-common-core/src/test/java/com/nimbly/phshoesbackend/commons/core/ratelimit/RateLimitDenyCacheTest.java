@@ -0,0 +1,73 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimitDenyCacheTest {
+
+    @Test
+    void check_returnsCachedDenialUntilReset() {
+        RateLimitDenyCache cache = new RateLimitDenyCache(10, 0, 60_000, 3_600_000);
+        RateLimitDecision denied = RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/test", 5, 2_000);
+
+        cache.block(denied, true, 1_000);
+
+        assertSame(denied, cache.check("ip:10.0.0.1", 1_999));
+        assertNull(cache.check("ip:10.0.0.2", 1_999));
+        assertNull(cache.check("ip:10.0.0.1", 2_000));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void block_skipsDenialsWithoutFutureReset() {
+        RateLimitDenyCache cache = new RateLimitDenyCache(10, 0, 60_000, 3_600_000);
+
+        cache.block(RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/test", 5, 0), true, 1_000);
+
+        assertNull(cache.check("ip:10.0.0.1", 1_000));
+    }
+
+    @Test
+    void check_escalatesPenaltyForClientsThatKeepHammering() {
+        RateLimitDenyCache cache = new RateLimitDenyCache(10, 3, 10_000, 25_000);
+        cache.block(RateLimitDecision.denied("user", "user:1", "/api/test", 5, 2_000), true, 1_000);
+
+        cache.check("user:1", 1_100);
+        cache.check("user:1", 1_200);
+        assertEquals(11_300, cache.check("user:1", 1_300).getResetAtMillis());
+
+        cache.check("user:1", 5_000);
+        cache.check("user:1", 5_000);
+        assertEquals(25_000, cache.check("user:1", 5_000).getResetAtMillis());
+
+        cache.check("user:1", 6_000);
+        cache.check("user:1", 6_000);
+        assertEquals(31_000, cache.check("user:1", 6_000).getResetAtMillis());
+    }
+
+    @Test
+    void check_neverPenalizesSharedKeys() {
+        RateLimitDenyCache cache = new RateLimitDenyCache(10, 1, 10_000, 25_000);
+        cache.block(RateLimitDecision.denied("global", "global", "/api/test", 5, 2_000), false, 1_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(2_000, cache.check("global", 1_500).getResetAtMillis());
+        }
+    }
+
+    @Test
+    void block_dropsExpiredEntriesWhenFull() {
+        RateLimitDenyCache cache = new RateLimitDenyCache(2, 0, 60_000, 3_600_000);
+        cache.block(RateLimitDecision.denied("ip", "ip:1", "/api/test", 5, 2_000), true, 1_000);
+        cache.block(RateLimitDecision.denied("ip", "ip:2", "/api/test", 5, 5_000), true, 1_000);
+
+        cache.block(RateLimitDecision.denied("ip", "ip:3", "/api/test", 5, 5_000), true, 3_000);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.check("ip:1", 3_000));
+        assertEquals(5_000, cache.check("ip:3", 3_000).getResetAtMillis());
+    }
+}
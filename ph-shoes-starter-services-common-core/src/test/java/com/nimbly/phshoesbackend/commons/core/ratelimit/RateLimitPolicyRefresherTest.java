@@ -0,0 +1,53 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+
+class RateLimitPolicyRefresherTest {
+
+    @Test
+    void refresh_bindsLimitsFromEnvironment() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        properties.getGlobal().setLimit(100);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties);
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "phshoes.api.rate-limit.default-window", "30s",
+                "phshoes.api.rate-limit.global.limit", "100",
+                "phshoes.api.rate-limit.routes[0].name", "export",
+                "phshoes.api.rate-limit.routes[0].pattern", "/api/export/**",
+                "phshoes.api.rate-limit.routes[0].global.limit", "1")));
+        RateLimitPolicyRefresher refresher = new RateLimitPolicyRefresher(limiter, environment);
+        RateLimitRequestContext export = RateLimitRequestContext.builder().path("/api/export/orders").build();
+
+        assertTrue(limiter.tryAcquire(export).isAllowed());
+        assertTrue(limiter.tryAcquire(export).isAllowed());
+
+        refresher.refresh();
+
+        assertTrue(limiter.tryAcquire(export).isAllowed());
+        RateLimitDecision denied = limiter.tryAcquire(export);
+        assertFalse(denied.isAllowed());
+        assertEquals("route:export", denied.getScope());
+    }
+
+    @Test
+    void supportsEventType_ignoresOtherEvents() {
+        RateLimitPolicyRefresher refresher = new RateLimitPolicyRefresher(
+                new InMemoryApiRateLimiter(new ApiRateLimitProperties()), new StandardEnvironment());
+
+        assertFalse(refresher.supportsEventType(ContextRefreshedEvent.class));
+    }
+}
@@ -0,0 +1,76 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimitRejectionLogTest {
+
+    @Test
+    void record_tracksAtMostMaxKeys() {
+        RateLimitRejectionLog rejectionLog = new RateLimitRejectionLog(Duration.ofMinutes(1), 2, Runnable::run);
+
+        for (int i = 0; i < 5; i++) {
+            rejectionLog.record(RateLimitDecision.denied("ip", "ip:10.0.0." + i, "/api/test", 5, 1_000));
+        }
+
+        assertEquals(2, rejectionLog.trackedKeyCount());
+    }
+
+    @Test
+    void record_doesNotCountTheRejectionLoggedOnItsOwn() {
+        RateLimitRejectionLog rejectionLog = new RateLimitRejectionLog(Duration.ofMinutes(1), 10, Runnable::run);
+        RateLimitDecision denied = RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/test", 5, 1_000);
+
+        rejectionLog.record(denied);
+        assertEquals(0, rejectionLog.pendingCount());
+
+        rejectionLog.record(denied);
+        rejectionLog.record(denied);
+        assertEquals(2, rejectionLog.pendingCount());
+    }
+
+    @Test
+    void flush_forgetsKeysWithoutNewRejections() {
+        RateLimitRejectionLog rejectionLog = new RateLimitRejectionLog(Duration.ofMinutes(1), 10, Runnable::run);
+        RateLimitDecision denied = RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/test", 5, 1_000);
+
+        rejectionLog.record(denied);
+        rejectionLog.record(denied);
+        rejectionLog.record(RateLimitDecision.denied("user", "user:1", "/api/test", 5, 1_000));
+        rejectionLog.flush();
+        assertEquals(1, rejectionLog.trackedKeyCount());
+
+        rejectionLog.flush();
+        assertEquals(0, rejectionLog.trackedKeyCount());
+    }
+
+    @Test
+    void flush_runsOnceRejectionsStop() throws InterruptedException {
+        RateLimitRejectionLog rejectionLog = new RateLimitRejectionLog(Duration.ofMillis(10), 10, Runnable::run);
+        RateLimitDecision denied = RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/test", 5, 1_000);
+
+        rejectionLog.record(denied);
+        rejectionLog.record(denied);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (rejectionLog.trackedKeyCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, rejectionLog.trackedKeyCount());
+    }
+
+    @Test
+    void close_flushesPendingRejections() {
+        RateLimitRejectionLog rejectionLog = new RateLimitRejectionLog(Duration.ofMinutes(1), 10, Runnable::run);
+        RateLimitDecision denied = RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/test", 5, 1_000);
+
+        rejectionLog.record(denied);
+        rejectionLog.record(denied);
+        rejectionLog.close();
+
+        assertEquals(0, rejectionLog.pendingCount());
+    }
+}
@@ -0,0 +1,87 @@
+package com.nimbly.phshoesbackend.commons.core.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RateLimitSnapshotTest {
+
+    private static final long WINDOW = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restore_resumesEachAlgorithmWhereItStopped() throws IOException {
+        Map<String, RateLimitCounter> counters = new HashMap<>();
+        counters.put("fixed", new FixedWindowCounter());
+        counters.put("sliding", new SlidingWindowCounter());
+        counters.put("log", new SlidingLogCounter(2));
+        counters.put("gcra", new GcraCounter(2));
+        counters.put("striped", new StripedWindowCounter(0, 0));
+        for (RateLimitCounter counter : counters.values()) {
+            assertTrue(counter.tryAcquire(2, WINDOW, 1_000));
+            assertTrue(counter.tryAcquire(2, WINDOW, 1_000));
+        }
+        Path file = tempDir.resolve("counters.bin");
+
+        assertEquals(5, RateLimitSnapshot.write(file, counters, 7, 1_500));
+        RateLimitSnapshot snapshot = RateLimitSnapshot.open(file, 7, 2_000);
+
+        assertEquals(5, snapshot.size());
+        for (String key : counters.keySet()) {
+            RateLimitCounter restored = snapshot.restore(key, 2_000);
+            assertFalse(restored.tryAcquire(2, WINDOW, 2_000), key);
+            assertEquals(counters.get(key).expiresAt(), restored.expiresAt(), key);
+        }
+        assertNull(snapshot.restore("missing", 2_000));
+    }
+
+    @Test
+    void open_skipsExpiredWindowsAndOtherConfigurations() throws IOException {
+        FixedWindowCounter shortLived = new FixedWindowCounter();
+        shortLived.tryAcquire(5, 1_000, 0);
+        FixedWindowCounter longLived = new FixedWindowCounter();
+        longLived.tryAcquire(5, WINDOW, 0);
+        Path file = tempDir.resolve("counters.bin");
+        RateLimitSnapshot.write(file, Map.of("short", shortLived, "long", longLived), 7, 500);
+
+        RateLimitSnapshot snapshot = RateLimitSnapshot.open(file, 7, 2_000);
+        Map<String, RateLimitCounter> restored = new HashMap<>();
+        snapshot.forEach(2_000, restored::put);
+
+        assertEquals(1, restored.size());
+        assertTrue(restored.containsKey("long"));
+        assertNull(snapshot.restore("short", 2_000));
+        assertNull(RateLimitSnapshot.open(file, 8, 2_000));
+        assertNull(RateLimitSnapshot.open(file, 7, WINDOW));
+        assertNull(RateLimitSnapshot.open(tempDir.resolve("missing.bin"), 7, 2_000));
+    }
+
+    @Test
+    void open_rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = tempDir.resolve("garbage.bin");
+        Files.write(file, new byte[64]);
+
+        assertThrows(IOException.class, () -> RateLimitSnapshot.open(file, 7, 0));
+    }
+
+    @Test
+    void write_skipsCountersThatAreNotPersisted() throws IOException {
+        Path file = tempDir.resolve("counters.bin");
+
+        assertEquals(0, RateLimitSnapshot.write(file, Map.of("closed", RateLimitCounterStore.DENY_ALL), 7, 0));
+        assertNull(RateLimitSnapshot.open(file, 7, 0));
+    }
+}
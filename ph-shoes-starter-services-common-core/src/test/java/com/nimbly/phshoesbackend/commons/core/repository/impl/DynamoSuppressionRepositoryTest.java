@@ -1,5 +1,6 @@
 package com.nimbly.phshoesbackend.commons.core.repository.impl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -104,6 +105,37 @@ class DynamoSuppressionRepositoryTest {
         assertFalse(repository.isSuppressed("hash123"));
     }
 
+    @Test
+    void isSuppressed_comparesTtlWithInjectedClock() {
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        SuppressionProperties properties = new SuppressionProperties();
+        Map<String, AttributeValue> item = Map.of(
+                properties.getEmailHashAttribute(), AttributeValue.fromS("hash123"),
+                properties.getExpiresAtAttribute(), AttributeValue.fromN("1000"));
+        when(client.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().item(item).build());
+        long[] now = {999_999};
+        DynamoSuppressionRepository repository = new DynamoSuppressionRepository(client, properties, () -> now[0]);
+
+        assertTrue(repository.isSuppressed("hash123"));
+        now[0] = 1_000_000;
+        assertFalse(repository.isSuppressed("hash123"));
+    }
+
+    @Test
+    void put_defaultsCreatedAtToClock() {
+        DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
+        SuppressionProperties properties = new SuppressionProperties();
+        DynamoSuppressionRepository repository = new DynamoSuppressionRepository(client, properties, () -> 42_500L);
+
+        SuppressionEntry entry = new SuppressionEntry();
+        entry.setEmailHash("hash123");
+        repository.put(entry);
+
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(client).putItem(captor.capture());
+        assertEquals("42", captor.getValue().item().get(properties.getCreatedAtAttribute()).n());
+    }
+
     @Test
     void remove_skipsWhenBlank() {
         DynamoDbClient client = Mockito.mock(DynamoDbClient.class);
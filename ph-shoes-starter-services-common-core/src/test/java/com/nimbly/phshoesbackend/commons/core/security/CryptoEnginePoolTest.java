@@ -0,0 +1,47 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class CryptoEnginePoolTest {
+
+    @Test
+    void borrow_reusesReleasedEngine() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CryptoEnginePool<Object> pool = new CryptoEnginePool<>(2, () -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+
+        Object first = pool.borrow();
+        pool.release(first);
+
+        assertSame(first, pool.borrow());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void borrow_createsEngineWhenPoolIsEmpty() throws Exception {
+        CryptoEnginePool<Object> pool = new CryptoEnginePool<>(2, Object::new);
+
+        Object first = pool.borrow();
+        Object second = pool.borrow();
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void release_dropsEnginesBeyondCapacity() throws Exception {
+        CryptoEnginePool<Object> pool = new CryptoEnginePool<>(1, Object::new);
+
+        pool.release(pool.borrow());
+        pool.release(new Object());
+
+        assertEquals(1, pool.idleCount());
+    }
+}
@@ -0,0 +1,94 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbly.phshoesbackend.commons.core.config.EmailSecurityProperties;
+
+class EmailCryptoBatchTest {
+
+    private final EmailCrypto crypto = new EmailCrypto(buildProperties());
+
+    @Test
+    void hashAll_matchesSingleHashesInInputOrder() {
+        List<String> emails = IntStream.range(0, 50).mapToObj(i -> "user" + i + "@example.com").toList();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<EmailCryptoResult> results = new EmailCryptoBatch(crypto, pool, 7).hashAll(emails);
+
+            assertEquals(50, results.size());
+            for (int i = 0; i < emails.size(); i++) {
+                assertEquals(i, results.get(i).index());
+                assertEquals(crypto.hash(emails.get(i)), results.get(i).value());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void encryptAll_roundTripsThroughDecryptAll() {
+        EmailCryptoBatch batch = new EmailCryptoBatch(crypto, Runnable::run, 3);
+        List<String> emails = List.of("a@example.com", "b@example.com", "a-much-longer-address+tag@example.com", "c@x.io");
+
+        List<EmailCryptoResult> encrypted = batch.encryptAll(emails.stream());
+        List<String> ciphertexts = encrypted.stream().map(EmailCryptoResult::value).toList();
+        List<EmailCryptoResult> decrypted = batch.decryptAll(ciphertexts);
+
+        assertEquals(emails, decrypted.stream().map(EmailCryptoResult::value).toList());
+        assertEquals(emails.get(2), crypto.decrypt(ciphertexts.get(2)));
+    }
+
+    @Test
+    void decryptAll_reportsFailuresWithoutAbortingTheBatch() {
+        EmailCryptoBatch batch = new EmailCryptoBatch(crypto, Runnable::run, 10);
+        byte[] tampered = Base64.getDecoder().decode(crypto.encrypt("person@example.com"));
+        tampered[tampered.length - 1] ^= 1;
+        List<String> input = new ArrayList<>(Arrays.asList(
+                Base64.getEncoder().encodeToString(tampered),
+                "not base64!",
+                "AAAA",
+                null,
+                crypto.encrypt("person@example.com")));
+
+        List<EmailCryptoResult> results = batch.decryptAll(input.spliterator());
+
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertTrue(results.get(3).isSuccess());
+        assertNull(results.get(3).value());
+        assertEquals("person@example.com", results.get(4).value());
+    }
+
+    @Test
+    void create_runsOnItsOwnExecutor() {
+        EmailSecurityProperties.Batch settings = new EmailSecurityProperties.Batch();
+        settings.setParallelism(2);
+        settings.setChunkSize(2);
+
+        try (EmailCryptoBatch batch = EmailCryptoBatch.create(crypto, settings)) {
+            List<EmailCryptoResult> results = batch.hashAll(List.of("a@example.com", "b@example.com", "c@example.com"));
+
+            assertEquals(crypto.hash("c@example.com"), results.get(2).value());
+        }
+    }
+
+    private static EmailSecurityProperties buildProperties() {
+        EmailSecurityProperties properties = new EmailSecurityProperties();
+        properties.setHmacPepperB64(Base64.getEncoder().encodeToString(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+        properties.setAesKeyB64(Base64.getEncoder().encodeToString(new byte[32]));
+        return properties;
+    }
+}
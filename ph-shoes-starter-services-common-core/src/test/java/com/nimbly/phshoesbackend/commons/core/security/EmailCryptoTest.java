@@ -3,10 +3,23 @@ package com.nimbly.phshoesbackend.commons.core.security;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 
@@ -21,6 +34,30 @@ class EmailCryptoTest {
         assertEquals("test+label@gmail.com", crypto.normalize(" Test+Label@Gmail.Com "));
     }
 
+    @Test
+    void normalize_asciiFastPathMatchesUnicodePath() {
+        EmailCrypto crypto = new EmailCrypto(buildProperties());
+
+        for (String email : NORMALIZATION_SAMPLES) {
+            assertEquals(referenceNormalize(email), crypto.normalize(email), email);
+        }
+    }
+
+    @Test
+    void hashCandidates_matchesVariantsBuiltWithSubstrings() {
+        EmailCrypto crypto = new EmailCrypto(buildProperties());
+
+        for (String email : NORMALIZATION_SAMPLES) {
+            String normalized = referenceNormalize(email);
+            Set<String> candidates = new LinkedHashSet<>();
+            candidates.add(normalized);
+            candidates.addAll(referenceVariations(normalized));
+            List<String> expected = candidates.stream().map(crypto::hash).toList();
+
+            assertEquals(expected, crypto.hashCandidates(email), email);
+        }
+    }
+
     @Test
     void hashCandidates_includesVariants() {
         EmailCrypto crypto = new EmailCrypto(buildProperties());
@@ -40,6 +77,70 @@ class EmailCryptoTest {
         assertEquals("person@example.com", decrypted);
     }
 
+    @Test
+    void byteArrayOverloads_encryptAndDecryptInPlace() {
+        EmailCrypto crypto = new EmailCrypto(buildProperties());
+        byte[] plaintext = "person@example.com".getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[EmailCrypto.encryptedLength(plaintext.length) + 4];
+        System.arraycopy(plaintext, 0, buffer, 16, plaintext.length);
+
+        int encryptedLength = crypto.encrypt(buffer, 16, plaintext.length, buffer, 4);
+        String encoded = Base64.getEncoder().encodeToString(Arrays.copyOfRange(buffer, 4, 4 + encryptedLength));
+        int decryptedLength = crypto.decrypt(buffer, 4, encryptedLength, buffer, 4);
+
+        assertEquals("person@example.com", crypto.decrypt(encoded));
+        assertEquals("person@example.com", new String(buffer, 4, decryptedLength, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void byteBufferOverloads_matchStringMethods() {
+        EmailCrypto crypto = new EmailCrypto(buildProperties());
+        ByteBuffer plaintext = ByteBuffer.allocateDirect(64);
+        plaintext.put("person@example.com".getBytes(StandardCharsets.UTF_8)).flip();
+        ByteBuffer digest = ByteBuffer.allocate(EmailCrypto.HASH_LENGTH);
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(64);
+        ByteBuffer decrypted = ByteBuffer.allocate(64);
+
+        crypto.hash(plaintext.duplicate(), digest);
+        crypto.encrypt(plaintext.duplicate(), encrypted);
+        encrypted.flip();
+        crypto.decrypt(encrypted, decrypted);
+        decrypted.flip();
+
+        assertEquals(crypto.hash("person@example.com"),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(digest.array()));
+        assertEquals("person@example.com", StandardCharsets.UTF_8.decode(decrypted).toString());
+    }
+
+    @Test
+    void byteArrayOverloads_rejectShortOutputAndPayload() {
+        EmailCrypto crypto = new EmailCrypto(buildProperties());
+        byte[] plaintext = "person@example.com".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> crypto.encrypt(plaintext, 0, plaintext.length, new byte[plaintext.length], 0));
+        assertThrows(IllegalArgumentException.class, () -> crypto.hash(plaintext, 0, plaintext.length, new byte[16], 0));
+        assertThrows(IllegalStateException.class, () -> crypto.decrypt(new byte[8], 0, 8, new byte[8], 0));
+    }
+
+    @Test
+    void hashCache_returnsSameHashesAndCountsHits() {
+        EmailSecurityProperties properties = buildProperties();
+        properties.getHashCache().setEnabled(true);
+        EmailCrypto cached = new EmailCrypto(properties);
+        EmailCrypto uncached = new EmailCrypto(buildProperties());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(uncached.hash("person@example.com"), cached.hash("person@example.com"));
+            assertEquals(uncached.hashCandidates("User.Name+Tag@Gmail.com"),
+                    cached.hashCandidates("user.name+tag@gmail.com"));
+        }
+
+        assertEquals(4, cached.getHashCache().getHitCount());
+        assertEquals(2, cached.getHashCache().getMissCount());
+        assertNull(uncached.getHashCache());
+    }
+
     @Test
     void matchesLegacyHash_withSharedKey() {
         EmailSecurityProperties properties = buildProperties();
@@ -52,6 +153,88 @@ class EmailCryptoTest {
         assertFalse(crypto.matchesLegacyHash(hash, "other@example.com"));
     }
 
+    @Test
+    void hashAndEncrypt_areConsistentAcrossVirtualThreads() throws Exception {
+        EmailCrypto crypto = new EmailCrypto(buildProperties());
+        String expectedHash = crypto.hash("shared@example.com");
+        List<String> expectedCandidates = crypto.hashCandidates("user.name+tag@gmail.com");
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                String email = "user" + i + "@example.com";
+                results.add(executor.submit(() -> expectedHash.equals(crypto.hash("shared@example.com"))
+                        && expectedCandidates.equals(crypto.hashCandidates("user.name+tag@gmail.com"))
+                        && email.equals(crypto.decrypt(crypto.encrypt(email)))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+    }
+
+    @Test
+    void decrypt_rejectsTamperedPayloadAndKeepsWorking() {
+        EmailCrypto crypto = new EmailCrypto(buildProperties());
+        byte[] payload = Base64.getDecoder().decode(crypto.encrypt("person@example.com"));
+        payload[payload.length - 1] ^= 1;
+        String tampered = Base64.getEncoder().encodeToString(payload);
+
+        assertThrows(IllegalStateException.class, () -> crypto.decrypt(tampered));
+        assertEquals("person@example.com", crypto.decrypt(crypto.encrypt("person@example.com")));
+    }
+
+    private static final List<String> NORMALIZATION_SAMPLES = List.of(
+            "person@example.com",
+            "  Person@Example.COM\t",
+            "First.Last+Promo@GMail.com",
+            "first.last+promo+more@googlemail.com",
+            ".a.b.@gmail.com",
+            "a+b@gmail.com.evil",
+            "user+tag@example.com",
+            "user@example.com+tag",
+            "plain-local-part",
+            "\u0001x@y.z\u0001",
+            "a@b@gmail.com",
+            "J\u00fcrgen+News@Example.com",
+            "\uff21\uff22@example.com",
+            "\u00a0user@example.com",
+            "stra\u00dfe@gmail.com",
+            "\u0130nfo@example.com");
+
+    private static String referenceNormalize(String email) {
+        String trimmed = Normalizer.normalize(email.trim(), Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int at = trimmed.indexOf('@');
+        if (at < 0) {
+            return trimmed;
+        }
+        return trimmed.substring(0, at) + "@" + trimmed.substring(at + 1);
+    }
+
+    private static List<String> referenceVariations(String normalizedEmail) {
+        int at = normalizedEmail.indexOf('@');
+        if (at < 0) {
+            return List.of();
+        }
+        String local = normalizedEmail.substring(0, at);
+        String domain = normalizedEmail.substring(at + 1);
+        List<String> variations = new ArrayList<>();
+        if (domain.equals("gmail.com") || domain.equals("googlemail.com")) {
+            String withoutDots = local.replace(".", "");
+            variations.add(withoutDots + "@" + domain);
+            int plus = withoutDots.indexOf('+');
+            if (plus >= 0) {
+                variations.add(withoutDots.substring(0, plus) + "@" + domain);
+            }
+        } else {
+            int plus = local.indexOf('+');
+            if (plus >= 0) {
+                variations.add(local.substring(0, plus) + "@" + domain);
+            }
+        }
+        return variations;
+    }
+
     private static EmailSecurityProperties buildProperties() {
         EmailSecurityProperties properties = new EmailSecurityProperties();
         properties.setHmacPepperB64(Base64.getEncoder().encodeToString(fixedBytes(32, (byte) 0x1f)));
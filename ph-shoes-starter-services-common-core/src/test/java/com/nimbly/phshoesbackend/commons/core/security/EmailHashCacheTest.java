@@ -0,0 +1,71 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class EmailHashCacheTest {
+
+    @Test
+    void hash_servesRepeatedLookupsFromCache() {
+        EmailHashCache cache = new EmailHashCache(10, Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, String> loader = email -> {
+            loads.incrementAndGet();
+            return "hash-of-" + email;
+        };
+
+        assertEquals("hash-of-a@example.com", cache.hash("a@example.com", loader));
+        assertEquals("hash-of-a@example.com", cache.hash("a@example.com", loader));
+        assertEquals("hash-of-b@example.com", cache.hash("b@example.com", loader));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1.0 / 3, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void hashAndCandidates_areCachedSeparately() {
+        EmailHashCache cache = new EmailHashCache(10, null);
+
+        cache.hash("a@example.com", email -> "single");
+        List<String> candidates = cache.hashCandidates("a@example.com", email -> List.of("first", "second"));
+
+        assertEquals(List.of("first", "second"), candidates);
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void put_evictsUnreferencedEntriesFirstOnceFull() {
+        EmailHashCache cache = new EmailHashCache(2, null);
+        cache.hash("a", email -> "a");
+        cache.hash("b", email -> "b");
+        cache.hash("a", email -> "reloaded");
+
+        cache.hash("c", email -> "c");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("a", cache.hash("a", email -> "reloaded"));
+        assertEquals("b-reloaded", cache.hash("b", email -> "b-reloaded"));
+    }
+
+    @Test
+    void get_treatsExpiredEntriesAsMisses() throws InterruptedException {
+        EmailHashCache cache = new EmailHashCache(10, Duration.ofMillis(1));
+        cache.hash("a", email -> "old");
+
+        Thread.sleep(5);
+
+        assertEquals("new", cache.hash("a", email -> "new"));
+        assertEquals(0, cache.getHitCount());
+        assertTrue(cache.size() <= 1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.nimbly.phshoesbackend.commons.core.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MicrometerEmailHashCacheMetricsTest {
+
+    @Test
+    void bindTo_publishesHitsMissesAndRatio() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EmailHashCache cache = new EmailHashCache(10, Duration.ofMinutes(1));
+        new MicrometerEmailHashCacheMetrics(cache).bindTo(registry);
+
+        cache.hash("a@example.com", email -> "hash");
+        cache.hash("a@example.com", email -> "hash");
+
+        assertEquals(1.0, registry.get(MicrometerEmailHashCacheMetrics.GETS).tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get(MicrometerEmailHashCacheMetrics.GETS).tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(0.5, registry.get(MicrometerEmailHashCacheMetrics.HIT_RATIO).gauge().value());
+        assertEquals(1.0, registry.get(MicrometerEmailHashCacheMetrics.SIZE).gauge().value());
+    }
+}
@@ -0,0 +1,63 @@
+package com.nimbly.phshoesbackend.commons.core.time;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+class CachedEpochClockTest {
+
+    @Test
+    void tick_refreshesReadingAndNeverGoesBackwards() {
+        long[] source = {1_000};
+        try (CachedEpochClock clock = new CachedEpochClock(() -> source[0], Duration.ofHours(1))) {
+            assertEquals(1_000, clock.currentTimeMillis());
+
+            source[0] = 1_005;
+            assertEquals(1_000, clock.currentTimeMillis());
+            clock.tick();
+            assertEquals(1_005, clock.currentTimeMillis());
+
+            source[0] = 990;
+            clock.tick();
+            assertEquals(1_005, clock.currentTimeMillis());
+        }
+    }
+
+    @Test
+    void ticker_followsSystemClock() throws InterruptedException {
+        try (CachedEpochClock clock = new CachedEpochClock(Duration.ofMillis(1))) {
+            long first = clock.currentTimeMillis();
+            Thread.sleep(50);
+
+            assertTrue(clock.currentTimeMillis() > first);
+            assertTrue(Math.abs(System.currentTimeMillis() - clock.currentTimeMillis()) < 1_000);
+        }
+    }
+
+    @Test
+    void asJavaClock_readsSameMillis() {
+        EpochClock clock = () -> 42_000L;
+
+        assertEquals(42_000L, clock.asJavaClock().millis());
+        assertEquals(42L, clock.asJavaClock().instant().getEpochSecond());
+    }
+
+    @Test
+    void asJavaClock_withZoneKeepsTicking() {
+        long[] now = {42_000L};
+        EpochClock clock = () -> now[0];
+        Clock manila = clock.asJavaClock().withZone(ZoneId.of("Asia/Manila"));
+
+        now[0] = 43_000L;
+
+        assertEquals(43_000L, manila.millis());
+        assertEquals(ZoneId.of("Asia/Manila"), manila.getZone());
+        assertEquals(ZoneOffset.UTC, manila.withZone(ZoneOffset.UTC).getZone());
+    }
+}
@@ -1,14 +1,18 @@
 package com.nimbly.phshoesbackend.commons.core.security.autoconfig;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
 import com.nimbly.phshoesbackend.commons.core.security.jwt.JwtAuthenticationFilter;
 import com.nimbly.phshoesbackend.commons.core.security.jwt.JwtSecurityProperties;
 import com.nimbly.phshoesbackend.commons.core.security.jwt.JwtTokenService;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
 @AutoConfiguration
 @EnableConfigurationProperties(JwtSecurityProperties.class)
@@ -17,15 +21,23 @@ public class JwtSecurityAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = "phshoes.security.jwt", name = "enabled", havingValue = "true", matchIfMissing = true)
-    public JwtTokenService jwtTokenService(JwtSecurityProperties properties) {
-        return new JwtTokenService(properties);
+    public JwtTokenService jwtTokenService(JwtSecurityProperties properties, ObjectProvider<EpochClock> clock) {
+        return new JwtTokenService(properties, clock.getIfAvailable(EpochClock::system));
     }
 
-    @Bean
-    @ConditionalOnMissingBean
-    @ConditionalOnProperty(prefix = "phshoes.security.jwt", name = "enabled", havingValue = "true", matchIfMissing = true)
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtTokenService jwtTokenService,
-                                                           JwtSecurityProperties properties) {
-        return new JwtAuthenticationFilter(jwtTokenService, properties);
+    /**
+     * Kept apart so reactive applications without the servlet API never load {@link JwtAuthenticationFilter}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "jakarta.servlet.Filter")
+    static class ServletFilterConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "phshoes.security.jwt", name = "enabled", havingValue = "true", matchIfMissing = true)
+        public JwtAuthenticationFilter jwtAuthenticationFilter(JwtTokenService jwtTokenService,
+                                                               JwtSecurityProperties properties) {
+            return new JwtAuthenticationFilter(jwtTokenService, properties);
+        }
     }
 }
@@ -0,0 +1,29 @@
+package com.nimbly.phshoesbackend.commons.core.security.autoconfig;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.server.WebFilter;
+
+import com.nimbly.phshoesbackend.commons.core.security.jwt.JwtAuthenticationWebFilter;
+import com.nimbly.phshoesbackend.commons.core.security.jwt.JwtSecurityProperties;
+import com.nimbly.phshoesbackend.commons.core.security.jwt.JwtTokenService;
+
+@AutoConfiguration(after = JwtSecurityAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnClass(WebFilter.class)
+public class ReactiveJwtSecurityAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(JwtTokenService.class)
+    @ConditionalOnProperty(prefix = "phshoes.security.jwt", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public JwtAuthenticationWebFilter jwtAuthenticationWebFilter(JwtTokenService jwtTokenService,
+                                                                 JwtSecurityProperties properties) {
+        return new JwtAuthenticationWebFilter(jwtTokenService, properties);
+    }
+}
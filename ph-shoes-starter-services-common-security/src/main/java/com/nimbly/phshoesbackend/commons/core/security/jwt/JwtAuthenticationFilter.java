@@ -8,11 +8,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.nimbly.phshoesbackend.commons.core.path.PathPatternIndex;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,12 +24,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtTokenService jwtTokenService;
-    private final JwtSecurityProperties securityProperties;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final PathPatternIndex<String> skipPaths;
 
     public JwtAuthenticationFilter(JwtTokenService jwtTokenService, JwtSecurityProperties securityProperties) {
         this.jwtTokenService = jwtTokenService;
-        this.securityProperties = securityProperties;
+        this.skipPaths = PathPatternIndex.of(securityProperties.getSkipPaths());
     }
 
     @Override
@@ -54,7 +53,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
-        if (securityProperties.getSkipPaths().isEmpty()) {
+        if (skipPaths.isEmpty()) {
             return false;
         }
         String path = request.getRequestURI();
@@ -65,11 +64,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (path.isEmpty()) {
             path = "/";
         }
-        for (String pattern : securityProperties.getSkipPaths()) {
-            if (pattern != null && pathMatcher.match(pattern, path)) {
-                return true;
-            }
-        }
-        return false;
+        return skipPaths.matchesAny(path);
     }
 }
@@ -0,0 +1,76 @@
+package com.nimbly.phshoesbackend.commons.core.security.jwt;
+
+import java.util.Collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.nimbly.phshoesbackend.commons.core.path.PathPatternIndex;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of {@link JwtAuthenticationFilter}: a valid token becomes the authentication of the reactive
+ * security context, an invalid one is ignored and left to the authorization rules. Verification is a local HMAC
+ * check, so it runs on the event loop.
+ */
+public class JwtAuthenticationWebFilter implements WebFilter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+
+    private final JwtTokenService jwtTokenService;
+    private final PathPatternIndex<String> skipPaths;
+    private final int order;
+
+    public JwtAuthenticationWebFilter(JwtTokenService jwtTokenService, JwtSecurityProperties securityProperties) {
+        this(jwtTokenService, securityProperties, Ordered.HIGHEST_PRECEDENCE + 100);
+    }
+
+    public JwtAuthenticationWebFilter(JwtTokenService jwtTokenService,
+                                      JwtSecurityProperties securityProperties,
+                                      int order) {
+        this.jwtTokenService = jwtTokenService;
+        this.skipPaths = PathPatternIndex.of(securityProperties.getSkipPaths());
+        this.order = order;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(jwtTokenService.getHeaderName());
+        if (header == null || header.isBlank() || shouldNotFilter(exchange)) {
+            return chain.filter(exchange);
+        }
+        UsernamePasswordAuthenticationToken authentication;
+        try {
+            String token = jwtTokenService.extractToken(header);
+            DecodedJWT decoded = jwtTokenService.parseAccess(token);
+            authentication = new UsernamePasswordAuthenticationToken(decoded.getSubject(), decoded, Collections.emptyList());
+        } catch (JWTVerificationException | JwtVerificationException ex) {
+            log.debug("jwt.filter.reject reason={}", ex.getMessage());
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+
+    private boolean shouldNotFilter(ServerWebExchange exchange) {
+        if (skipPaths.isEmpty()) {
+            return false;
+        }
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        return skipPaths.matchesAny(path.isEmpty() ? "/" : path);
+    }
+}
@@ -1,49 +1,58 @@
 package com.nimbly.phshoesbackend.commons.core.security.jwt;
 
-import java.time.Instant;
 import java.util.Date;
+import java.util.Objects;
 import java.util.UUID;
 
 import org.springframework.util.StringUtils;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
-import com.auth0.jwt.interfaces.Verification;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
 public class JwtTokenService {
 
     private final JwtSecurityProperties properties;
+    private final EpochClock clock;
     private final Algorithm algorithm;
     private final JWTVerifier verifier;
 
     public JwtTokenService(JwtSecurityProperties properties) {
+        this(properties, EpochClock.system());
+    }
+
+    /**
+     * @param clock source of issue and expiry times, also used when verifying expiry
+     */
+    public JwtTokenService(JwtSecurityProperties properties, EpochClock clock) {
         this.properties = properties;
+        this.clock = Objects.requireNonNull(clock, "clock");
         if (!StringUtils.hasText(properties.getSecret())) {
             throw new IllegalStateException("phshoes.security.jwt.secret must be configured");
         }
         this.algorithm = Algorithm.HMAC256(properties.getSecret());
-        Verification verification = JWT.require(algorithm);
+        JWTVerifier.BaseVerification verification = (JWTVerifier.BaseVerification) JWT.require(algorithm);
         if (StringUtils.hasText(properties.getIssuer())) {
             verification.withIssuer(properties.getIssuer());
         }
         if (StringUtils.hasText(properties.getAudience())) {
             verification.withAudience(properties.getAudience().split(","));
         }
-        this.verifier = verification.build();
+        this.verifier = verification.build(clock.asJavaClock());
     }
 
     public String issueAccessToken(String userId, String email) {
-        Instant now = Instant.now();
-        Instant expiresAt = now.plusSeconds(properties.getAccessTtlSeconds());
+        long now = clock.currentTimeMillis();
+        long expiresAt = now + properties.getAccessTtlSeconds() * 1000;
         var builder = JWT.create()
                 .withIssuer(properties.getIssuer())
                 .withSubject(userId)
                 .withClaim("email", email)
-                .withIssuedAt(Date.from(now))
-                .withExpiresAt(Date.from(expiresAt))
+                .withIssuedAt(new Date(now))
+                .withExpiresAt(new Date(expiresAt))
                 .withJWTId(UUID.randomUUID().toString());
         if (StringUtils.hasText(properties.getAudience())) {
             builder.withAudience(properties.getAudience().split(","));
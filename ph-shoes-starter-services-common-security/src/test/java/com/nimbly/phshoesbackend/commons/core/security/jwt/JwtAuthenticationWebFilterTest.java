@@ -0,0 +1,69 @@
+package com.nimbly.phshoesbackend.commons.core.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+class JwtAuthenticationWebFilterTest {
+
+    @Test
+    void filter_setsAuthenticationWhenTokenValid() {
+        JwtSecurityProperties properties = new JwtSecurityProperties();
+        properties.setSecret("secret");
+        JwtTokenService tokenService = new JwtTokenService(properties);
+        JwtAuthenticationWebFilter filter = new JwtAuthenticationWebFilter(tokenService, properties);
+
+        String token = tokenService.issueAccessToken("user-1", "user@example.com");
+        Authentication authentication = authenticationSeenByChain(filter, "/api/test", "Bearer " + token);
+
+        assertEquals("user-1", authentication.getName());
+    }
+
+    @Test
+    void filter_ignoresInvalidToken() {
+        JwtSecurityProperties properties = new JwtSecurityProperties();
+        properties.setSecret("secret");
+        JwtAuthenticationWebFilter filter = new JwtAuthenticationWebFilter(new JwtTokenService(properties), properties);
+
+        assertNull(authenticationSeenByChain(filter, "/api/test", "Bearer not-a-token"));
+    }
+
+    @Test
+    void filter_skipsWhenPathExcluded() {
+        JwtSecurityProperties properties = new JwtSecurityProperties();
+        properties.setSecret("secret");
+        properties.getSkipPaths().add("/public/**");
+        JwtTokenService tokenService = new JwtTokenService(properties);
+        JwtAuthenticationWebFilter filter = new JwtAuthenticationWebFilter(tokenService, properties);
+
+        String token = tokenService.issueAccessToken("user-1", "user@example.com");
+
+        assertNull(authenticationSeenByChain(filter, "/public/health", "Bearer " + token));
+    }
+
+    private static Authentication authenticationSeenByChain(JwtAuthenticationWebFilter filter,
+                                                            String path,
+                                                            String header) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path)
+                .header("Authorization", header));
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        WebFilterChain chain = ignored -> ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .doOnNext(seen::set)
+                .then();
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return seen.get();
+    }
+}
@@ -27,6 +27,20 @@ class JwtTokenServiceTest {
         assertEquals("user@example.com", service.parseAccess(token).getClaim("email").asString());
     }
 
+    @Test
+    void parseAccess_checksExpiryAgainstInjectedClock() {
+        JwtSecurityProperties properties = buildProperties();
+        properties.setAccessTtlSeconds(60);
+        long[] now = {1_700_000_000_000L};
+        JwtTokenService service = new JwtTokenService(properties, () -> now[0]);
+        String token = service.issueAccessToken("user-1", "user@example.com");
+
+        now[0] += 59_000;
+        assertEquals("user-1", service.parseAccess(token).getSubject());
+        now[0] += 2_000;
+        assertThrows(JwtVerificationException.class, () -> service.parseAccess(token));
+    }
+
     @Test
     void extractToken_requiresPrefixWhenConfigured() {
         JwtSecurityProperties properties = buildProperties();
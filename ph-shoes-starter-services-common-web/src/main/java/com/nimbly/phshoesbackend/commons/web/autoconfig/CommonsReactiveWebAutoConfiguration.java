@@ -0,0 +1,95 @@
+package com.nimbly.phshoesbackend.commons.web.autoconfig;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.WebFilter;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.config.props.ServiceStatusProperties;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ConcurrencyLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPhase;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
+import com.nimbly.phshoesbackend.commons.core.status.ServiceStatusContributor;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+import com.nimbly.phshoesbackend.commons.web.ratelimit.ReactiveApiRateLimitWebFilter;
+import com.nimbly.phshoesbackend.commons.web.status.ReactiveServiceStatusHandler;
+import com.nimbly.phshoesbackend.commons.web.status.ServiceStatusReporter;
+
+/**
+ * WebFlux variant of {@link CommonsWebAutoConfiguration}.
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnClass(WebFilter.class)
+public class CommonsReactiveWebAutoConfiguration {
+
+    /**
+     * Runs after the security web filter chain, which Spring Security orders at -100, so the principal is known.
+     */
+    private static final int RATE_LIMIT_FILTER_ORDER = 0;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "enabled", havingValue = "true")
+    @ConditionalOnBean(ApiRateLimiter.class)
+    @ConditionalOnMissingBean
+    public RateLimitRejectionLog rateLimitRejectionLog(ApiRateLimitProperties properties) {
+        Duration logInterval = properties.getRejectionLogInterval() != null
+                ? properties.getRejectionLogInterval()
+                : Duration.ofMinutes(1);
+        return new RateLimitRejectionLog(logInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "enabled", havingValue = "true")
+    @ConditionalOnBean(ApiRateLimiter.class)
+    @ConditionalOnMissingBean(name = "apiRateLimitWebFilter")
+    public ReactiveApiRateLimitWebFilter apiRateLimitWebFilter(ApiRateLimiter apiRateLimiter,
+                                                               RateLimitRejectionLog rejectionLog,
+                                                               ObjectProvider<EpochClock> clock,
+                                                               ObjectProvider<ConcurrencyLimiter> concurrencyLimiter) {
+        return new ReactiveApiRateLimitWebFilter(apiRateLimiter, clock.getIfAvailable(EpochClock::system), rejectionLog,
+                concurrencyLimiter.getIfAvailable(), RateLimitPhase.ALL, RATE_LIMIT_FILTER_ORDER);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = {"enabled", "early-filter.enabled"}, havingValue = "true")
+    @ConditionalOnBean(ApiRateLimiter.class)
+    @ConditionalOnMissingBean(name = "earlyApiRateLimitWebFilter")
+    public ReactiveApiRateLimitWebFilter earlyApiRateLimitWebFilter(ApiRateLimiter apiRateLimiter,
+                                                                    ApiRateLimitProperties properties,
+                                                                    RateLimitRejectionLog rejectionLog,
+                                                                    ObjectProvider<EpochClock> clock) {
+        return new ReactiveApiRateLimitWebFilter(apiRateLimiter, clock.getIfAvailable(EpochClock::system), rejectionLog,
+                null, RateLimitPhase.EARLY, properties.getEarlyFilter().getOrder());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "phshoes.status", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    public ReactiveServiceStatusHandler reactiveServiceStatusHandler(ServiceStatusProperties properties,
+                                                                     ObjectProvider<ServiceStatusContributor> contributors) {
+        return new ReactiveServiceStatusHandler(new ServiceStatusReporter(properties, contributors));
+    }
+
+    @Bean
+    @ConditionalOnBean(ReactiveServiceStatusHandler.class)
+    @ConditionalOnMissingBean(name = "serviceStatusRoute")
+    public RouterFunction<ServerResponse> serviceStatusRoute(ServiceStatusProperties properties,
+                                                             ReactiveServiceStatusHandler handler) {
+        return RouterFunctions.route(GET(properties.getPath()), handler::getStatus);
+    }
+}
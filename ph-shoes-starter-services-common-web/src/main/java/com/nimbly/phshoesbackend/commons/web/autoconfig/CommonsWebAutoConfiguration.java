@@ -1,22 +1,32 @@
 package com.nimbly.phshoesbackend.commons.web.autoconfig;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
 import com.nimbly.phshoesbackend.commons.core.config.props.ServiceStatusProperties;
 import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ConcurrencyLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
 import com.nimbly.phshoesbackend.commons.core.status.ServiceStatusContributor;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+import com.nimbly.phshoesbackend.commons.web.ratelimit.ApiRateLimitFilter;
 import com.nimbly.phshoesbackend.commons.web.ratelimit.ApiRateLimitInterceptor;
 import com.nimbly.phshoesbackend.commons.web.ratelimit.ApiRateLimitingWebMvcConfigurer;
 import com.nimbly.phshoesbackend.commons.web.status.ServiceStatusController;
 
 @AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @ConditionalOnClass(WebMvcConfigurer.class)
 public class CommonsWebAutoConfiguration {
 
@@ -24,8 +34,37 @@ public class CommonsWebAutoConfiguration {
     @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "enabled", havingValue = "true")
     @ConditionalOnBean(ApiRateLimiter.class)
     @ConditionalOnMissingBean
-    public ApiRateLimitInterceptor apiRateLimitInterceptor(ApiRateLimiter apiRateLimiter) {
-        return new ApiRateLimitInterceptor(apiRateLimiter);
+    public RateLimitRejectionLog rateLimitRejectionLog(ApiRateLimitProperties properties) {
+        Duration logInterval = properties.getRejectionLogInterval() != null
+                ? properties.getRejectionLogInterval()
+                : Duration.ofMinutes(1);
+        return new RateLimitRejectionLog(logInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = "enabled", havingValue = "true")
+    @ConditionalOnBean(ApiRateLimiter.class)
+    @ConditionalOnMissingBean
+    public ApiRateLimitInterceptor apiRateLimitInterceptor(ApiRateLimiter apiRateLimiter,
+                                                           RateLimitRejectionLog rejectionLog,
+                                                           ObjectProvider<EpochClock> clock,
+                                                           ObjectProvider<ConcurrencyLimiter> concurrencyLimiter) {
+        return new ApiRateLimitInterceptor(apiRateLimiter, clock.getIfAvailable(EpochClock::system), rejectionLog,
+                concurrencyLimiter.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "phshoes.api.rate-limit", name = {"enabled", "early-filter.enabled"}, havingValue = "true")
+    @ConditionalOnBean(ApiRateLimitInterceptor.class)
+    @ConditionalOnMissingBean(name = "apiRateLimitFilterRegistration")
+    public FilterRegistrationBean<ApiRateLimitFilter> apiRateLimitFilterRegistration(ApiRateLimiter apiRateLimiter,
+                                                                                     ApiRateLimitProperties properties,
+                                                                                     RateLimitRejectionLog rejectionLog,
+                                                                                     ObjectProvider<EpochClock> clock) {
+        ApiRateLimitFilter filter = new ApiRateLimitFilter(apiRateLimiter, clock.getIfAvailable(EpochClock::system), rejectionLog);
+        FilterRegistrationBean<ApiRateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(properties.getEarlyFilter().getOrder());
+        return registration;
     }
 
     @Bean
@@ -0,0 +1,60 @@
+package com.nimbly.phshoesbackend.commons.web.ratelimit;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitDecision;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPhase;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRequestContext;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Checks the global and per-IP limits ahead of the security filter chain, so a flood is rejected before JWT
+ * verification and handler mapping. Admitted requests are marked, and {@link ApiRateLimitInterceptor} then checks
+ * only the per-user and route limits, giving these permits back if one of them denies. Only useful with limiters
+ * that honour {@link RateLimitRequestContext#getPhase()}, such as the built-in ones.
+ */
+public class ApiRateLimitFilter extends OncePerRequestFilter {
+
+    static final String EARLY_CHECKED = ApiRateLimitFilter.class.getName() + ".checked";
+
+    private final ApiRateLimiter apiRateLimiter;
+
+    private final EpochClock clock;
+
+    private final RateLimitRejectionLog rejectionLog;
+
+    public ApiRateLimitFilter(ApiRateLimiter apiRateLimiter, EpochClock clock, RateLimitRejectionLog rejectionLog) {
+        this.apiRateLimiter = Objects.requireNonNull(apiRateLimiter, "apiRateLimiter");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.rejectionLog = Objects.requireNonNull(rejectionLog, "rejectionLog");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitRequestContext context = RateLimitRequestContext.builder()
+                .path(request.getRequestURI())
+                .ipAddress(ApiRateLimitInterceptor.resolveClientIp(request))
+                .cost(ApiRateLimitInterceptor.resolveCost(request))
+                .phase(RateLimitPhase.EARLY)
+                .build();
+        RateLimitDecision decision = apiRateLimiter.tryAcquire(context);
+        if (!decision.isAllowed()) {
+            ApiRateLimitInterceptor.reject(response, decision, rejectionLog, clock);
+            return;
+        }
+        ApiRateLimitInterceptor.setLimitHeaders(response, decision);
+        request.setAttribute(EARLY_CHECKED, Boolean.TRUE);
+        filterChain.doFilter(request, response);
+    }
+}
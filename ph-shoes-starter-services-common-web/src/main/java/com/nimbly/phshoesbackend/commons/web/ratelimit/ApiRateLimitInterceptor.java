@@ -1,13 +1,20 @@
 package com.nimbly.phshoesbackend.commons.web.ratelimit;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimitException;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ConcurrencyLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitDecision;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPhase;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
 import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRequestContext;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,32 +23,154 @@ import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
 
 public class ApiRateLimitInterceptor implements HandlerInterceptor {
 
-    private static final Logger log = LoggerFactory.getLogger(ApiRateLimitInterceptor.class);
+    static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+
+    static final String CONCURRENCY_PERMIT = ApiRateLimitInterceptor.class.getName() + ".concurrencyPermit";
+
+    static final String OUTCOME_CONTEXT = ApiRateLimitInterceptor.class.getName() + ".outcomeContext";
+
+    /**
+     * Request attribute holding a {@link Number} of permits the request costs, overriding the configured route
+     * cost. Set it in a filter that knows how expensive the request is, e.g. from the size of a batch.
+     */
+    public static final String COST_ATTRIBUTE = ApiRateLimitInterceptor.class.getName() + ".cost";
 
     private final ApiRateLimiter apiRateLimiter;
 
+    private final EpochClock clock;
+
+    private final RateLimitRejectionLog rejectionLog;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
     public ApiRateLimitInterceptor(ApiRateLimiter apiRateLimiter) {
+        this(apiRateLimiter, EpochClock.system());
+    }
+
+    public ApiRateLimitInterceptor(ApiRateLimiter apiRateLimiter, EpochClock clock) {
+        this(apiRateLimiter, clock, new RateLimitRejectionLog(Duration.ofMinutes(1)));
+    }
+
+    public ApiRateLimitInterceptor(ApiRateLimiter apiRateLimiter, EpochClock clock, RateLimitRejectionLog rejectionLog) {
+        this(apiRateLimiter, clock, rejectionLog, null);
+    }
+
+    /**
+     * @param concurrencyLimiter sheds requests with 503 once too many are in flight; {@code null} to disable
+     */
+    public ApiRateLimitInterceptor(ApiRateLimiter apiRateLimiter,
+                                   EpochClock clock,
+                                   RateLimitRejectionLog rejectionLog,
+                                   ConcurrencyLimiter concurrencyLimiter) {
         this.apiRateLimiter = apiRateLimiter;
+        this.clock = clock;
+        this.rejectionLog = rejectionLog;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        RateLimitPhase phase = request.getAttribute(ApiRateLimitFilter.EARLY_CHECKED) != null
+                ? RateLimitPhase.LATE
+                : RateLimitPhase.ALL;
         RateLimitRequestContext context = RateLimitRequestContext.builder()
                 .path(request.getRequestURI())
                 .ipAddress(resolveClientIp(request))
                 .userId(resolveUserId(request))
+                .cost(resolveCost(request))
+                .phase(phase)
                 .build();
-        try {
-            apiRateLimiter.verifyRequest(context);
+        RateLimitDecision decision = apiRateLimiter.tryAcquire(context);
+        if (!decision.isAllowed()) {
+            reject(response, decision, rejectionLog, clock);
+            return false;
+        }
+        setLimitHeaders(response, decision);
+        if (decision.isOutcomeTracked()) {
+            request.setAttribute(OUTCOME_CONTEXT, context);
+        }
+        return acquireConcurrencyPermit(request, response);
+    }
+
+    /**
+     * Frees the concurrency slot taken in {@link #preHandle}; server errors and exceptions count as overload.
+     * Requests on routes with a failure limit report their status and exception, including exceptions already
+     * handled by an exception resolver.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(CONCURRENCY_PERMIT) instanceof ConcurrencyLimiter.Permit permit) {
+            request.removeAttribute(CONCURRENCY_PERMIT);
+            permit.release(ex == null && response.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+        if (request.getAttribute(OUTCOME_CONTEXT) instanceof RateLimitRequestContext context) {
+            request.removeAttribute(OUTCOME_CONTEXT);
+            Throwable error = ex;
+            if (error == null && request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE) instanceof Throwable resolved) {
+                error = resolved;
+            }
+            apiRateLimiter.recordOutcome(context, response.getStatus(), error);
+        }
+    }
+
+    /**
+     * Async dispatches of a request keep the slot taken by its first dispatch.
+     */
+    private boolean acquireConcurrencyPermit(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (concurrencyLimiter == null || request.getAttribute(CONCURRENCY_PERMIT) != null) {
             return true;
-        } catch (ApiRateLimitException ex) {
-            log.warn("Request blocked by rate limiter: {}", ex.getMessage());
-            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+        }
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(request.getRequestURI());
+        if (permit == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service overloaded");
             return false;
         }
+        request.setAttribute(CONCURRENCY_PERMIT, permit);
+        return true;
+    }
+
+    /**
+     * Sets the rate limit headers of an admitted request when the limiter reported its scope with the fewest permits
+     * left. A scope checked by an earlier phase that has fewer left is kept.
+     */
+    static void setLimitHeaders(HttpServletResponse response, RateLimitDecision decision) {
+        if (decision.getLimit() <= 0 || decision.getRemaining() < 0) {
+            return;
+        }
+        String previous = response.getHeader(RATE_LIMIT_REMAINING);
+        if (previous != null && Long.parseLong(previous) <= decision.getRemaining()) {
+            return;
+        }
+        response.setHeader(RATE_LIMIT_LIMIT, Long.toString(decision.getLimit()));
+        response.setHeader(RATE_LIMIT_REMAINING, Long.toString(decision.getRemaining()));
+    }
+
+    /**
+     * Logs the rejection and answers 429 with the rate limit headers.
+     */
+    static void reject(HttpServletResponse response,
+                       RateLimitDecision decision,
+                       RateLimitRejectionLog rejectionLog,
+                       EpochClock clock) throws IOException {
+        rejectionLog.record(decision);
+        if (decision.getLimit() > 0) {
+            response.setHeader(RATE_LIMIT_LIMIT, Long.toString(decision.getLimit()));
+        }
+        response.setHeader(RATE_LIMIT_REMAINING, Long.toString(Math.max(0, decision.getRemaining())));
+        long retryAfter = decision.retryAfterSeconds(clock.currentTimeMillis());
+        if (retryAfter > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        }
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+    }
+
+    static long resolveCost(HttpServletRequest request) {
+        return request.getAttribute(COST_ATTRIBUTE) instanceof Number cost ? cost.longValue() : 0;
     }
 
-    private String resolveClientIp(HttpServletRequest request) {
+    static String resolveClientIp(HttpServletRequest request) {
         String header = request.getHeader("X-Forwarded-For");
         if (StringUtils.hasText(header)) {
             return header.split(",")[0].trim();
@@ -0,0 +1,235 @@
+package com.nimbly.phshoesbackend.commons.web.ratelimit;
+
+import java.security.Principal;
+import java.util.Objects;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ConcurrencyLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitDecision;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPhase;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRequestContext;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux counterpart of {@link ApiRateLimitInterceptor} and {@link ApiRateLimitFilter}. The limiter is called on
+ * the event loop unless it reports {@link ApiRateLimiter#isBlocking()}, in which case it runs on the bounded
+ * elastic scheduler.
+ * <p>
+ * With {@link RateLimitPhase#EARLY} the filter checks only the global and per-IP limits and should be ordered
+ * before the security filter chain; otherwise it resolves the user from the exchange principal, so it has to run
+ * after authentication. A cost can be set in the {@link ApiRateLimitInterceptor#COST_ATTRIBUTE} exchange attribute.
+ */
+public class ReactiveApiRateLimitWebFilter implements WebFilter, Ordered {
+
+    static final String EARLY_CHECKED = ReactiveApiRateLimitWebFilter.class.getName() + ".checked";
+
+    private final ApiRateLimiter apiRateLimiter;
+
+    private final EpochClock clock;
+
+    private final RateLimitRejectionLog rejectionLog;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final RateLimitPhase phase;
+
+    private final int order;
+
+    /**
+     * @param concurrencyLimiter sheds requests with 503 once too many are in flight; {@code null} to disable.
+     *                           Ignored in the early phase.
+     * @param phase              {@link RateLimitPhase#EARLY} for the filter ahead of security, otherwise
+     *                           {@link RateLimitPhase#ALL}
+     */
+    public ReactiveApiRateLimitWebFilter(ApiRateLimiter apiRateLimiter,
+                                         EpochClock clock,
+                                         RateLimitRejectionLog rejectionLog,
+                                         ConcurrencyLimiter concurrencyLimiter,
+                                         RateLimitPhase phase,
+                                         int order) {
+        this.apiRateLimiter = Objects.requireNonNull(apiRateLimiter, "apiRateLimiter");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.rejectionLog = Objects.requireNonNull(rejectionLog, "rejectionLog");
+        this.concurrencyLimiter = phase == RateLimitPhase.EARLY ? null : concurrencyLimiter;
+        this.phase = Objects.requireNonNull(phase, "phase");
+        this.order = order;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (phase == RateLimitPhase.EARLY) {
+            return acquire(context(exchange, null, RateLimitPhase.EARLY))
+                    .flatMap(decision -> {
+                        if (!decision.isAllowed()) {
+                            return reject(exchange.getResponse(), decision);
+                        }
+                        setLimitHeaders(exchange.getResponse(), decision);
+                        exchange.getAttributes().put(EARLY_CHECKED, Boolean.TRUE);
+                        return chain.filter(exchange);
+                    });
+        }
+        RateLimitPhase requestPhase = exchange.getAttribute(EARLY_CHECKED) != null
+                ? RateLimitPhase.LATE
+                : RateLimitPhase.ALL;
+        return exchange.<Principal>getPrincipal()
+                .map(Principal::getName)
+                .filter(StringUtils::hasText)
+                .defaultIfEmpty("")
+                .flatMap(userId -> {
+                    RateLimitRequestContext context = context(exchange, userId, requestPhase);
+                    return acquire(context).flatMap(decision -> admit(exchange, chain, context, decision));
+                });
+    }
+
+    private Mono<Void> admit(ServerWebExchange exchange,
+                             WebFilterChain chain,
+                             RateLimitRequestContext context,
+                             RateLimitDecision decision) {
+        if (!decision.isAllowed()) {
+            return reject(exchange.getResponse(), decision);
+        }
+        setLimitHeaders(exchange.getResponse(), decision);
+        ConcurrencyLimiter.Permit permit = null;
+        if (concurrencyLimiter != null) {
+            permit = concurrencyLimiter.tryAcquire(context.getPath());
+            if (permit == null) {
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return response.setComplete();
+            }
+        }
+        if (permit == null && !decision.isOutcomeTracked()) {
+            return chain.filter(exchange);
+        }
+        Completion completion = new Completion(exchange, permit, decision.isOutcomeTracked() ? context : null);
+        return chain.filter(exchange)
+                .doOnSuccess(ignored -> completion.complete(null))
+                .doOnError(completion::complete)
+                .doOnCancel(() -> completion.complete(null));
+    }
+
+    private Mono<RateLimitDecision> acquire(RateLimitRequestContext context) {
+        if (apiRateLimiter.isBlocking()) {
+            return Mono.fromCallable(() -> apiRateLimiter.tryAcquire(context)).subscribeOn(Schedulers.boundedElastic());
+        }
+        return Mono.fromSupplier(() -> apiRateLimiter.tryAcquire(context));
+    }
+
+    /**
+     * See {@link ApiRateLimitInterceptor#setLimitHeaders}.
+     */
+    private static void setLimitHeaders(ServerHttpResponse response, RateLimitDecision decision) {
+        if (decision.getLimit() <= 0 || decision.getRemaining() < 0) {
+            return;
+        }
+        HttpHeaders headers = response.getHeaders();
+        String previous = headers.getFirst(ApiRateLimitInterceptor.RATE_LIMIT_REMAINING);
+        if (previous != null && Long.parseLong(previous) <= decision.getRemaining()) {
+            return;
+        }
+        headers.set(ApiRateLimitInterceptor.RATE_LIMIT_LIMIT, Long.toString(decision.getLimit()));
+        headers.set(ApiRateLimitInterceptor.RATE_LIMIT_REMAINING, Long.toString(decision.getRemaining()));
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, RateLimitDecision decision) {
+        rejectionLog.record(decision);
+        HttpHeaders headers = response.getHeaders();
+        if (decision.getLimit() > 0) {
+            headers.set(ApiRateLimitInterceptor.RATE_LIMIT_LIMIT, Long.toString(decision.getLimit()));
+        }
+        headers.set(ApiRateLimitInterceptor.RATE_LIMIT_REMAINING, Long.toString(Math.max(0, decision.getRemaining())));
+        long retryAfter = decision.retryAfterSeconds(clock.currentTimeMillis());
+        if (retryAfter > 0) {
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        }
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        return response.setComplete();
+    }
+
+    private static RateLimitRequestContext context(ServerWebExchange exchange, String principal, RateLimitPhase phase) {
+        ServerHttpRequest request = exchange.getRequest();
+        String userId = StringUtils.hasText(principal) ? principal : request.getHeaders().getFirst("X-User-Id");
+        return RateLimitRequestContext.builder()
+                .path(request.getPath().value())
+                .ipAddress(resolveClientIp(request))
+                .userId(StringUtils.hasText(userId) ? userId : null)
+                .cost(exchange.getAttribute(ApiRateLimitInterceptor.COST_ATTRIBUTE) instanceof Number cost
+                        ? cost.longValue()
+                        : 0)
+                .phase(phase)
+                .build();
+    }
+
+    private static String resolveClientIp(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst("X-Forwarded-For");
+        if (StringUtils.hasText(header)) {
+            return header.split(",")[0].trim();
+        }
+        return request.getRemoteAddress() != null && request.getRemoteAddress().getAddress() != null
+                ? request.getRemoteAddress().getAddress().getHostAddress()
+                : null;
+    }
+
+    /**
+     * Releases the concurrency slot and reports the outcome once, whichever way the exchange ends.
+     */
+    private final class Completion {
+
+        private final ServerWebExchange exchange;
+
+        private final ConcurrencyLimiter.Permit permit;
+
+        private final RateLimitRequestContext outcomeContext;
+
+        private boolean done;
+
+        private Completion(ServerWebExchange exchange,
+                           ConcurrencyLimiter.Permit permit,
+                           RateLimitRequestContext outcomeContext) {
+            this.exchange = exchange;
+            this.permit = permit;
+            this.outcomeContext = outcomeContext;
+        }
+
+        private synchronized void complete(Throwable error) {
+            if (done) {
+                return;
+            }
+            done = true;
+            HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+            int status = statusCode != null ? statusCode.value() : HttpStatus.OK.value();
+            if (permit != null) {
+                permit.release(error == null && status < HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+            if (outcomeContext != null) {
+                if (apiRateLimiter.isBlocking()) {
+                    Schedulers.boundedElastic()
+                            .schedule(() -> apiRateLimiter.recordOutcome(outcomeContext, status, error));
+                } else {
+                    apiRateLimiter.recordOutcome(outcomeContext, status, error);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.nimbly.phshoesbackend.commons.web.status;
+
+import java.util.Objects;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux handler for the status endpoint. Contributors may block, so the document is built on the bounded
+ * elastic scheduler rather than on the event loop.
+ */
+public class ReactiveServiceStatusHandler {
+
+    private final ServiceStatusReporter reporter;
+
+    public ReactiveServiceStatusHandler(ServiceStatusReporter reporter) {
+        this.reporter = Objects.requireNonNull(reporter, "reporter");
+    }
+
+    public Mono<ServerResponse> getStatus(ServerRequest request) {
+        return Mono.fromCallable(reporter::report)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(status -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(status));
+    }
+}
@@ -0,0 +1,53 @@
+package com.nimbly.phshoesbackend.commons.web.status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ServiceStatusProperties;
+import com.nimbly.phshoesbackend.commons.core.status.ServiceStatus;
+import com.nimbly.phshoesbackend.commons.core.status.ServiceStatusContributor;
+
+/**
+ * Builds the status document served by {@link ServiceStatusController} and {@link ReactiveServiceStatusHandler}.
+ */
+public class ServiceStatusReporter {
+
+    private final ServiceStatusProperties properties;
+
+    private final ObjectProvider<ServiceStatusContributor> contributors;
+
+    private final Instant startedAt = Instant.now();
+
+    public ServiceStatusReporter(ServiceStatusProperties properties,
+                                 ObjectProvider<ServiceStatusContributor> contributors) {
+        this.properties = properties;
+        this.contributors = contributors;
+    }
+
+    /**
+     * Runs every contributor on the calling thread; contributors may block, e.g. to ping a dependency.
+     */
+    public ServiceStatus report() {
+        Instant now = Instant.now();
+        ServiceStatus.ServiceStatusBuilder builder = ServiceStatus.builder()
+                .serviceId(properties.getServiceId())
+                .displayName(properties.getDisplayName())
+                .state(properties.getState())
+                .checkedAt(now)
+                .uptimeSeconds(Duration.between(startedAt, now).getSeconds())
+                .environment(properties.getEnvironment())
+                .version(properties.getVersion())
+                .description(properties.getDescription());
+
+        Map<String, String> metadata = properties.getMetadata();
+        if (metadata != null) {
+            metadata.forEach(builder::metadataEntry);
+        }
+
+        contributors.orderedStream().forEach(contributor -> contributor.contribute(builder));
+        return builder.build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.nimbly.phshoesbackend.commons.web.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.InMemoryApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+class ApiRateLimitFilterTest {
+
+    private final EpochClock clock = () -> 10_000L;
+
+    @Test
+    void doFilter_rejectsOverIpLimitBeforeTheChain() throws Exception {
+        ApiRateLimitProperties properties = properties();
+        properties.getPerIp().setLimit(1);
+        ApiRateLimitFilter filter = filter(new InMemoryApiRateLimiter(properties, Runnable::run, clock));
+
+        MockHttpServletRequest first = request("user-1");
+        MockFilterChain firstChain = new MockFilterChain();
+        filter.doFilter(first, new MockHttpServletResponse(), firstChain);
+
+        MockFilterChain rejectedChain = new MockFilterChain();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("user-2"), rejected, rejectedChain);
+
+        assertEquals(first, firstChain.getRequest());
+        assertNull(rejectedChain.getRequest());
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("RateLimit-Limit"));
+        assertEquals("30", rejected.getHeader("Retry-After"));
+    }
+
+    @Test
+    void interceptor_leavesIpAndGlobalLimitsToTheFilter() throws Exception {
+        ApiRateLimitProperties properties = properties();
+        properties.getPerIp().setLimit(2);
+        properties.getPerUser().setLimit(1);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, clock);
+        ApiRateLimitFilter filter = filter(limiter);
+        ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter, clock);
+
+        MockHttpServletRequest first = request("user-1");
+        filter.doFilter(first, new MockHttpServletResponse(), new MockFilterChain());
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), new Object()));
+
+        MockHttpServletRequest second = request("user-1");
+        filter.doFilter(second, new MockHttpServletResponse(), new MockFilterChain());
+        assertFalse(interceptor.preHandle(second, new MockHttpServletResponse(), new Object()));
+
+        MockHttpServletRequest third = request("user-2");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(third, new MockHttpServletResponse(), chain);
+        assertEquals(third, chain.getRequest());
+        assertTrue(interceptor.preHandle(third, new MockHttpServletResponse(), new Object()));
+    }
+
+    private ApiRateLimitFilter filter(InMemoryApiRateLimiter limiter) {
+        return new ApiRateLimitFilter(limiter, clock, new RateLimitRejectionLog(Duration.ofMinutes(1)));
+    }
+
+    private static ApiRateLimitProperties properties() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        return properties;
+    }
+
+    private static MockHttpServletRequest request(String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-User-Id", userId);
+        return request;
+    }
+}
@@ -2,26 +2,40 @@ package com.nimbly.phshoesbackend.commons.web.ratelimit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.DispatcherServlet;
 
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.AimdConcurrencyLimiter;
 import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimitException;
 import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitDecision;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
 import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRequestContext;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
 
 class ApiRateLimitInterceptorTest {
 
     @Test
     void preHandle_allowsWhenLimiterAccepts() throws Exception {
         ApiRateLimiter limiter = Mockito.mock(ApiRateLimiter.class);
+        when(limiter.tryAcquire(any())).thenReturn(RateLimitDecision.allowed());
         ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter);
 
         MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
@@ -33,15 +47,69 @@ class ApiRateLimitInterceptorTest {
 
         assertTrue(result);
         ArgumentCaptor<RateLimitRequestContext> captor = ArgumentCaptor.forClass(RateLimitRequestContext.class);
-        verify(limiter).verifyRequest(captor.capture());
+        verify(limiter).tryAcquire(captor.capture());
         assertEquals("10.0.0.1", captor.getValue().getIpAddress());
         assertEquals("user-1", captor.getValue().getUserId());
     }
 
     @Test
-    void preHandle_blocksWhenLimiterThrows() throws Exception {
+    void preHandle_describesRemainingPermitsOnAdmittedRequest() throws Exception {
+        ApiRateLimiter limiter = Mockito.mock(ApiRateLimiter.class);
+        when(limiter.tryAcquire(any()))
+                .thenReturn(RateLimitDecision.allowed("ip", "ip:10.0.0.1", "/api/test", 5, 4, false));
+        ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setHeader("RateLimit-Limit", "10");
+        response.setHeader("RateLimit-Remaining", "2");
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/test"), response, new Object()));
+        assertEquals("2", response.getHeader("RateLimit-Remaining"));
+
+        MockHttpServletResponse fresh = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/test"), fresh, new Object()));
+        assertEquals("5", fresh.getHeader("RateLimit-Limit"));
+        assertEquals("4", fresh.getHeader("RateLimit-Remaining"));
+    }
+
+    @Test
+    void preHandle_passesCostFromRequestAttribute() throws Exception {
+        ApiRateLimiter limiter = Mockito.mock(ApiRateLimiter.class);
+        when(limiter.tryAcquire(any())).thenReturn(RateLimitDecision.allowed());
+        ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/batch");
+        request.setAttribute(ApiRateLimitInterceptor.COST_ATTRIBUTE, 25);
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+
+        ArgumentCaptor<RateLimitRequestContext> captor = ArgumentCaptor.forClass(RateLimitRequestContext.class);
+        verify(limiter).tryAcquire(captor.capture());
+        assertEquals(25, captor.getValue().getCost());
+    }
+
+    @Test
+    void preHandle_blocksWhenLimiterDenies() throws Exception {
         ApiRateLimiter limiter = Mockito.mock(ApiRateLimiter.class);
-        doThrow(new ApiRateLimitException("limit")).when(limiter).verifyRequest(any());
+        when(limiter.tryAcquire(any())).thenReturn(RateLimitDecision.denied("ip", "ip:10.0.0.1", "/api/test", 5, 40_500));
+        ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter, () -> 10_000L);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean result = interceptor.preHandle(request, response, new Object());
+
+        assertFalse(result);
+        assertEquals(429, response.getStatus());
+        assertEquals("5", response.getHeader("RateLimit-Limit"));
+        assertEquals("0", response.getHeader("RateLimit-Remaining"));
+        assertEquals("31", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void preHandle_blocksLegacyLimiterThatThrows() throws Exception {
+        ApiRateLimiter limiter = context -> {
+            throw new ApiRateLimitException("limit");
+        };
         ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter);
 
         MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
@@ -51,5 +119,88 @@ class ApiRateLimitInterceptorTest {
 
         assertFalse(result);
         assertEquals(429, response.getStatus());
+        assertNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void preHandle_shedsWhenConcurrencyLimitIsInFlight() throws Exception {
+        AimdConcurrencyLimiter concurrencyLimiter = concurrencyLimiter(1);
+        ApiRateLimitInterceptor interceptor = interceptor(concurrencyLimiter);
+
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/test");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), new Object()));
+
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/test"), shed, new Object()));
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), new Object(), null);
+        assertEquals(0, concurrencyLimiter.getInFlight("/api/test"));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/test"), new MockHttpServletResponse(), new Object()));
+    }
+
+    @Test
+    void afterCompletion_reportsServerErrorsAsOverload() throws Exception {
+        AimdConcurrencyLimiter concurrencyLimiter = concurrencyLimiter(10);
+        ApiRateLimitInterceptor interceptor = interceptor(concurrencyLimiter);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        assertEquals(1, concurrencyLimiter.getInFlight("/api/test"));
+        response.setStatus(503);
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertEquals(9, concurrencyLimiter.getLimit("/api/test"));
+        assertNull(request.getAttribute(ApiRateLimitInterceptor.CONCURRENCY_PERMIT));
+    }
+
+    @Test
+    void afterCompletion_reportsOutcomeOfTrackedRequests() throws Exception {
+        ApiRateLimiter limiter = Mockito.mock(ApiRateLimiter.class);
+        when(limiter.tryAcquire(any())).thenReturn(RateLimitDecision.allowedTrackingOutcome());
+        ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        IllegalArgumentException resolved = new IllegalArgumentException("bad credentials");
+
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        response.setStatus(401);
+        request.setAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE, resolved);
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        ArgumentCaptor<RateLimitRequestContext> captor = ArgumentCaptor.forClass(RateLimitRequestContext.class);
+        verify(limiter).recordOutcome(captor.capture(), eq(401), same(resolved));
+        assertEquals("/api/login", captor.getValue().getPath());
+        assertNull(request.getAttribute(ApiRateLimitInterceptor.OUTCOME_CONTEXT));
+    }
+
+    @Test
+    void afterCompletion_skipsUntrackedRequests() throws Exception {
+        ApiRateLimiter limiter = Mockito.mock(ApiRateLimiter.class);
+        when(limiter.tryAcquire(any())).thenReturn(RateLimitDecision.allowed());
+        ApiRateLimitInterceptor interceptor = new ApiRateLimitInterceptor(limiter);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), new Object(), null);
+
+        verify(limiter, never()).recordOutcome(any(), anyInt(), any());
+    }
+
+    private static ApiRateLimitInterceptor interceptor(AimdConcurrencyLimiter concurrencyLimiter) {
+        ApiRateLimiter limiter = Mockito.mock(ApiRateLimiter.class);
+        when(limiter.tryAcquire(any())).thenReturn(RateLimitDecision.allowed());
+        EpochClock clock = EpochClock.system();
+        return new ApiRateLimitInterceptor(limiter, clock, new RateLimitRejectionLog(Duration.ofMinutes(1)),
+                concurrencyLimiter);
+    }
+
+    private static AimdConcurrencyLimiter concurrencyLimiter(int initialLimit) {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.getConcurrency().setInitialLimit(initialLimit);
+        return new AimdConcurrencyLimiter(properties);
     }
 }
@@ -0,0 +1,145 @@
+package com.nimbly.phshoesbackend.commons.web.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import com.nimbly.phshoesbackend.commons.core.config.props.ApiRateLimitProperties;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.AimdConcurrencyLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.ConcurrencyLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.InMemoryApiRateLimiter;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitDecision;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitPhase;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRejectionLog;
+import com.nimbly.phshoesbackend.commons.core.ratelimit.RateLimitRequestContext;
+import com.nimbly.phshoesbackend.commons.core.time.EpochClock;
+
+import reactor.core.publisher.Mono;
+
+class ReactiveApiRateLimitWebFilterTest {
+
+    private final EpochClock clock = () -> 10_000L;
+
+    @Test
+    void filter_rejectsOverUserLimit() {
+        ApiRateLimitProperties properties = properties();
+        properties.getPerUser().setLimit(1);
+        ReactiveApiRateLimitWebFilter filter = filter(new InMemoryApiRateLimiter(properties, Runnable::run, clock),
+                null, RateLimitPhase.ALL);
+
+        MockServerWebExchange first = exchange("user-1");
+        assertTrue(passes(filter, first));
+        assertEquals("0", first.getResponse().getHeaders().getFirst("RateLimit-Remaining"));
+
+        MockServerWebExchange rejected = exchange("user-1");
+        assertFalse(passes(filter, rejected));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst("RateLimit-Limit"));
+        assertEquals("30", rejected.getResponse().getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void filter_earlyPhaseLeavesUserLimitToTheLaterFilter() {
+        ApiRateLimitProperties properties = properties();
+        properties.getPerIp().setLimit(2);
+        properties.getPerUser().setLimit(1);
+        InMemoryApiRateLimiter limiter = new InMemoryApiRateLimiter(properties, Runnable::run, clock);
+        ReactiveApiRateLimitWebFilter early = filter(limiter, null, RateLimitPhase.EARLY);
+        ReactiveApiRateLimitWebFilter late = filter(limiter, null, RateLimitPhase.ALL);
+
+        MockServerWebExchange first = exchange("user-1");
+        assertTrue(passes(early, first));
+        assertTrue(passes(late, first));
+
+        MockServerWebExchange second = exchange("user-1");
+        assertTrue(passes(early, second));
+        assertFalse(passes(late, second));
+
+        assertTrue(passes(early, exchange("user-2")));
+    }
+
+    @Test
+    void filter_releasesConcurrencyPermitWhenExchangeCompletes() {
+        ApiRateLimitProperties properties = properties();
+        properties.getConcurrency().setInitialLimit(1);
+        AimdConcurrencyLimiter concurrencyLimiter = new AimdConcurrencyLimiter(properties);
+        ApiRateLimiter limiter = context -> {
+        };
+        ReactiveApiRateLimitWebFilter filter = filter(limiter, concurrencyLimiter, RateLimitPhase.ALL);
+
+        assertTrue(passes(filter, exchange("user-1")));
+        assertEquals(0, concurrencyLimiter.getInFlight("/api/test"));
+
+        ConcurrencyLimiter.Permit held = concurrencyLimiter.tryAcquire("/api/test");
+        MockServerWebExchange shed = exchange("user-1");
+        assertFalse(passes(filter, shed));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, shed.getResponse().getStatusCode());
+        held.release(true);
+    }
+
+    @Test
+    void filter_runsBlockingLimiterOffTheCallingThread() {
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> limiterThread = new AtomicReference<>();
+        ApiRateLimiter limiter = new ApiRateLimiter() {
+            @Override
+            public void verifyRequest(RateLimitRequestContext context) {
+                tryAcquire(context);
+            }
+
+            @Override
+            public RateLimitDecision tryAcquire(RateLimitRequestContext context) {
+                limiterThread.set(Thread.currentThread());
+                return RateLimitDecision.allowed();
+            }
+
+            @Override
+            public boolean isBlocking() {
+                return true;
+            }
+        };
+
+        assertTrue(passes(filter(limiter, null, RateLimitPhase.ALL), exchange("user-1")));
+        assertTrue(limiterThread.get() != null && limiterThread.get() != caller);
+    }
+
+    private ReactiveApiRateLimitWebFilter filter(ApiRateLimiter limiter,
+                                                 ConcurrencyLimiter concurrencyLimiter,
+                                                 RateLimitPhase phase) {
+        return new ReactiveApiRateLimitWebFilter(limiter, clock, new RateLimitRejectionLog(Duration.ofMinutes(1)),
+                concurrencyLimiter, phase, 0);
+    }
+
+    private static boolean passes(ReactiveApiRateLimitWebFilter filter, MockServerWebExchange exchange) {
+        boolean[] called = {false};
+        WebFilterChain chain = ignored -> {
+            called[0] = true;
+            return Mono.empty();
+        };
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return called[0];
+    }
+
+    private static ApiRateLimitProperties properties() {
+        ApiRateLimitProperties properties = new ApiRateLimitProperties();
+        properties.setDefaultWindow(Duration.ofSeconds(30));
+        return properties;
+    }
+
+    private static MockServerWebExchange exchange(String userId) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/test")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 8080))
+                .header("X-User-Id", userId));
+    }
+}